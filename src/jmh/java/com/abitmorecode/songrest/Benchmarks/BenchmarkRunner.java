@@ -0,0 +1,52 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * runs the benchmarks once per thread count and writes one JMH json result file per run
+ * <p>
+ * configured by system properties:
+ * <ul>
+ * 	<li>benchmark.threads: comma separated thread counts, default 1</li>
+ * 	<li>benchmark.include: regex of the benchmarks to run, default all</li>
+ * 	<li>benchmark.params: optional JMH parameters, e.g. catalogSize=1000,100000;otherParam=1</li>
+ * 	<li>benchmark.results: directory for the result files, default target/jmh</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		String[] threadCounts = System.getProperty("benchmark.threads", "1").split(",");
+		String include = System.getProperty("benchmark.include", ".*");
+		String params = System.getProperty("benchmark.params", "");
+		Path results = Path.of(System.getProperty("benchmark.results", "target/jmh"));
+		Files.createDirectories(results);
+
+		for (String threadCount : threadCounts) {
+			int threads = Integer.parseInt(threadCount.trim());
+			ChainedOptionsBuilder options = new OptionsBuilder()
+					.include(include)
+					.threads(threads)
+					.resultFormat(ResultFormatType.JSON)
+					.result(results.resolve("results-" + threads + "-threads.json").toString());
+			for (String param : params.split(";")) {
+				if (!param.isBlank()) {
+					String[] nameAndValues = param.split("=", 2);
+					options.param(nameAndValues[0].trim(), nameAndValues[1].split(","));
+				}
+			}
+			new Runner(options.build()).run();
+		}
+	}
+}
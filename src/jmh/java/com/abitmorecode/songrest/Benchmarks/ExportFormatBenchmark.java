@@ -0,0 +1,107 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Controller.SongExport;
+import com.abitmorecode.songrest.Controller.SongFormat;
+import com.abitmorecode.songrest.Models.Song;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * streamed exports of the whole catalog as json, NDJSON and xml into a stream that only counts the bytes
+ * <p>
+ * export reports the output rate in bytes per second as secondary result bytes. allocation runs one export after
+ * <p>
+ * the warmup and reports allocatedBytesPerSong, the heap allocated by the export per song (the catalog itself is
+ * <p>
+ * built before). both show what xml costs compared to the json path
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ExportFormatBenchmark {
+
+	@Param({"100000"})
+	public int catalogSize;
+
+	@Param({"JSON", "NDJSON", "XML"})
+	public SongFormat format;
+
+	private List<Song> songs;
+	private ObjectMapper mapper;
+
+	/**
+	 * bytes is summed up and divided by the time of the iteration
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Output {
+		public long bytes;
+	}
+
+	/**
+	 * JMH sums event counters over the measurement iterations, so allocation has only one
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Allocation {
+		public double allocatedBytesPerSong;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		songs = SongCatalogGenerator.generate(catalogSize);
+		mapper = format == SongFormat.XML ? new XmlMapper() : new ObjectMapper();
+	}
+
+	@Benchmark
+	public long export(Output output) throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		new SongExport(songs.stream(), mapper, format, 1000).writeTo(out);
+		output.bytes += out.count;
+		return out.count;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 1)
+	public long allocation(Allocation allocation) throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		long allocatedBefore = allocatedBytes();
+		new SongExport(songs.stream(), mapper, format, 1000).writeTo(out);
+		allocation.allocatedBytesPerSong = (allocatedBytes() - allocatedBefore) / (double) catalogSize;
+		return out.count;
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * stands in for the response, the bytes are only counted
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
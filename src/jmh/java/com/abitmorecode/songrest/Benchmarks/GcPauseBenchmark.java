@@ -0,0 +1,133 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.ColumnarSongService;
+import com.abitmorecode.songrest.Services.OffHeapSongService;
+import com.abitmorecode.songrest.Services.SongService;
+import com.abitmorecode.songrest.Services.SongsManager;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * garbage collector pauses while a loaded store serves a request like workload, reported as secondary results
+ * <p>
+ * gcCount and gcPauseMs are the collections and their summed time during the workload, fullGcMs is one explicit
+ * <p>
+ * full GC afterwards, which has to trace everything that lives on the heap. the workload reads single songs and
+ * <p>
+ * pages and does an add/delete pair every 10 operations. 20M songs need about 11GB heap in the memory store, so
+ * <p>
+ * the fork may use up to 16GB, restrict catalogSize with benchmark.params on smaller machines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx16g", "-XX:MaxDirectMemorySize=8g", "-XX:+UseG1GC"})
+public class GcPauseBenchmark {
+
+	private static final int OPERATIONS = 500_000;
+
+	@Param({"1000000", "5000000", "20000000"})
+	public int catalogSize;
+
+	@Param({"memory", "columnar", "offheap"})
+	public String store;
+
+	private SongsManager songsManager;
+
+	/**
+	 * JMH sums event counters over the measurement iterations, so there is only one
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Pauses {
+		public long gcCount;
+		public double gcPauseMs;
+		public double fullGcMs;
+	}
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		String catalog = SongCatalogGenerator.catalogFile(catalogSize).toString();
+		switch (store) {
+			case "memory":
+				SongService songService = new SongService(new SimpleMeterRegistry());
+				songService.reset();
+				songService.init(catalog);
+				songsManager = songService;
+				break;
+			case "columnar":
+				ColumnarSongService columnar = new ColumnarSongService(new SimpleMeterRegistry());
+				columnar.reset();
+				columnar.init(catalog);
+				songsManager = columnar;
+				break;
+			case "offheap":
+				OffHeapSongService offHeap = new OffHeapSongService(new SimpleMeterRegistry(), DataSize.ofMegabytes(64));
+				offHeap.reset();
+				offHeap.init(catalog);
+				songsManager = offHeap;
+				break;
+			default:
+				throw new IllegalArgumentException("unknown store " + store);
+		}
+	}
+
+	@Benchmark
+	public long serve(Pauses pauses) throws NoIdAvailableException, SongDoesntExistException {
+		System.gc();
+		long count = gcCount();
+		long time = gcTime();
+		long checksum = 0;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < OPERATIONS; i++) {
+			int id = 1 + random.nextInt(catalogSize);
+			if (i % 10 == 0) {
+				// ids behind the catalog are free, so the pair leaves the catalog as it was
+				Song song = new Song(catalogSize + 1 + random.nextInt(1024), "Benchmark", "Benchmark Artist", "Benchmark Label", 2021);
+				songsManager.addSong(song);
+				songsManager.deleteSong(song.getId());
+			} else if (i % 10 == 1) {
+				List<Song> page = songsManager.getSongsAfter(id, 100);
+				checksum += page.size();
+			} else {
+				checksum += songsManager.getSpecificSong(id).getReleased();
+			}
+		}
+		pauses.gcCount = gcCount() - count;
+		pauses.gcPauseMs = gcTime() - time;
+
+		long fullGcStart = System.nanoTime();
+		System.gc();
+		pauses.fullGcMs = (System.nanoTime() - fullGcStart) / 1_000_000.0;
+		return checksum;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, gc.getCollectionTime());
+		}
+		return time;
+	}
+}
@@ -0,0 +1,103 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.ColumnarSongService;
+import com.abitmorecode.songrest.Services.SongJsonLoader;
+import com.abitmorecode.songrest.Services.SongService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * retained heap per song of the song representations, reported as secondary result bytesPerSong
+ * <p>
+ * arrayList is the original ArrayList&lt;Song&gt; filled from json, snapshot is SongService including its indexes,
+ * <p>
+ * columnar is ColumnarSongService. the heap is measured after full GCs, so run it with benchmark.threads=1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g", "-XX:+UseParallelGC"})
+public class HeapFootprintBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int catalogSize;
+
+	@Param({"arrayList", "snapshot", "columnar"})
+	public String store;
+
+	private Path catalog;
+	private Object retained;
+
+	/**
+	 * JMH sums event counters over the measurement iterations, so there is only one
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Footprint {
+		public double bytesPerSong;
+	}
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		catalog = SongCatalogGenerator.catalogFile(catalogSize);
+	}
+
+	@Setup(Level.Iteration)
+	public void release() {
+		retained = null;
+	}
+
+	@Benchmark
+	public Object build(Footprint footprint) throws IOException {
+		long before = usedHeap();
+		retained = load();
+		long after = usedHeap();
+		footprint.bytesPerSong = (after - before) / (double) catalogSize;
+		return retained;
+	}
+
+	private Object load() throws IOException {
+		switch (store) {
+			case "arrayList":
+				List<Song> songs = new ArrayList<>();
+				SongJsonLoader.load(catalog, songs::add);
+				return songs;
+			case "snapshot":
+				SongService songService = new SongService(new SimpleMeterRegistry());
+				songService.reset();
+				songService.init(catalog.toString());
+				return songService;
+			case "columnar":
+				ColumnarSongService columnar = new ColumnarSongService(new SimpleMeterRegistry());
+				columnar.reset();
+				columnar.init(catalog.toString());
+				return columnar;
+			default:
+				throw new IllegalArgumentException("unknown store " + store);
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// repeat until the used heap stops shrinking, a single System.gc() may leave garbage behind
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			long now = runtime.totalMemory() - runtime.freeMemory();
+			if (now >= used) {
+				break;
+			}
+			used = now;
+		}
+		return used;
+	}
+}
@@ -0,0 +1,91 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.JdbcSongService;
+import com.abitmorecode.songrest.Services.SongService;
+import com.abitmorecode.songrest.Services.SongsManager;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares the jdbc store (on an in-memory H2 database behind a Hikari pool) with the in-memory store
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class JdbcSongServiceBenchmark {
+
+	@Param({"memory", "jdbc"})
+	public String store;
+
+	@Param({"1000", "100000"})
+	public int catalogSize;
+
+	private HikariDataSource dataSource;
+	private SongsManager songsManager;
+	private Path catalog;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		catalog = SongCatalogGenerator.catalogFile(catalogSize);
+		if ("jdbc".equals(store)) {
+			dataSource = new HikariDataSource();
+			dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+			dataSource.setMaximumPoolSize(32);
+			songsManager = new JdbcSongService(dataSource, new SimpleMeterRegistry());
+		} else {
+			songsManager = new SongService();
+		}
+		load();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (dataSource != null) {
+			dataSource.close();
+		}
+	}
+
+	@Benchmark
+	public Song getSpecificSong() throws SongDoesntExistException {
+		return songsManager.getSpecificSong(1 + ThreadLocalRandom.current().nextInt(catalogSize));
+	}
+
+	@Benchmark
+	public int addAndDeleteSongWithCollision() throws NoIdAvailableException, SongDoesntExistException {
+		Song song = new Song(1, "Benchmark", "Benchmark Artist", "Benchmark Label", 2021);
+		songsManager.addSong(song);
+		songsManager.deleteSong(song.getId());
+		return song.getId();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 3)
+	public int init() throws IOException {
+		return load();
+	}
+
+	private int load() throws IOException {
+		songsManager.reset();
+		if (songsManager instanceof JdbcSongService) {
+			((JdbcSongService) songsManager).init(catalog.toString());
+		} else {
+			((SongService) songsManager).init(catalog.toString());
+		}
+		return catalogSize;
+	}
+}
@@ -0,0 +1,126 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP load test against a running service, to compare the servlet and the reactive mode
+ * <p>
+ * every connection is a client sending its next request as soon as the last answer arrived, requests/sec and the
+ * <p>
+ * latency percentiles are printed per number of connections. as the clients wait for their answers, a stalled
+ * <p>
+ * server slows down the clients too, so p99 is a lower bound. run it with the benchmark profile:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.main=com.abitmorecode.songrest.Benchmarks.SongApiLoadTest \
+ *     -Dbenchmark.params="url=http://localhost:8080/ABitMoreCode/songs/{id};connections=1000,10000;seconds=30"
+ * </pre>
+ * {id} in the url is replaced by a random id between 1 and maxId. 10k connections need an open file limit above
+ * <p>
+ * 20k for client and server (ulimit -n)
+ */
+public final class SongApiLoadTest {
+
+	private SongApiLoadTest() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> params = parse(System.getProperty("benchmark.params", ""));
+		String url = params.getOrDefault("url", "http://localhost:8080/ABitMoreCode/songs/{id}");
+		String[] connectionCounts = params.getOrDefault("connections", "1000,10000").split(",");
+		int seconds = Integer.parseInt(params.getOrDefault("seconds", "30"));
+		int warmupSeconds = Integer.parseInt(params.getOrDefault("warmupSeconds", "5"));
+		int maxId = Integer.parseInt(params.getOrDefault("maxId", "10"));
+
+		System.out.println("connections  requests/sec        p50 ms        p99 ms      p99.9 ms        errors");
+		for (String connectionCount : connectionCounts) {
+			int connections = Integer.parseInt(connectionCount.trim());
+			run(url, maxId, connections, warmupSeconds);
+			Result result = run(url, maxId, connections, seconds);
+			Histogram latencies = result.latencies;
+			System.out.printf("%11d %13.0f %13.2f %13.2f %13.2f %13d%n",
+					connections,
+					latencies.getTotalCount() / (double) seconds,
+					latencies.getValueAtPercentile(50) / 1e6,
+					latencies.getValueAtPercentile(99) / 1e6,
+					latencies.getValueAtPercentile(99.9) / 1e6,
+					result.errors);
+		}
+	}
+
+	private static Result run(String url, int maxId, int connections, int seconds) throws InterruptedException {
+		// an HTTP/1.1 HttpClient opens one connection per request in flight, several of them spread the selector work
+		Recorder recorder = new Recorder(3);
+		AtomicLong errors = new AtomicLong();
+		long end = System.nanoTime() + seconds * 1_000_000_000L;
+		CompletableFuture<?>[] clients = new CompletableFuture<?>[connections];
+		HttpClient[] httpClients = new HttpClient[Math.max(1, connections / 100)];
+		for (int i = 0; i < httpClients.length; i++) {
+			httpClients[i] = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.connectTimeout(Duration.ofSeconds(30))
+					.build();
+		}
+		for (int i = 0; i < connections; i++) {
+			clients[i] = loop(httpClients[i % httpClients.length], url, maxId, end, recorder, errors);
+		}
+		CompletableFuture.allOf(clients).join();
+		return new Result(recorder.getIntervalHistogram(), errors.get());
+	}
+
+	/**
+	 * sends requests one after another until the end, on the threads of the HttpClient
+	 */
+	private static CompletableFuture<Void> loop(HttpClient client, String url, int maxId, long end, Recorder recorder, AtomicLong errors) {
+		if (System.nanoTime() >= end) {
+			return CompletableFuture.completedFuture(null);
+		}
+		String id = Integer.toString(1 + ThreadLocalRandom.current().nextInt(maxId));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url.replace("{id}", id)))
+				.timeout(Duration.ofSeconds(60))
+				.build();
+		long start = System.nanoTime();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.handle((response, failure) -> {
+					if (failure != null || response.statusCode() >= 400) {
+						errors.incrementAndGet();
+					} else {
+						recorder.recordValue(System.nanoTime() - start);
+					}
+					return null;
+				})
+				.thenCompose(ignored -> loop(client, url, maxId, end, recorder, errors));
+	}
+
+	private static Map<String, String> parse(String params) {
+		Map<String, String> parsed = new HashMap<>();
+		for (String param : params.split(";")) {
+			if (!param.isBlank()) {
+				String[] nameAndValue = param.split("=", 2);
+				parsed.put(nameAndValue[0].trim(), nameAndValue[1].trim());
+			}
+		}
+		return parsed;
+	}
+
+	private static final class Result {
+		private final Histogram latencies;
+		private final long errors;
+
+		private Result(Histogram latencies, long errors) {
+			this.latencies = latencies;
+			this.errors = errors;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * generates reproducible song catalogs of any size for the benchmarks
+ * <p>
+ * artists and labels repeat like in a real catalog: about ten songs per artist and 50 labels overall
+ */
+public final class SongCatalogGenerator {
+
+	private static final Path CATALOG_DIRECTORY = Path.of("target", "benchmark-catalogs");
+
+	private static final String[] WORDS = {"love", "night", "heart", "baby", "dance", "fire", "dream", "city", "summer",
+			"rain", "blue", "gold", "road", "home", "light", "wild", "stars", "crazy", "girl", "time", "money", "forever",
+			"river", "moon", "sky", "dogs", "food", "breaky", "humps", "vu", "déjà", "café", "señor", "über"};
+
+	private static final String[] SUFFIXES = {"", "s", "er", "ing", "ed", "land", "town", "less", "ly", "y", "side",
+			"light", "o", "a", "ie", "ville", "ster", "ish", "wood", "fall"};
+
+	private SongCatalogGenerator() {
+	}
+
+	/**
+	 * generates songs with the ids 1 to size
+	 *
+	 * @param size number of songs
+	 *
+	 * @return List of songs
+	 */
+	public static List<Song> generate(int size) {
+		Random random = new Random(size);
+		List<Song> songs = new ArrayList<>(size);
+		int artists = Math.max(1, size / 10);
+		for (int id = 1; id <= size; id++) {
+			songs.add(song(id, random, artists));
+		}
+		return songs;
+	}
+
+	/**
+	 * returns the path of a json catalog with the ids 1 to size, the file is generated on first use
+	 *
+	 * @param size number of songs
+	 *
+	 * @return path to json file
+	 *
+	 * @throws IOException thrown, if the file can't be written
+	 */
+	public static synchronized Path catalogFile(int size) throws IOException {
+		Path file = CATALOG_DIRECTORY.resolve("songs-" + size + ".json");
+		if (Files.exists(file)) {
+			return file;
+		}
+		Files.createDirectories(CATALOG_DIRECTORY);
+		Path tmp = Files.createTempFile(CATALOG_DIRECTORY, "songs-" + size, ".tmp");
+		Random random = new Random(size);
+		int artists = Math.max(1, size / 10);
+		try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8); JsonWriter json = new JsonWriter(writer)) {
+			json.setIndent("\t");
+			json.beginArray();
+			for (int id = 1; id <= size; id++) {
+				Song song = song(id, random, artists);
+				json.beginObject()
+						.name("id").value(song.getId())
+						.name("title").value(song.getTitle())
+						.name("artist").value(song.getArtist())
+						.name("label").value(song.getLabel())
+						.name("released").value(song.getReleased())
+						.endObject();
+			}
+			json.endArray();
+		}
+		Files.move(tmp, file);
+		return file;
+	}
+
+	private static Song song(int id, Random random, int artists) {
+		int words = 1 + random.nextInt(4);
+		StringBuilder title = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				title.append(' ');
+			}
+			String word = WORDS[random.nextInt(WORDS.length)] + SUFFIXES[random.nextInt(SUFFIXES.length)];
+			title.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+		}
+		return new Song(id, title.toString(), "Artist " + random.nextInt(artists), "Label " + random.nextInt(50), 1950 + random.nextInt(72));
+	}
+}
@@ -0,0 +1,79 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.Journal.FsyncPolicy;
+import com.abitmorecode.songrest.Services.Journal.SongJournal;
+import com.abitmorecode.songrest.Services.SongService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * time needed to recover a catalog from the journal, either from records only or from a snapshot
+ * <p>
+ * recoverJournal only reads the files, recoverSongService also rebuilds the snapshot and all indexes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SongJournalRecoveryBenchmark {
+
+	private static final Path JOURNAL_DIRECTORY = Path.of("target", "benchmark-journals");
+
+	@Param({"100000", "1000000"})
+	public int records;
+
+	@Param({"false", "true"})
+	public boolean snapshot;
+
+	private Path directory;
+	private SongJournal journal;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		directory = JOURNAL_DIRECTORY.resolve(records + (snapshot ? "-snapshot" : "-log"));
+		if (Files.exists(directory)) {
+			return;
+		}
+		List<Song> songs = SongCatalogGenerator.generate(records);
+		try (SongJournal writer = new SongJournal(directory, FsyncPolicy.OS, 10, Long.MAX_VALUE)) {
+			writer.recover();
+			for (Song song : songs) {
+				SongJournal.Records records = writer.records().add(song);
+				writer.sequence(records);
+				writer.write(records);
+			}
+			if (snapshot) {
+				writer.writeSnapshot(songs, writer.rotate());
+			}
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+
+	@Benchmark
+	public int recoverJournal() throws IOException {
+		journal = new SongJournal(directory, FsyncPolicy.OS, 10, Long.MAX_VALUE);
+		return journal.recover().getSongs().size();
+	}
+
+	@Benchmark
+	public int recoverSongService() {
+		journal = new SongJournal(directory, FsyncPolicy.OS, 10, Long.MAX_VALUE);
+		return new SongService(new SimpleMeterRegistry(), journal).getAllSongs().size();
+	}
+}
@@ -0,0 +1,62 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Services.MappedSongService;
+import com.abitmorecode.songrest.Services.SongCatalogConverter;
+import com.abitmorecode.songrest.Services.SongService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * time SongService.init needs to load a catalog from json, every benchmark thread loads into its own SongService
+ * <p>
+ * openMapped compares it with the startup of MappedSongService on the same catalog in binary format
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SongLoadBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int catalogSize;
+
+	private Path catalog;
+	private Path mappedCatalog;
+	private SongService songService;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		catalog = SongCatalogGenerator.catalogFile(catalogSize);
+		mappedCatalog = catalog.resolveSibling("songs-" + catalogSize + ".bin");
+		synchronized (SongLoadBenchmark.class) {
+			if (!Files.exists(mappedCatalog)) {
+				SongCatalogConverter.convert(catalog, mappedCatalog);
+			}
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		songService = new SongService();
+		songService.reset();
+	}
+
+	@Benchmark
+	public int init() throws IOException {
+		songService.init(catalog.toString());
+		return songService.getAllSongs().size();
+	}
+
+	@Benchmark
+	public int openMapped() throws IOException {
+		MappedSongService mapped = new MappedSongService(mappedCatalog, new SimpleMeterRegistry());
+		return mapped.getAllSongs().size();
+	}
+}
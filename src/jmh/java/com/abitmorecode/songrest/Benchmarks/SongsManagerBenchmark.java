@@ -0,0 +1,120 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.SongService;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of the SongService operations on catalogs of different sizes
+ * <p>
+ * writes are benchmarked as add/delete pairs, so the catalog keeps its size over all iterations
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SongsManagerBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int catalogSize;
+
+	private SongService songService;
+	private ObjectMapper objectMapper;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		songService = new SongService();
+		songService.reset();
+		songService.init(SongCatalogGenerator.catalogFile(catalogSize).toString());
+		objectMapper = new ObjectMapper();
+	}
+
+	@Benchmark
+	public Song getSpecificSong() throws SongDoesntExistException {
+		return songService.getSpecificSong(randomId());
+	}
+
+	@Benchmark
+	public int addAndDeleteSongWithoutCollision() throws NoIdAvailableException, SongDoesntExistException {
+		// ids behind the catalog are free, every thread uses its own range
+		int id = catalogSize + 1 + (int) (Thread.currentThread().getId() % 1024) * 1024 + ThreadLocalRandom.current().nextInt(1024);
+		Song song = new Song(id, "Benchmark", "Benchmark Artist", "Benchmark Label", 2021);
+		try {
+			songService.addSong(song);
+		} finally {
+			songService.deleteSong(song.getId());
+		}
+		return song.getId();
+	}
+
+	@Benchmark
+	public int addAndDeleteSongWithCollision() throws NoIdAvailableException, SongDoesntExistException {
+		// the id is in use, so addSong has to look for the first unused id
+		Song song = new Song(randomId(), "Benchmark", "Benchmark Artist", "Benchmark Label", 2021);
+		songService.addSong(song);
+		songService.deleteSong(song.getId());
+		return song.getId();
+	}
+
+	@Benchmark
+	public int deleteAndAddSong() throws NoIdAvailableException, SongDoesntExistException {
+		int id = randomId();
+		Song song;
+		try {
+			song = songService.getSpecificSong(id);
+			songService.deleteSong(id);
+		} catch (SongDoesntExistException e) {
+			// another thread deleted it in the meantime
+			return -1;
+		}
+		// songs of the catalog can't be changed, addSong sets the id of a copy if another thread took it meanwhile
+		Song copy = new Song(song.getId(), song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased());
+		songService.addSong(copy);
+		return copy.getId();
+	}
+
+	@Benchmark
+	public long getAllSongsSerialized() throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		List<Song> songs = songService.getAllSongs();
+		objectMapper.writeValue(out, songs);
+		return out.count;
+	}
+
+	@Benchmark
+	public List<Song> searchSongs() {
+		return songService.searchSongs("crazy love", 10);
+	}
+
+	private int randomId() {
+		return 1 + ThreadLocalRandom.current().nextInt(catalogSize);
+	}
+
+	/**
+	 * discards everything written to it, only counting the bytes
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.SongRestApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * time from starting the service until its liveness and readiness probes first answer 200, per catalog load mode
+ * <p>
+ * every run starts the application in a new JVM on the generated catalog and polls both probes and one song. the
+ * <p>
+ * first answer of the song API during the load is printed, too. run it with the benchmark profile:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.main=com.abitmorecode.songrest.Benchmarks.StartupProbeTimer \
+ *     -Dbenchmark.params="catalogSize=1000000;asyncLoad=false,true;runs=3"
+ * </pre>
+ */
+public final class StartupProbeTimer {
+
+	private StartupProbeTimer() {
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> params = parse(System.getProperty("benchmark.params", ""));
+		int catalogSize = Integer.parseInt(params.getOrDefault("catalogSize", "1000000"));
+		String[] modes = params.getOrDefault("asyncLoad", "false,true").split(",");
+		int runs = Integer.parseInt(params.getOrDefault("runs", "3"));
+		int port = Integer.parseInt(params.getOrDefault("port", "18080"));
+		String heap = params.getOrDefault("heap", "4g");
+		Path catalog = SongCatalogGenerator.catalogFile(catalogSize).toAbsolutePath();
+
+		System.out.println("asyncLoad   live ms  ready ms  first API answer during startup");
+		for (String mode : modes) {
+			for (int run = 0; run < runs; run++) {
+				List<String> command = List.of(
+						Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+						"-Xms" + heap, "-Xmx" + heap,
+						"-cp", System.getProperty("java.class.path"),
+						SongRestApplication.class.getName(),
+						"--server.port=" + port,
+						"--songrest.catalog.path=" + catalog,
+						"--songrest.catalog.async-load=" + mode.trim(),
+						"--logging.level.root=WARN");
+				long start = System.nanoTime();
+				Process process = new ProcessBuilder(command).redirectErrorStream(true)
+						.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+				try {
+					System.out.println(String.format("%9s", mode.trim()) + time(port, start));
+				} finally {
+					process.destroy();
+					process.waitFor();
+				}
+			}
+		}
+	}
+
+	private static String time(int port, long start) throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+		String base = "http://localhost:" + port;
+		long live = -1;
+		String firstApiAnswer = null;
+		while (true) {
+			if (live < 0 && status(client, base + "/actuator/health/liveness") == 200) {
+				live = System.nanoTime() - start;
+			}
+			if (live >= 0 && firstApiAnswer == null) {
+				firstApiAnswer = answer(client, base + "/ABitMoreCode/songs/1");
+			}
+			if (live >= 0 && status(client, base + "/actuator/health/readiness") == 200) {
+				long ready = System.nanoTime() - start;
+				return String.format("%10d%10d  %s", live / 1_000_000, ready / 1_000_000, firstApiAnswer);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static int status(HttpClient client, String url) throws InterruptedException {
+		try {
+			return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	private static String answer(HttpClient client, String url) throws InterruptedException {
+		try {
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+			return response.statusCode() + response.headers().firstValue("Retry-After").map(s -> " Retry-After: " + s).orElse("")
+					+ " " + response.body().substring(0, Math.min(60, response.body().length()));
+		} catch (IOException e) {
+			return e.toString();
+		}
+	}
+
+	private static Map<String, String> parse(String params) {
+		Map<String, String> parsed = new HashMap<>();
+		for (String param : params.split(";")) {
+			if (!param.isBlank()) {
+				String[] nameAndValue = param.split("=", 2);
+				parsed.put(nameAndValue[0].trim(), nameAndValue[1].trim());
+			}
+		}
+		return parsed;
+	}
+}
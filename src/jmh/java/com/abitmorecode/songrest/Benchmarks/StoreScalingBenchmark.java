@@ -0,0 +1,89 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.PartitionedSongService;
+import com.abitmorecode.songrest.Services.SongService;
+import com.abitmorecode.songrest.Services.SongsManager;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * mixed read/write throughput of the memory store (one write lock) and the partitioned store (one lock per shard)
+ * <p>
+ * one operation is a single song read or, with writePercent probability, an add/delete pair on ids behind the
+ * <p>
+ * catalog, every thread uses its own ids. run it with -Dbenchmark.threads=1,2,4,8,16,32 to see how the stores scale
+ * <p>
+ * with the number of writing threads, on a machine with at least as many cores
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class StoreScalingBenchmark {
+
+	@Param({"100000"})
+	public int catalogSize;
+
+	@Param({"memory", "partitioned"})
+	public String store;
+
+	@Param({"10", "50"})
+	public int writePercent;
+
+	@Param({"32"})
+	public int shards;
+
+	private SongsManager songsManager;
+	private final AtomicInteger threads = new AtomicInteger();
+
+	/**
+	 * the range of ids the thread writes, behind the catalog
+	 */
+	@State(Scope.Thread)
+	public static class Writer {
+		private int firstId;
+
+		@Setup(Level.Trial)
+		public void setup(StoreScalingBenchmark benchmark) {
+			firstId = benchmark.catalogSize + 1 + benchmark.threads.getAndIncrement() * 1024;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		String catalog = SongCatalogGenerator.catalogFile(catalogSize).toString();
+		if (store.equals("partitioned")) {
+			PartitionedSongService partitioned = new PartitionedSongService(new SimpleMeterRegistry(), shards);
+			partitioned.reset();
+			partitioned.init(catalog);
+			songsManager = partitioned;
+		} else {
+			SongService songService = new SongService(new SimpleMeterRegistry());
+			songService.reset();
+			songService.init(catalog);
+			songsManager = songService;
+		}
+	}
+
+	@Benchmark
+	public int mixed(Writer writer) throws NoIdAvailableException, SongDoesntExistException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextInt(100) < writePercent) {
+			Song song = new Song(writer.firstId + random.nextInt(1024), "Benchmark", "Benchmark Artist", "Benchmark Label", 2021);
+			songsManager.addSong(song);
+			songsManager.deleteSong(song.getId());
+			return song.getId();
+		}
+		return songsManager.getSpecificSong(1 + random.nextInt(catalogSize)).getReleased();
+	}
+}
@@ -0,0 +1,87 @@
+package com.abitmorecode.songrest.Benchmarks;
+
+import com.abitmorecode.songrest.Controller.SongFormat;
+import com.abitmorecode.songrest.Controller.SongMappers;
+import com.abitmorecode.songrest.Models.Song;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * encodes and decodes the whole catalog as one list in every format of {@link SongMappers}, like a page or a
+ * <p>
+ * cached export, one operation is one catalog. payload encodes once and reports payloadBytesPerSong
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class WireFormatBenchmark {
+
+	@Param({"100000"})
+	public int catalogSize;
+
+	@Param({"JSON", "CBOR", "SMILE", "PROTOBUF", "XML"})
+	public SongFormat format;
+
+	private SongMappers songMappers;
+	private List<Song> songs;
+	private byte[] encoded;
+	private ObjectReader reader;
+
+	/**
+	 * JMH sums event counters over the measurement iterations, so payload has only one
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Payload {
+		public double payloadBytesPerSong;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		songMappers = new SongMappers(Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()));
+		songs = SongCatalogGenerator.generate(catalogSize);
+		encoded = songMappers.write(songs, format);
+		reader = format == SongFormat.PROTOBUF
+				? songMappers.get(format).readerFor(new TypeReference<Map<String, List<Song>>>() {}).with(SongMappers.SONGS_SCHEMA)
+				: songMappers.get(format).readerFor(new TypeReference<List<Song>>() {});
+		if (!songs.equals(decode())) {
+			throw new IllegalStateException(format + " doesn't decode to the encoded songs");
+		}
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return songMappers.write(songs, format);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	public byte[] payload(Payload payload) throws IOException {
+		byte[] bytes = songMappers.write(songs, format);
+		payload.payloadBytesPerSong = bytes.length / (double) catalogSize;
+		return bytes;
+	}
+
+	@Benchmark
+	public List<Song> decode() throws IOException {
+		if (format == SongFormat.PROTOBUF) {
+			Map<String, List<Song>> message = reader.readValue(encoded);
+			return message.get("songs");
+		}
+		return reader.readValue(encoded);
+	}
+}
@@ -0,0 +1,49 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Services.SongCatalogLoad;
+import com.abitmorecode.songrest.Services.SongsManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link SongCatalogLoadingFilter} for the reactive mode
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSongCatalogLoadingFilter implements WebFilter {
+
+	@Autowired
+	private SongsManager songService;
+
+	@Value("${songrest.catalog.retry-after-max-seconds:30}")
+	private long maxRetryAfterSeconds;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		SongCatalogLoad load = songService.getCatalogLoad();
+		if (load == null || load.isReady()
+				|| !exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/ABitMoreCode")) {
+			return chain.filter(exchange);
+		}
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+		response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(load.getRetryAfterSeconds(maxRetryAfterSeconds)));
+		response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+		byte[] body = ("catalog is loading, " + (int) (load.getProgress() * 100) + "% done").getBytes(StandardCharsets.UTF_8);
+		DataBuffer buffer = response.bufferFactory().wrap(body);
+		return response.writeWith(Mono.just(buffer));
+	}
+}
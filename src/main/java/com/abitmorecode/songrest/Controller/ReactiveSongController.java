@@ -0,0 +1,220 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.Services.ReactiveSongsManager;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * the song API on WebFlux, used instead of {@link SongController} with spring.main.web-application-type=reactive
+ * <p>
+ * same paths and answers as SongController, but no request waits on a thread. conditional requests, the response
+ * <p>
+ * cache and the batch import are only available in the servlet version
+ */
+@RestController
+@RequestMapping("/ABitMoreCode")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSongController {
+	private static final Logger log = LoggerFactory.getLogger(ReactiveSongController.class);
+
+	private static final byte[] ARRAY_START = {'['};
+	private static final byte[] ARRAY_END = {']'};
+	private static final byte[] SEPARATOR = {','};
+	private static final byte[] NEWLINE = {'\n'};
+
+	@Autowired
+	private ReactiveSongsManager songService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${songrest.songs.page.default-size:100}")
+	private int defaultPageSize;
+
+	@Value("${songrest.songs.page.max-size:1000}")
+	private int maxPageSize;
+
+	@GetMapping("/songs/{id}")
+	public Mono<ResponseEntity<Object>> getSong(@PathVariable int id) {
+		return songService.getSpecificSong(id)
+				.map(song -> new ResponseEntity<Object>(song, HttpStatus.OK))
+				.onErrorResume(SongDoesntExistException.class, e -> {
+					log.error(e.getMessage());
+					return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+				});
+	}
+
+	/**
+	 * streams all songs, or all songs matching the filters, in id order
+	 * <p>
+	 * with Accept: application/x-ndjson one song per line, otherwise as json array. songs are serialized one by one
+	 * <p>
+	 * as the connection takes them, a slow client slows down reading the store instead of filling the memory
+	 *
+	 * @param accept       Accept header
+	 * @param artist       only songs of this artist
+	 * @param label        only songs of this label
+	 * @param releasedFrom only songs released in or after this year
+	 * @param releasedTo   only songs released in or before this year
+	 * @param response     response, for its buffer factory
+	 *
+	 * @return streamed List of songs
+	 */
+	@GetMapping(value = "/songs", params = {"!limit", "!after"})
+	public ResponseEntity<Flux<DataBuffer>> exportSongs(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+														@RequestParam(required = false) String artist,
+														@RequestParam(required = false) String label,
+														@RequestParam(required = false) Integer releasedFrom,
+														@RequestParam(required = false) Integer releasedTo,
+														ServerHttpResponse response) {
+		SongQuery query = new SongQuery(artist, label, releasedFrom, releasedTo);
+		boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream().anyMatch(SongExport.NDJSON::equalsTypeAndSubtype);
+		Flux<Song> songs = query.isEmpty() ? songService.getAllSongs() : songService.findSongs(query);
+		return ResponseEntity.ok()
+				.contentType(ndjson ? SongExport.NDJSON : MediaType.APPLICATION_JSON)
+				.body(encode(songs, ndjson, response.bufferFactory()));
+	}
+
+	/**
+	 * returns one page of songs in id order, used if limit or after is given
+	 * <p>
+	 * if there are more songs, the response contains a Link header with the cursor of the next page
+	 *
+	 * @param limit        maximum number of songs per page, capped at the configured maximum page size
+	 * @param after        cursor of the previous page
+	 * @param artist       only songs of this artist
+	 * @param label        only songs of this label
+	 * @param releasedFrom only songs released in or after this year
+	 * @param releasedTo   only songs released in or before this year
+	 * @param request      request, for the url of the next page
+	 *
+	 * @return List of songs
+	 */
+	@GetMapping("/songs")
+	public Mono<ResponseEntity<Object>> getSongs(@RequestParam(required = false) Integer limit,
+												 @RequestParam(required = false) String after,
+												 @RequestParam(required = false) String artist,
+												 @RequestParam(required = false) String label,
+												 @RequestParam(required = false) Integer releasedFrom,
+												 @RequestParam(required = false) Integer releasedTo,
+												 ServerHttpRequest request) {
+		SongQuery query = new SongQuery(artist, label, releasedFrom, releasedTo);
+		int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+		if (pageSize < 1) {
+			return Mono.just(new ResponseEntity<>("limit has to be at least 1", HttpStatus.BAD_REQUEST));
+		}
+		long afterId;
+		try {
+			afterId = after == null ? Long.MIN_VALUE : SongCursor.decode(after);
+		} catch (IllegalArgumentException e) {
+			log.error(e.getMessage());
+			return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+		}
+
+		// fetch one more song to know if there is a next page
+		Flux<Song> songs = query.isEmpty()
+				? songService.getSongsAfter(afterId, pageSize + 1)
+				: songService.findSongs(query).skipWhile(s -> s.getId() <= afterId).take(pageSize + 1);
+		return songs.collectList().map(page -> {
+			HttpHeaders headers = new HttpHeaders();
+			if (page.size() > pageSize) {
+				page = page.subList(0, pageSize);
+				String next = UriComponentsBuilder.fromHttpRequest(request)
+						.replaceQueryParam("limit", pageSize)
+						.replaceQueryParam("after", SongCursor.encode(page.get(pageSize - 1).getId()))
+						.toUriString();
+				headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+			}
+			return new ResponseEntity<>(page, headers, HttpStatus.OK);
+		});
+	}
+
+	/**
+	 * full text search over title and artist, best match first
+	 *
+	 * @param q     search text
+	 * @param limit maximum number of songs, capped at the configured maximum page size
+	 *
+	 * @return List of songs
+	 */
+	@GetMapping("/songs/search")
+	public Mono<ResponseEntity<Object>> searchSongs(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+		int resultSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+		if (resultSize < 1) {
+			return Mono.just(new ResponseEntity<>("limit has to be at least 1", HttpStatus.BAD_REQUEST));
+		}
+		return songService.searchSongs(q, resultSize).collectList()
+				.map(songs -> new ResponseEntity<>(songs, HttpStatus.OK));
+	}
+
+	@PostMapping("/songs")
+	public Mono<ResponseEntity<Object>> postSong(@RequestBody Song song, ServerHttpRequest request) {
+		return songService.addSong(song).map(added -> {
+			String location = UriComponentsBuilder.fromHttpRequest(request)
+					.path("/{id}")
+					.buildAndExpand(added.getId())
+					.toUriString();
+			return ResponseEntity.status(HttpStatus.CREATED).header(HttpHeaders.LOCATION, location).build();
+		});
+	}
+
+	@DeleteMapping("/songs/{id}")
+	public Mono<ResponseEntity<Object>> deleteSong(@PathVariable int id) {
+		return songService.deleteSong(id)
+				.thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT))
+				.onErrorResume(SongDoesntExistException.class, e -> {
+					log.error(e.getMessage());
+					return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+				});
+	}
+
+	/**
+	 * serializes songs one buffer per song, in the same format as {@link SongExport}
+	 * <p>
+	 * the json encoder of WebFlux would collect a Flux into a List before writing a json array
+	 */
+	private Flux<DataBuffer> encode(Flux<Song> songs, boolean ndjson, DataBufferFactory buffers) {
+		Flux<DataBuffer> encoded = songs.index().map(indexed -> {
+			byte[] json;
+			try {
+				json = objectMapper.writeValueAsBytes(indexed.getT2());
+			} catch (JsonProcessingException e) {
+				throw Exceptions.propagate(e);
+			}
+			DataBuffer buffer = buffers.allocateBuffer(json.length + 1);
+			if (!ndjson && indexed.getT1() > 0) {
+				buffer.write(SEPARATOR);
+			}
+			buffer.write(json);
+			if (ndjson) {
+				buffer.write(NEWLINE);
+			}
+			return buffer;
+		});
+		if (ndjson) {
+			return encoded;
+		}
+		return Flux.concat(Mono.fromSupplier(() -> buffers.wrap(ARRAY_START)), encoded, Mono.fromSupplier(() -> buffers.wrap(ARRAY_END)));
+	}
+}
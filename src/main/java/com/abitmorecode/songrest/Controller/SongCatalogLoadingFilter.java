@@ -0,0 +1,55 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Services.SongCatalogLoad;
+import com.abitmorecode.songrest.Services.SongsManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * answers requests of the song API with 503 and Retry-After while the catalog is loading in the background
+ * <p>
+ * the Retry-After is the estimated remaining load time, so clients come back about when the catalog is complete
+ * <p>
+ * instead of getting partial answers. actuator endpoints aren't affected
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SongCatalogLoadingFilter extends OncePerRequestFilter {
+
+	@Autowired
+	private SongsManager songService;
+
+	@Value("${songrest.catalog.retry-after-max-seconds:30}")
+	private long maxRetryAfterSeconds;
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith(request.getContextPath() + "/ABitMoreCode");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		SongCatalogLoad load = songService.getCatalogLoad();
+		if (load == null || load.isReady()) {
+			chain.doFilter(request, response);
+			return;
+		}
+		response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(load.getRetryAfterSeconds(maxRetryAfterSeconds)));
+		response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+		response.getWriter().write("catalog is loading, " + (int) (load.getProgress() * 100) + "% done");
+	}
+}
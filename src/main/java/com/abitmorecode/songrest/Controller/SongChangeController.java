@@ -0,0 +1,457 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.SongChange;
+import com.abitmorecode.songrest.Models.SongChanges;
+import com.abitmorecode.songrest.Services.SongChangeLog;
+import com.abitmorecode.songrest.Services.SongsManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * change feed of the catalog: delta sync by polling and a Server-Sent Events stream
+ * <p>
+ * writers only put a change into the bounded buffer of every subscriber, a small pool of sender threads writes the
+ * <p>
+ * buffers into the responses without blocking, a subscriber whose connection takes nothing for the send timeout is
+ * <p>
+ * disconnected. a subscriber whose buffer is full gets its buffered changes, a resync event with the last sent
+ * <p>
+ * sequence and is disconnected. reconnecting with Last-Event-ID catches up from the change log, so slow
+ * <p>
+ * subscribers lose nothing as long as the log still has their changes, and never slow down writers. streams don't
+ * <p>
+ * time out by default, an idle stream gets a comment line as heartbeat, so proxies keep it open
+ */
+@RestController
+@RequestMapping("/ABitMoreCode")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SongChangeController {
+	private static final Logger log = LoggerFactory.getLogger(SongChangeController.class);
+
+	private static final String TIMER = "songrest.controller.requests";
+
+	/**
+	 * an SSE comment line, ignored by EventSource
+	 */
+	private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+	@Autowired
+	private SongsManager songService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${songrest.songs.page.max-size:1000}")
+	private int maxPageSize;
+
+	@Value("${songrest.changes.subscriber-buffer:1000}")
+	private int subscriberBuffer;
+
+	@Value("${songrest.changes.stream-timeout-ms:0}")
+	private long streamTimeoutMillis;
+
+	@Value("${songrest.changes.heartbeat-ms:15000}")
+	private long heartbeatMillis;
+
+	private final ScheduledExecutorService senders;
+	private final long sendTimeoutMillis;
+
+	/**
+	 * SongChangeController constructor
+	 *
+	 * @param senderThreads     threads writing the change events of all subscribers
+	 * @param sendTimeoutMillis time a subscriber may take no events before it is disconnected
+	 */
+	public SongChangeController(@Value("${songrest.changes.sender-threads:4}") int senderThreads,
+								@Value("${songrest.changes.send-timeout-ms:10000}") long sendTimeoutMillis) {
+		this.sendTimeoutMillis = sendTimeoutMillis;
+		AtomicInteger threads = new AtomicInteger();
+		senders = Executors.newScheduledThreadPool(senderThreads, r -> {
+			Thread thread = new Thread(r, "song-changes-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void close() {
+		senders.shutdownNow();
+	}
+
+	/**
+	 * returns the changes after a sequence, or tells the client to resync if they are no longer kept
+	 * <p>
+	 * without since nothing is returned, next is where a client starts after loading the catalog
+	 *
+	 * @param since sequence the client has seen last
+	 * @param epoch epoch of since, a since of another run of the service means resync
+	 * @param limit maximum number of changes, the max page size if not given
+	 *
+	 * @return SongChanges, 501 if the store keeps no change log
+	 */
+	@GetMapping("/songs/changes")
+	@Timed(value = TIMER, extraTags = {"mapping", "getSongChanges"}, histogram = true)
+	public ResponseEntity<Object> getSongChanges(@RequestParam(required = false) Long since,
+												 @RequestParam(required = false) String epoch,
+												 @RequestParam(required = false) Integer limit) {
+		SongChangeLog changeLog = songService.getChangeLog();
+		if (changeLog == null) {
+			return new ResponseEntity<>("this song store keeps no change log", HttpStatus.NOT_IMPLEMENTED);
+		}
+		if (limit != null && limit < 1) {
+			return new ResponseEntity<>("limit has to be positive", HttpStatus.BAD_REQUEST);
+		}
+		int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+		long from = since == null ? changeLog.latest() : since;
+		return new ResponseEntity<>(changeLog.since(epoch, from, pageSize), HttpStatus.OK);
+	}
+
+	/**
+	 * streams the changes as Server-Sent Events named change, with the sequence as event id
+	 * <p>
+	 * starts after since or the Last-Event-ID header of a reconnecting EventSource, or with the next change. a resync
+	 * <p>
+	 * event (SongChanges without changes) means the client has to load the catalog and continue after its next
+	 *
+	 * @param since       sequence the client has seen last
+	 * @param lastEventId sequence of the last received event, sent by EventSource on reconnect
+	 * @param epoch       epoch of since, a since of another run of the service means resync
+	 * @param request     HttpServletRequest, the stream continues asynchronously
+	 * @param response    HttpServletResponse the events are written to, 501 without body if the store keeps no change log
+	 *
+	 * @throws IOException if the response can't be opened
+	 */
+	@GetMapping(value = "/songs/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public void streamSongChanges(@RequestParam(required = false) Long since,
+								  @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+								  @RequestParam(required = false) String epoch,
+								  HttpServletRequest request,
+								  HttpServletResponse response) throws IOException {
+		SongChangeLog changeLog = songService.getChangeLog();
+		if (changeLog == null) {
+			response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
+			return;
+		}
+		Long from = lastEventId != null ? lastEventId : since;
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE + ";charset=UTF-8");
+		AsyncContext async = request.startAsync();
+		// otherwise the container's async timeout (30 s in Tomcat) ends every stream, 0 means never
+		async.setTimeout(streamTimeoutMillis);
+		Subscriber subscriber = new Subscriber(changeLog, async, response.getOutputStream());
+		subscriber.start(epoch, from);
+	}
+
+	/**
+	 * one connected stream, its buffer is filled by the writers and drained by one sender thread at a time
+	 * <p>
+	 * writes don't block: the sender stops when the response can't take more and goes on when the container calls
+	 * <p>
+	 * onWritePossible. a subscriber that isn't writable again within the send timeout is disconnected
+	 */
+	private final class Subscriber implements Consumer<SongChange>, WriteListener, AsyncListener {
+
+		private final SongChangeLog changeLog;
+		private final AsyncContext async;
+		private final ServletOutputStream out;
+		private final ArrayBlockingQueue<SongChange> buffer = new ArrayBlockingQueue<>(subscriberBuffer);
+		private final AtomicBoolean draining = new AtomicBoolean();
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		/**
+		 * counts the times the response became writable again, a stall timeout only fires if it didn't change
+		 */
+		private final AtomicLong resumes = new AtomicLong();
+
+		/**
+		 * changes from the log the subscriber missed, sent before the buffer
+		 */
+		private final Deque<Object> backlog = new ArrayDeque<>();
+		private volatile boolean started;
+		private volatile boolean overflowed;
+		private volatile boolean blocked;
+
+		/**
+		 * set by the heartbeat timer if nothing was sent since its last run, cleared by everything sent
+		 */
+		private volatile boolean heartbeatDue;
+		private volatile boolean sentSinceHeartbeat;
+		private volatile ScheduledFuture<?> heartbeats;
+
+		/**
+		 * false if the container has no non-blocking writes (e.g. a mock response), the sender writes directly then
+		 */
+		private boolean nonBlocking;
+
+		/**
+		 * sequence of the last sent change, only used by the draining thread
+		 */
+		private long lastSent;
+
+		/**
+		 * the last event after an overflow, only used by the draining thread
+		 */
+		private SongChanges overflow;
+
+		Subscriber(SongChangeLog changeLog, AsyncContext async, ServletOutputStream out) {
+			this.changeLog = changeLog;
+			this.async = async;
+			this.out = out;
+			async.addListener(this);
+		}
+
+		void start(String epoch, Long since) {
+			// without since, changes between reading latest and subscribing come back as backlog
+			long from = since == null ? changeLog.latest() : since;
+			SongChanges missed = changeLog.subscribe(since == null ? null : epoch, from, this);
+			if (missed.isResync()) {
+				backlog.add(missed);
+			} else {
+				backlog.addAll(missed.getChanges());
+			}
+			lastSent = from;
+			if (heartbeatMillis > 0) {
+				heartbeats = senders.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+				if (closed.get()) {
+					heartbeats.cancel(false);
+				}
+			}
+			try {
+				// the container calls onWritePossible once the listener is set
+				out.setWriteListener(this);
+				nonBlocking = true;
+				started = true;
+			} catch (UnsupportedOperationException e) {
+				started = true;
+				schedule();
+			}
+		}
+
+		/**
+		 * called by the writers, never blocks
+		 */
+		@Override
+		public void accept(SongChange change) {
+			if (closed.get() || overflowed) {
+				return;
+			}
+			if (!buffer.offer(change)) {
+				overflowed = true;
+				changeLog.unsubscribe(this);
+			}
+			if (started) {
+				schedule();
+			}
+		}
+
+		/**
+		 * called by the heartbeat timer, the sender writes a heartbeat if no event was sent since its last run
+		 */
+		private void heartbeat() {
+			if (closed.get()) {
+				return;
+			}
+			if (sentSinceHeartbeat) {
+				sentSinceHeartbeat = false;
+				return;
+			}
+			heartbeatDue = true;
+			if (started) {
+				schedule();
+			}
+		}
+
+		@Override
+		public void onWritePossible() {
+			blocked = false;
+			resumes.incrementAndGet();
+			schedule();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			close(true);
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			close(false);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			close(true);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			close(true);
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// not restarted
+		}
+
+		private void schedule() {
+			if (!closed.get() && !blocked && draining.compareAndSet(false, true)) {
+				senders.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			try {
+				boolean finished = false;
+				while (!closed.get() && writable()) {
+					Object next = nextEvent();
+					if (next == null) {
+						out.flush();
+						break;
+					}
+					send(next);
+					if (next == overflow) {
+						finished = true;
+						break;
+					}
+				}
+				if (finished) {
+					out.flush();
+					close(true);
+				} else if (blocked) {
+					stalled();
+				}
+			} catch (IOException | IllegalStateException e) {
+				// the client is gone
+				close(true);
+			} finally {
+				draining.set(false);
+			}
+			if (!closed.get() && !blocked && hasWork()) {
+				schedule();
+			}
+		}
+
+		/**
+		 * @return true if the response takes more, otherwise the container calls onWritePossible later
+		 */
+		private boolean writable() {
+			if (!nonBlocking) {
+				return true;
+			}
+			// set before asking, so an onWritePossible right after the answer isn't lost
+			blocked = true;
+			if (out.isReady()) {
+				blocked = false;
+				return true;
+			}
+			return false;
+		}
+
+		private Object nextEvent() {
+			Object next = backlog.poll();
+			if (next == null) {
+				next = buffer.poll();
+			}
+			if (next == null && overflowed) {
+				log.warn("change feed subscriber fell more than " + subscriberBuffer + " changes behind, disconnected after " + lastSent);
+				overflow = new SongChanges(changeLog.getEpoch(), lastSent, true, List.of());
+				next = overflow;
+			}
+			if (next == null && heartbeatDue) {
+				next = HEARTBEAT;
+			}
+			return next;
+		}
+
+		private boolean hasWork() {
+			return overflowed || heartbeatDue || !backlog.isEmpty() || !buffer.isEmpty();
+		}
+
+		/**
+		 * disconnects the subscriber if the response doesn't become writable within the send timeout
+		 */
+		private void stalled() {
+			long stalledAt = resumes.get();
+			senders.schedule(() -> {
+				if (!closed.get() && resumes.get() == stalledAt) {
+					log.warn("change feed subscriber didn't take changes for " + sendTimeoutMillis + " ms, disconnected after " + lastSent);
+					close(true);
+				}
+			}, sendTimeoutMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private void send(Object event) throws IOException {
+			heartbeatDue = false;
+			if (event == HEARTBEAT) {
+				out.write(HEARTBEAT);
+				return;
+			}
+			sentSinceHeartbeat = true;
+			long id;
+			String name;
+			if (event instanceof SongChange) {
+				id = ((SongChange) event).getSequence();
+				name = "change";
+			} else {
+				id = ((SongChanges) event).getNext();
+				name = "resync";
+			}
+			String data = objectMapper.writeValueAsString(event);
+			out.write(("id:" + id + "\nevent:" + name + "\ndata:" + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+			lastSent = id;
+		}
+
+		/**
+		 * @param complete true to end the response, false if the container already did
+		 */
+		private void close(boolean complete) {
+			if (closed.compareAndSet(false, true)) {
+				changeLog.unsubscribe(this);
+				ScheduledFuture<?> timer = heartbeats;
+				if (timer != null) {
+					timer.cancel(false);
+				}
+			}
+			// also after a failed write closed it, the container's error handling only ends here without an error page
+			if (complete) {
+				try {
+					async.complete();
+				} catch (IllegalStateException e) {
+					// already completed by the container
+				}
+			}
+		}
+	}
+}
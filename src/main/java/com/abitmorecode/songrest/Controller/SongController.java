@@ -1,44 +1,377 @@
 package com.abitmorecode.songrest.Controller;
 
+import com.abitmorecode.songrest.Models.BatchImportResult;
 import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.Services.SongBatchImporter;
+import com.abitmorecode.songrest.Services.SongVersions;
 import com.abitmorecode.songrest.Services.SongsManager;
 import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
 import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/ABitMoreCode")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SongController {
 	private static final Logger log = LoggerFactory.getLogger(SongController.class);
 
+	private static final String TIMER = "songrest.controller.requests";
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	/**
+	 * formats of songs and pages, json is the default
+	 */
+	private static final SongFormat[] FORMATS = {SongFormat.JSON, SongFormat.XML, SongFormat.CBOR, SongFormat.SMILE, SongFormat.PROTOBUF};
+
+	/**
+	 * formats of exports, NDJSON only makes sense for lists
+	 */
+	private static final SongFormat[] EXPORT_FORMATS = {SongFormat.JSON, SongFormat.NDJSON, SongFormat.XML, SongFormat.CBOR, SongFormat.SMILE, SongFormat.PROTOBUF};
+
 	@Autowired
 	private SongsManager songService;
 
+	@Value("${songrest.songs.page.default-size:100}")
+	private int defaultPageSize;
+
+	@Value("${songrest.songs.page.max-size:1000}")
+	private int maxPageSize;
+
+	@Value("${songrest.songs.export.flush-every:1000}")
+	private int exportFlushEvery;
+
+	@Autowired
+	private SongMappers songMappers;
+
+	@Value("${songrest.songs.batch.chunk-size:1000}")
+	private int batchChunkSize;
+
+	@Value("${songrest.songs.batch.max-reported:1000}")
+	private int batchMaxReported;
+
+	@Autowired
+	private SongResponseCache responseCache;
+
+
+	/**
+	 * returns one song in the accepted format, 304 if the If-None-Match or If-Modified-Since header shows the song didn't change
+	 * <p>
+	 * the serialized song is cached until the song changes
+	 *
+	 * @param id      id of Song
+	 * @param request request with the conditional headers
+	 *
+	 * @return Song
+	 */
 	@GetMapping("/songs/{id}")
-	public ResponseEntity<Object> getSong(@PathVariable int id) {
+	@Timed(value = TIMER, extraTags = {"mapping", "getSong"}, histogram = true)
+	public ResponseEntity<Object> getSong(@PathVariable int id, WebRequest request) throws JsonProcessingException {
+		SongVersions versions = songService.getVersions();
+		SongVersions.Version version = versions == null ? null : versions.song(id);
+		SongFormat format = SongFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT), FORMATS);
+		if (version != null && notModified(request, version.getTag() + format.getTagSuffix(), false, version.getLastModified())) {
+			return null;
+		}
+		// single songs are too small to gain anything from gzip
+		return cached("song:" + id + ";" + format, version, format, false, () -> {
+			try {
+				return new ResponseEntity<>(songService.getSpecificSong(id), HttpStatus.OK);
+			} catch (SongDoesntExistException e) {
+				log.error(e.getMessage());
+				return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+			}
+		});
+	}
+
+	/**
+	 * streams all songs, or all songs matching the filters, in id order directly into the response
+	 * <p>
+	 * with Accept: application/x-ndjson one song per line, application/xml as xml document, cbor, smile or protobuf,
+	 * <p>
+	 * otherwise as json array. 304 if the catalog didn't change.
+	 * <p>
+	 * exports small enough for the response cache are cached until the next write, also gzip compressed
+	 *
+	 * @param request      request with the conditional headers
+	 * @param accept       Accept header
+	 * @param artist       only songs of this artist
+	 * @param label        only songs of this label
+	 * @param releasedFrom only songs released in or after this year
+	 * @param releasedTo   only songs released in or before this year
+	 *
+	 * @return streamed List of songs
+	 */
+	@GetMapping(value = "/songs", params = {"!limit", "!after"})
+	@Timed(value = TIMER, extraTags = {"mapping", "exportSongs"}, histogram = true)
+	public ResponseEntity<StreamingResponseBody> exportSongs(WebRequest request,
+															 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+															 @RequestParam(required = false) String artist,
+															 @RequestParam(required = false) String label,
+															 @RequestParam(required = false) Integer releasedFrom,
+															 @RequestParam(required = false) Integer releasedTo) {
+		SongFormat format = SongFormat.negotiate(accept, EXPORT_FORMATS);
+		MediaType contentType = format.getMediaType();
+		SongVersions versions = songService.getVersions();
+		SongVersions.Version version = versions == null ? null : versions.catalog();
+		String tag = version == null ? null : version.getTag() + format.getTagSuffix();
+		boolean gzip = version != null && acceptsGzip(request);
+		if (version != null && notModified(request, tag, gzip, version.getLastModified())) {
+			return null;
+		}
+
+		String key = "export:" + requestKey(request) + ";" + contentType;
+		SongResponseCache.CachedResponse cached = tag == null ? null : responseCache.get(key, tag);
+		if (cached != null) {
+			if (gzip) {
+				cached = responseCache.gzipped(key, cached);
+			}
+			byte[] body = cached.getBody();
+			return ResponseEntity.ok()
+					.headers(cached.getHeaders())
+					.header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+					.body(out -> out.write(body));
+		}
+
+		SongQuery query = new SongQuery(artist, label, releasedFrom, releasedTo);
+		Stream<Song> songs = query.isEmpty() ? songService.streamAllSongs() : songService.findSongs(query).stream();
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(contentType);
+		SongExport export = tag == null
+				? new SongExport(songs, songMappers.get(format), format, exportFlushEvery)
+				: new SongExport(songs, songMappers.get(format), format, exportFlushEvery, gzip, responseCache.maxEntrySize(), body -> responseCache.put(key, tag, body, headers));
+		return ResponseEntity.ok()
+				.headers(headers)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+				.headers(gzip ? SongResponseCache.GZIP : HttpHeaders.EMPTY)
+				.body(export);
+	}
+
+	/**
+	 * returns one page of songs in id order in the accepted format, used if limit or after is given
+	 * <p>
+	 * if there are more songs, the response contains a Link header with the cursor of the next page.
+	 * <p>
+	 * 304 if the catalog didn't change. pages are cached until the next write, also gzip compressed
+	 *
+	 * @param request      request with the conditional headers
+	 * @param limit        maximum number of songs per page, capped at the configured maximum page size
+	 * @param after        cursor of the previous page
+	 * @param artist       only songs of this artist
+	 * @param label        only songs of this label
+	 * @param releasedFrom only songs released in or after this year
+	 * @param releasedTo   only songs released in or before this year
+	 *
+	 * @return List of songs
+	 */
+	@GetMapping("/songs")
+	@Timed(value = TIMER, extraTags = {"mapping", "getSongs"}, histogram = true)
+	public ResponseEntity<Object> getSongs(WebRequest request,
+										   @RequestParam(required = false) Integer limit,
+										   @RequestParam(required = false) String after,
+										   @RequestParam(required = false) String artist,
+										   @RequestParam(required = false) String label,
+										   @RequestParam(required = false) Integer releasedFrom,
+										   @RequestParam(required = false) Integer releasedTo) throws JsonProcessingException {
+		SongQuery query = new SongQuery(artist, label, releasedFrom, releasedTo);
+		int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+		if (pageSize < 1) {
+			return new ResponseEntity<>("limit has to be at least 1", HttpStatus.BAD_REQUEST);
+		}
+		long afterId;
 		try {
-			return new ResponseEntity<>(songService.getSpecificSong(id), HttpStatus.OK);
-		} catch (SongDoesntExistException e) {
+			afterId = after == null ? Long.MIN_VALUE : SongCursor.decode(after);
+		} catch (IllegalArgumentException e) {
 			log.error(e.getMessage());
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
 		}
+		SongVersions versions = songService.getVersions();
+		SongVersions.Version version = versions == null ? null : versions.catalog();
+		SongFormat format = SongFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT), FORMATS);
+		boolean gzip = version != null && acceptsGzip(request);
+		if (version != null && notModified(request, version.getTag() + format.getTagSuffix(), gzip, version.getLastModified())) {
+			return null;
+		}
+
+		// the url is the key, as the Link header contains it
+		String key = "page:" + requestKey(request) + ";" + format;
+		return cached(key, version, format, gzip, () -> {
+			// fetch one more song to know if there is a next page
+			List<Song> page = query.isEmpty()
+					? songService.getSongsAfter(afterId, pageSize + 1)
+					: pageOf(songService.findSongs(query), afterId, pageSize + 1);
+			HttpHeaders headers = new HttpHeaders();
+			if (page.size() > pageSize) {
+				page = page.subList(0, pageSize);
+				String next = ServletUriComponentsBuilder
+						.fromCurrentRequest()
+						.replaceQueryParam("limit", pageSize)
+						.replaceQueryParam("after", SongCursor.encode(page.get(pageSize - 1).getId()))
+						.toUriString();
+				headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+			}
+			return new ResponseEntity<>(page, headers, HttpStatus.OK);
+		});
 	}
 
-	@GetMapping("/songs")
-	public ResponseEntity<List<Song>> getSongs() {
-		return new ResponseEntity<>(songService.getAllSongs(), HttpStatus.OK);
+	/**
+	 * full text search over title and artist, best match first
+	 *
+	 * @param request request with the Accept header
+	 * @param q       search text
+	 * @param limit   maximum number of songs, capped at the configured maximum page size
+	 *
+	 * @return List of songs
+	 */
+	@GetMapping("/songs/search")
+	@Timed(value = TIMER, extraTags = {"mapping", "searchSongs"}, histogram = true)
+	public ResponseEntity<Object> searchSongs(WebRequest request, @RequestParam String q, @RequestParam(required = false) Integer limit) throws JsonProcessingException {
+		int resultSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+		if (resultSize < 1) {
+			return new ResponseEntity<>("limit has to be at least 1", HttpStatus.BAD_REQUEST);
+		}
+		SongFormat format = SongFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT), FORMATS);
+		return serialized(new ResponseEntity<>(songService.searchSongs(q, resultSize), HttpStatus.OK), format);
+	}
+
+	/**
+	 * sets ETag and Last-Modified of a version and checks the conditional headers against them
+	 * <p>
+	 * the version has to be taken before reading the data, so it is never newer than the response body
+	 *
+	 * @param request      request with the conditional headers
+	 * @param tag          tag of the current version of the requested resource
+	 * @param gzip         the response will be gzip compressed, the same content in another encoding gets a weak tag
+	 * @param lastModified time of the current version
+	 *
+	 * @return boolean, true if the response status got set to 304 and nothing has to be written
+	 */
+	private static boolean notModified(WebRequest request, String tag, boolean gzip, long lastModified) {
+		return request.checkNotModified((gzip ? "W/\"" : "\"") + tag + "\"", lastModified);
+	}
+
+	/**
+	 * answers from the response cache, or builds the response, serializes its body and caches it
+	 * <p>
+	 * only 200 responses are cached. the bytes are handed to the ByteArrayHttpMessageConverter, which writes them
+	 * <p>
+	 * to the response as they are
+	 *
+	 * @param key      cache key of the response, including the format
+	 * @param version  version the response is built for, null if the store has no versions, then nothing is cached
+	 * @param format   format of the body
+	 * @param gzip     gzip compressed
+	 * @param response builds the response
+	 *
+	 * @return response with the serialized body
+	 *
+	 * @throws JsonProcessingException thrown, if the body can't be serialized
+	 */
+	private ResponseEntity<Object> cached(String key, SongVersions.Version version, SongFormat format, boolean gzip, Supplier<ResponseEntity<Object>> response) throws JsonProcessingException {
+		if (version == null) {
+			return serialized(response.get(), format);
+		}
+		SongResponseCache.CachedResponse cached = responseCache.get(key, version.getTag());
+		if (cached == null) {
+			ResponseEntity<Object> built = serialized(response.get(), format);
+			if (built.getStatusCode() != HttpStatus.OK) {
+				return built;
+			}
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(built.getHeaders());
+			headers.remove(HttpHeaders.VARY);
+			cached = responseCache.put(key, version.getTag(), (byte[]) built.getBody(), headers);
+		}
+		if (gzip) {
+			cached = responseCache.gzipped(key, cached);
+		}
+		return ResponseEntity.ok()
+				.headers(cached.getHeaders())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+				.body(cached.getBody());
+	}
+
+	/**
+	 * serializes the body of a 200 response with {@link SongMappers}, other responses are returned as they are
+	 *
+	 * @param response response with a Song or a List of songs as body
+	 * @param format   format of the body
+	 *
+	 * @return response with the serialized body and its Content-Type
+	 *
+	 * @throws JsonProcessingException thrown, if the body can't be serialized
+	 */
+	private ResponseEntity<Object> serialized(ResponseEntity<Object> response, SongFormat format) throws JsonProcessingException {
+		if (response.getStatusCode() != HttpStatus.OK) {
+			return response;
+		}
+		byte[] bytes = songMappers.write(response.getBody(), format);
+		return ResponseEntity.ok()
+				.headers(response.getHeaders())
+				.contentType(format.getMediaType())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.body(bytes);
+	}
+
+	/**
+	 * url of the request with its parameters in a fixed order, so the same request always gets the same key
+	 */
+	private static String requestKey(WebRequest request) {
+		StringBuilder key = new StringBuilder(ServletUriComponentsBuilder.fromCurrentRequestUri().toUriString());
+		new TreeMap<>(request.getParameterMap()).forEach((name, values) -> key.append('&').append(name).append('=').append(String.join(",", values)));
+		return key.toString();
+	}
+
+	private static boolean acceptsGzip(WebRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+	}
+
+	/**
+	 * cuts a page out of a List of songs sorted by id
+	 */
+	private static List<Song> pageOf(List<Song> songs, long afterId, int limit) {
+		int low = 0;
+		int high = songs.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (songs.get(mid).getId() <= afterId) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return songs.subList(low, Math.min(songs.size(), low + limit));
 	}
 
 	@PostMapping("/songs")
+	@Timed(value = TIMER, extraTags = {"mapping", "postSong"}, histogram = true)
 	public ResponseEntity<Object> postSong(@RequestBody Song song) throws NoIdAvailableException{
 		songService.addSong(song);
 		String location = ServletUriComponentsBuilder
@@ -49,9 +382,51 @@ public class SongController {
 		return ResponseEntity.status(HttpStatus.CREATED).header(HttpHeaders.LOCATION, location).build();
 	}
 
+	/**
+	 * bulk import of songs from NDJSON (application/x-ndjson) or a json array, streamed from the request body
+	 * <p>
+	 * songs are added in chunks, every chunk is one atomic write. invalid records are rejected and reported,
+	 * <p>
+	 * like in postSong songs with a used id get a new one
+	 *
+	 * @param request request with the songs as body
+	 *
+	 * @return summary of the import, 400 if the import stopped early (songs of earlier chunks stay added)
+	 *
+	 * @throws IOException thrown, if the body can't be read
+	 */
+	@PostMapping(value = "/songs/batch", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+	@Timed(value = TIMER, extraTags = {"mapping", "postSongs"}, histogram = true)
+	public ResponseEntity<Object> postSongs(HttpServletRequest request) throws IOException {
+		SongBatchImporter importer = new SongBatchImporter(songService, batchChunkSize, batchMaxReported);
+		MediaType contentType = MediaType.parseMediaType(request.getContentType());
+		Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+		BatchImportResult result;
+		try (Reader body = new InputStreamReader(request.getInputStream(), charset)) {
+			result = MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+					? importer.importJsonArray(body)
+					: importer.importNdjson(body);
+		}
+		if (result.getError() != null) {
+			log.error("batch import stopped after " + result.getAdded() + " songs: " + result.getError());
+			return new ResponseEntity<>(result, HttpStatus.BAD_REQUEST);
+		}
+		log.info("batch import added " + result.getAdded() + " songs, rejected " + result.getRejected());
+		return new ResponseEntity<>(result, HttpStatus.OK);
+	}
+
+	/**
+	 * deletes a song, also from all song lists containing it
+	 *
+	 * @param id id of Song
+	 *
+	 * @return 204, 400 if the song doesn't exist
+	 */
 	@DeleteMapping("/songs/{id}")
+	@Timed(value = TIMER, extraTags = {"mapping", "deleteSong"}, histogram = true)
 	public ResponseEntity<Object> deleteSong(@PathVariable int id) {
 		try {
+			// the store tells the song lists about the removal
 			songService.deleteSong(id);
 			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 		} catch (SongDoesntExistException e) {
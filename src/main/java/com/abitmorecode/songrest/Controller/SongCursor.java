@@ -0,0 +1,54 @@
+package com.abitmorecode.songrest.Controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * opaque pagination cursor for the song list
+ * <p>
+ * a cursor points behind the last song of a page, so pages stay stable while songs are added or removed
+ */
+public final class SongCursor {
+
+	private static final String PREFIX = "song:";
+
+	private SongCursor() {
+	}
+
+	/**
+	 * creates a cursor pointing behind the song with the given id
+	 *
+	 * @param lastId id of the last song of a page
+	 *
+	 * @return cursor String
+	 */
+	public static String encode(int lastId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * reads the id out of a cursor
+	 *
+	 * @param cursor cursor String
+	 *
+	 * @return id of the last song of the previous page
+	 *
+	 * @throws IllegalArgumentException thrown, if the cursor wasn't created by {@link #encode(int)}
+	 */
+	public static int decode(String cursor) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+		}
+		if (!decoded.startsWith(PREFIX)) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor);
+		}
+		try {
+			return Integer.parseInt(decoded.substring(PREFIX.length()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * writes songs directly to the response in any {@link SongFormat}, without building the whole response in memory
+ * <p>
+ * the output is flushed every flushEvery songs, so clients get data early without a flush per song. if the client
+ * <p>
+ * disconnects, the export stops and the song stream gets closed. optionally a copy of small exports is handed over
+ * <p>
+ * after the export completed, e.g. to cache it
+ */
+public class SongExport implements StreamingResponseBody {
+
+	/**
+	 * newline delimited json, one song per line
+	 */
+	public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	/**
+	 * root and item element of xml song lists, the same as {@link SongController} uses for pages
+	 */
+	public static final QName XML_ROOT = new QName("songs");
+	public static final String XML_ITEM = "item";
+
+	private static final Logger log = LoggerFactory.getLogger(SongExport.class);
+
+	private final Stream<Song> songs;
+	private final ObjectMapper objectMapper;
+	private final SongFormat format;
+	private final int flushEvery;
+	private final boolean gzip;
+	private final long copyLimit;
+	private final Consumer<byte[]> completed;
+	private int written;
+
+	/**
+	 * SongExport constructor
+	 *
+	 * @param songs        songs to export, closed after the export
+	 * @param objectMapper mapper of the format, see {@link SongMappers}
+	 * @param format       representation of the songs
+	 * @param flushEvery   number of songs between two flushes
+	 */
+	public SongExport(Stream<Song> songs, ObjectMapper objectMapper, SongFormat format, int flushEvery) {
+		this(songs, objectMapper, format, flushEvery, false, 0, null);
+	}
+
+	/**
+	 * SongExport constructor, copies the uncompressed bytes while the export is not bigger than copyLimit
+	 *
+	 * @param songs        songs to export, closed after the export
+	 * @param objectMapper mapper of the format, see {@link SongMappers}
+	 * @param format       representation of the songs
+	 * @param flushEvery   number of songs between two flushes
+	 * @param gzip         gzip compressed, the Content-Encoding header has to be set by the caller
+	 * @param copyLimit    maximum size of the copy, bigger exports are only streamed
+	 * @param completed    gets the copy of a completed export, may be null
+	 */
+	public SongExport(Stream<Song> songs, ObjectMapper objectMapper, SongFormat format, int flushEvery, boolean gzip, long copyLimit, Consumer<byte[]> completed) {
+		this.songs = songs;
+		this.objectMapper = objectMapper;
+		this.format = format;
+		this.flushEvery = Math.max(1, flushEvery);
+		this.gzip = gzip;
+		this.copyLimit = copyLimit;
+		this.completed = completed;
+	}
+
+	@Override
+	public void writeTo(OutputStream outputStream) throws IOException {
+		GzipStream compressed = null;
+		Copy copy = null;
+		try (Stream<Song> closing = songs) {
+			// syncFlush, so every flush sends the songs compressed so far
+			compressed = gzip ? new GzipStream(outputStream) : null;
+			OutputStream target = compressed == null ? outputStream : compressed;
+			copy = completed == null ? null : new Copy(target, copyLimit);
+			if (format == SongFormat.PROTOBUF) {
+				writeProtobuf(closing.iterator(), copy == null ? target : copy);
+			} else {
+				writeDocument(closing.iterator(), copy == null ? target : copy);
+			}
+			if (compressed != null) {
+				compressed.finish();
+			}
+		} catch (IOException e) {
+			// mostly a client that went away, there is no one left to answer
+			log.warn("export stopped after " + written + " songs: " + e.getMessage());
+			return;
+		} finally {
+			if (compressed != null) {
+				compressed.end();
+			}
+		}
+		if (copy != null && copy.bytes != null) {
+			completed.accept(copy.bytes.toByteArray());
+		}
+	}
+
+	/**
+	 * writes the songs with a generator of the mapper: a json, cbor or smile array, NDJSON lines or an xml document
+	 */
+	private void writeDocument(Iterator<Song> iterator, OutputStream out) throws IOException {
+		boolean array = format == SongFormat.JSON || format == SongFormat.CBOR || format == SongFormat.SMILE;
+		try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+			// the servlet container closes the response stream itself
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			if (format == SongFormat.NDJSON) {
+				// NDJSON lines are separated explicitly, not by the default root value separator
+				generator.setRootValueSeparator(null);
+			}
+			if (array) {
+				generator.writeStartArray();
+			} else if (format == SongFormat.XML) {
+				// xml has no arrays, the songs become <item> elements of the root element
+				((ToXmlGenerator) generator).setNextName(XML_ROOT);
+				generator.writeStartObject();
+			}
+			while (iterator.hasNext()) {
+				if (format == SongFormat.XML) {
+					generator.writeFieldName(XML_ITEM);
+				}
+				generator.writeObject(iterator.next());
+				if (format == SongFormat.NDJSON) {
+					generator.writeRaw('\n');
+				}
+				if (++written % flushEvery == 0) {
+					generator.flush();
+				}
+			}
+			if (array) {
+				generator.writeEndArray();
+			} else if (format == SongFormat.XML) {
+				generator.writeEndObject();
+			}
+			generator.flush();
+		}
+	}
+
+	/**
+	 * writes a protobuf Songs message song by song, every song is one element of its repeated field
+	 * <p>
+	 * protobuf has no start or end of a message, so the concatenated elements are a complete message
+	 */
+	private void writeProtobuf(Iterator<Song> iterator, OutputStream out) throws IOException {
+		ObjectWriter songWriter = objectMapper.writer(SongMappers.SONG_SCHEMA);
+		BufferedOutputStream buffered = new BufferedOutputStream(out);
+		while (iterator.hasNext()) {
+			byte[] song = songWriter.writeValueAsBytes(iterator.next());
+			buffered.write(SongMappers.SONGS_FIELD_KEY);
+			for (int length = song.length; ; length >>>= 7) {
+				if ((length & ~0x7F) == 0) {
+					buffered.write(length);
+					break;
+				}
+				buffered.write((length & 0x7F) | 0x80);
+			}
+			buffered.write(song);
+			if (++written % flushEvery == 0) {
+				buffered.flush();
+			}
+		}
+		buffered.flush();
+	}
+
+	/**
+	 * GZIPOutputStream that frees the native memory of its Deflater without closing the response stream, the
+	 * <p>
+	 * servlet container closes that one itself
+	 */
+	private static final class GzipStream extends GZIPOutputStream {
+		private GzipStream(OutputStream out) throws IOException {
+			super(out, true);
+		}
+
+		/**
+		 * ends the Deflater, also if finishing the stream failed, nothing can be written afterwards
+		 */
+		private void end() {
+			def.end();
+		}
+	}
+
+	/**
+	 * passes everything on to the response and keeps a copy, until the copy gets bigger than its limit
+	 */
+	private static final class Copy extends OutputStream {
+		private final OutputStream target;
+		private final long limit;
+		private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private Copy(OutputStream target, long limit) {
+			this.target = target;
+			this.limit = limit;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			target.write(b, off, len);
+			if (bytes != null) {
+				if (bytes.size() + (long) len > limit) {
+					bytes = null;
+				} else {
+					bytes.write(b, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			target.flush();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.abitmorecode.songrest.Controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * representations of songs, chosen by the Accept header
+ */
+public enum SongFormat {
+	JSON(MediaType.APPLICATION_JSON, ""),
+	/**
+	 * newline delimited json, one song per line, only for exports
+	 */
+	NDJSON(SongExport.NDJSON, "-ndjson"),
+	XML(MediaType.APPLICATION_XML, "-xml"),
+	CBOR(MediaType.APPLICATION_CBOR, "-cbor"),
+	SMILE(MediaType.parseMediaType("application/x-jackson-smile"), "-smile"),
+	/**
+	 * messages of song.proto, a Song or a Songs message for lists
+	 */
+	PROTOBUF(MediaType.parseMediaType("application/x-protobuf"), "-protobuf");
+
+	private final MediaType mediaType;
+	private final String tagSuffix;
+
+	SongFormat(MediaType mediaType, String tagSuffix) {
+		this.mediaType = mediaType;
+		this.tagSuffix = tagSuffix;
+	}
+
+	public MediaType getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * @return suffix of the ETag, different representations of the same version need different tags
+	 */
+	public String getTagSuffix() {
+		return tagSuffix;
+	}
+
+	/**
+	 * picks the offered format the client prefers, by quality and specificity of the accepted media types
+	 *
+	 * @param accept  Accept header, may be null
+	 * @param offered formats of the endpoint, the first one is the default if nothing matches
+	 *
+	 * @return SongFormat
+	 */
+	public static SongFormat negotiate(String accept, SongFormat... offered) {
+		if (accept == null) {
+			return offered[0];
+		}
+		List<MediaType> accepted;
+		try {
+			accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+		} catch (InvalidMediaTypeException e) {
+			return offered[0];
+		}
+		MediaType.sortBySpecificityAndQuality(accepted);
+		for (MediaType mediaType : accepted) {
+			if (mediaType.getQualityValue() == 0) {
+				continue;
+			}
+			for (SongFormat format : offered) {
+				if (mediaType.includes(format.mediaType)) {
+					return format;
+				}
+			}
+		}
+		return offered[0];
+	}
+}
@@ -0,0 +1,34 @@
+package com.abitmorecode.songrest.Controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * message converters for request bodies in the binary {@link SongFormat}s
+ * <p>
+ * the cbor and smile converters replace the default ones of Spring MVC, whose mappers don't know the modules of the
+ * <p>
+ * application and so can't create songs
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SongFormatConfiguration {
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(SongMappers songMappers) {
+		return new MappingJackson2CborHttpMessageConverter(songMappers.get(SongFormat.CBOR));
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(SongMappers songMappers) {
+		return new MappingJackson2SmileHttpMessageConverter(songMappers.get(SongFormat.SMILE));
+	}
+
+	@Bean
+	public SongProtobufHttpMessageConverter protobufHttpMessageConverter(SongMappers songMappers) {
+		return new SongProtobufHttpMessageConverter(songMappers);
+	}
+}
@@ -0,0 +1,109 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.SongList;
+import com.abitmorecode.songrest.Services.SongListsManager;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.abitmorecode.songrest.SongControllerException.SongListDoesntExistException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/ABitMoreCode")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SongListController {
+	private static final Logger log = LoggerFactory.getLogger(SongListController.class);
+
+	private static final String TIMER = "songrest.controller.requests";
+
+	@Autowired
+	private SongListsManager songListService;
+
+	@Autowired
+	private SongMappers songMappers;
+
+	@GetMapping("/songLists/{id}")
+	@Timed(value = TIMER, extraTags = {"mapping", "getSongList"}, histogram = true)
+	public ResponseEntity<Object> getSongList(@PathVariable int id) {
+		try {
+			return new ResponseEntity<>(songListService.getSongList(id), HttpStatus.OK);
+		} catch (SongListDoesntExistException e) {
+			log.error(e.getMessage());
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * returns all song lists as json or xml
+	 *
+	 * @param accept Accept header
+	 *
+	 * @return List of song lists
+	 *
+	 * @throws JsonProcessingException thrown, if the lists can't be serialized as xml
+	 */
+	@GetMapping("/songLists")
+	@Timed(value = TIMER, extraTags = {"mapping", "getSongLists"}, histogram = true)
+	public ResponseEntity<Object> getSongLists(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws JsonProcessingException {
+		List<SongList> songLists = songListService.getAllSongLists();
+		if (SongFormat.negotiate(accept, SongFormat.JSON, SongFormat.XML) == SongFormat.XML) {
+			// the message converter would name the root element after the List implementation
+			byte[] xml = songMappers.get(SongFormat.XML).writer().withRootName("songLists").writeValueAsBytes(songLists);
+			return ResponseEntity.ok().contentType(SongFormat.XML.getMediaType()).body(xml);
+		}
+		return new ResponseEntity<>(songLists, HttpStatus.OK);
+	}
+
+	/**
+	 * adds a song list, all songs have to exist. the id of the list is assigned here and returned in the Location header
+	 *
+	 * @param songList SongList without id
+	 *
+	 * @return 201 with Location, 400 if the list is incomplete or a song doesn't exist
+	 *
+	 * @throws NoIdAvailableException thrown, if there is no unused positive integer id available
+	 */
+	@PostMapping("/songLists")
+	@Timed(value = TIMER, extraTags = {"mapping", "postSongList"}, histogram = true)
+	public ResponseEntity<Object> postSongList(@RequestBody SongList songList) throws NoIdAvailableException {
+		if (songList.getId() != null || songList.getName() == null || songList.getSongs() == null
+				|| songList.getSongs().stream().anyMatch(s -> s == null || s.anyNull())) {
+			return new ResponseEntity<>("a song list needs a name and complete songs, but no id", HttpStatus.BAD_REQUEST);
+		}
+		try {
+			songListService.addSongList(songList);
+		} catch (SongDoesntExistException e) {
+			log.error(e.getMessage());
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+		String location = ServletUriComponentsBuilder
+				.fromCurrentRequest()
+				.path("/{id}")
+				.buildAndExpand(songList.getId())
+				.toUriString();
+		return ResponseEntity.status(HttpStatus.CREATED).header(HttpHeaders.LOCATION, location).build();
+	}
+
+	@DeleteMapping("/songLists/{id}")
+	@Timed(value = TIMER, extraTags = {"mapping", "deleteSongList"}, histogram = true)
+	public ResponseEntity<Object> deleteSongList(@PathVariable int id) {
+		try {
+			songListService.deleteSongList(id);
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		} catch (SongListDoesntExistException e) {
+			log.error(e.getMessage());
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+}
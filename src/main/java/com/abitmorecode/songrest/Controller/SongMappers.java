@@ -0,0 +1,115 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * one Jackson mapper per {@link SongFormat}, all configured like the json mapper of the application
+ * <p>
+ * protobuf uses the messages of song.proto: a Song message for single songs, a Songs message for lists
+ */
+@Component
+public class SongMappers {
+
+	public static final ProtobufSchema SONG_SCHEMA;
+	public static final ProtobufSchema SONGS_SCHEMA;
+
+	/**
+	 * key of one element of the repeated field songs of a Songs message: field 1, length delimited
+	 */
+	public static final int SONGS_FIELD_KEY = 1 << 3 | 2;
+
+	static {
+		try (InputStream proto = SongMappers.class.getResourceAsStream("/song.proto")) {
+			NativeProtobufSchema schema = ProtobufSchemaLoader.std.loadNative(proto, true);
+			SONG_SCHEMA = schema.forType("Song");
+			SONGS_SCHEMA = schema.forType("Songs");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private final Map<SongFormat, ObjectMapper> mappers = new EnumMap<>(SongFormat.class);
+
+	/**
+	 * SongMappers constructor
+	 *
+	 * @param builder builder of the application, with its modules and settings
+	 */
+	@Autowired
+	public SongMappers(Jackson2ObjectMapperBuilder builder) {
+		ObjectMapper json = builder.build();
+		mappers.put(SongFormat.JSON, json);
+		mappers.put(SongFormat.NDJSON, json);
+		mappers.put(SongFormat.CBOR, builder.factory(new CBORFactory()).build());
+		mappers.put(SongFormat.SMILE, builder.factory(new SmileFactory()).build());
+		mappers.put(SongFormat.PROTOBUF, builder.factory(new ProtobufFactory()).build());
+		mappers.put(SongFormat.XML, builder.factory(null).createXmlMapper(true).build());
+	}
+
+	/**
+	 * @param format format of the mapper
+	 *
+	 * @return ObjectMapper
+	 */
+	public ObjectMapper get(SongFormat format) {
+		return mappers.get(format);
+	}
+
+	/**
+	 * serializes a song or a List of songs
+	 * <p>
+	 * lists become a &lt;songs&gt; element in xml like in exports, instead of an element named after the List
+	 * <p>
+	 * implementation, and a Songs message in protobuf
+	 *
+	 * @param body   Song or List of songs
+	 * @param format format to write, not NDJSON
+	 *
+	 * @return serialized body
+	 *
+	 * @throws JsonProcessingException thrown, if the body can't be serialized
+	 */
+	public byte[] write(Object body, SongFormat format) throws JsonProcessingException {
+		ObjectMapper mapper = get(format);
+		if (format == SongFormat.XML && body instanceof List) {
+			return mapper.writer().withRootName(SongExport.XML_ROOT.getLocalPart()).writeValueAsBytes(body);
+		}
+		if (format == SongFormat.PROTOBUF) {
+			return body instanceof List
+					? mapper.writer(SONGS_SCHEMA).writeValueAsBytes(Map.of("songs", body))
+					: mapper.writer(SONG_SCHEMA).writeValueAsBytes(body);
+		}
+		return mapper.writeValueAsBytes(body);
+	}
+
+	/**
+	 * reads a Song message
+	 *
+	 * @param in protobuf encoded Song
+	 *
+	 * @return Song
+	 *
+	 * @throws IOException thrown, if the message can't be read
+	 */
+	public Song readProtobufSong(InputStream in) throws IOException {
+		return get(SongFormat.PROTOBUF).readerFor(Song.class).with(SONG_SCHEMA).readValue(in);
+	}
+}
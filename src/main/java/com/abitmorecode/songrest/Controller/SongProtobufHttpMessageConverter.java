@@ -0,0 +1,51 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+import java.io.IOException;
+
+/**
+ * reads request bodies of songs as Song message of song.proto, e.g. for POST /songs
+ * <p>
+ * responses are serialized by the controllers with {@link SongMappers}. the converter doesn't write, otherwise it
+ * <p>
+ * would offer application/x-protobuf for every Song before json
+ */
+public class SongProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Song> {
+
+	private final SongMappers songMappers;
+
+	/**
+	 * SongProtobufHttpMessageConverter constructor
+	 *
+	 * @param songMappers mappers with the protobuf schema
+	 */
+	public SongProtobufHttpMessageConverter(SongMappers songMappers) {
+		super(SongFormat.PROTOBUF.getMediaType());
+		this.songMappers = songMappers;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Song.class == clazz;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected Song readInternal(Class<? extends Song> clazz, HttpInputMessage inputMessage) throws IOException {
+		return songMappers.readProtobufSong(inputMessage.getBody());
+	}
+
+	@Override
+	protected void writeInternal(Song song, HttpOutputMessage outputMessage) throws IOException {
+		outputMessage.getBody().write(songMappers.write(song, SongFormat.PROTOBUF));
+	}
+}
@@ -0,0 +1,224 @@
+package com.abitmorecode.songrest.Controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * bounded cache of serialized responses, so read heavy load doesn't serialize the same songs over and over
+ * <p>
+ * every entry carries the version tag it was built for. a lookup with another tag is a miss, so a write makes
+ * <p>
+ * exactly the entries of the changed songs and of the catalog stale, without knowing about the cache. the cache is
+ * <p>
+ * split into stripes with their own lock, every stripe evicts its least recently used entries once it is full.
+ * <p>
+ * a max-size of 0 disables it
+ */
+@Component
+public class SongResponseCache {
+
+	/**
+	 * header of gzip compressed responses
+	 */
+	public static final HttpHeaders GZIP = HttpHeaders.readOnlyHttpHeaders(new HttpHeaders(new LinkedMultiValueMap<>(Map.of(HttpHeaders.CONTENT_ENCODING, List.of("gzip")))));
+
+	private static final int STRIPES = 16;
+
+	/**
+	 * bytes per entry besides the body, roughly the key, headers and map entry
+	 */
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final long maxEntryBytes;
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter evictions;
+
+	/**
+	 * SongResponseCache constructor
+	 *
+	 * @param meterRegistry registry for the hit, miss, eviction and size meters
+	 * @param maxSize       maximum size of all cached bodies
+	 */
+	public SongResponseCache(MeterRegistry meterRegistry, @Value("${songrest.cache.max-size:64MB}") DataSize maxSize) {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(maxSize.toBytes() / STRIPES);
+		}
+		// a single entry may take a quarter of its stripe, bigger responses are not cached
+		this.maxEntryBytes = maxSize.toBytes() / STRIPES / 4;
+		this.hits = Counter.builder("songrest.response.cache.gets")
+				.tag("result", "hit")
+				.description("responses served from the response cache")
+				.register(meterRegistry);
+		this.misses = Counter.builder("songrest.response.cache.gets")
+				.tag("result", "miss")
+				.description("responses that had to be serialized")
+				.register(meterRegistry);
+		this.evictions = Counter.builder("songrest.response.cache.evictions")
+				.description("entries evicted from the response cache to make room")
+				.register(meterRegistry);
+		Gauge.builder("songrest.response.cache.size", this, SongResponseCache::bytes)
+				.description("size of the cached responses")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return maximum size of a cached body in bytes, 0 if the cache is disabled
+	 */
+	public long maxEntrySize() {
+		return Math.max(0, maxEntryBytes - ENTRY_OVERHEAD);
+	}
+
+	/**
+	 * looks a response up
+	 *
+	 * @param key key of the response, e.g. the request url
+	 * @param tag current version tag of the response
+	 *
+	 * @return cached response, null if there is none for this tag
+	 */
+	public CachedResponse get(String key, String tag) {
+		CachedResponse cached = stripeOf(key).get(key);
+		if (cached != null && cached.tag.equals(tag)) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * caches a response, replacing an older one with the same key
+	 *
+	 * @param key     key of the response
+	 * @param tag     version tag the body was built for
+	 * @param body    serialized body, must not be changed anymore
+	 * @param headers headers of the response, including the content type
+	 *
+	 * @return the response, also if it was too big for the cache
+	 */
+	public CachedResponse put(String key, String tag, byte[] body, HttpHeaders headers) {
+		CachedResponse response = new CachedResponse(tag, body, HttpHeaders.readOnlyHttpHeaders(headers));
+		if (body.length <= maxEntrySize()) {
+			stripeOf(key).put(key, response);
+		}
+		return response;
+	}
+
+	/**
+	 * gzip variant of a response, compressed once per version and cached next to it
+	 *
+	 * @param key      key of the uncompressed response
+	 * @param response uncompressed response
+	 *
+	 * @return gzip compressed response with Content-Encoding
+	 */
+	public CachedResponse gzipped(String key, CachedResponse response) {
+		String gzipKey = key + ";gzip";
+		CachedResponse cached = stripeOf(gzipKey).get(gzipKey);
+		if (cached != null && cached.tag.equals(response.tag)) {
+			return cached;
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(response.body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(response.body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(response.headers);
+		headers.putAll(GZIP);
+		return put(gzipKey, response.tag, compressed.toByteArray(), headers);
+	}
+
+	private Stripe stripeOf(String key) {
+		int hash = key.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+	}
+
+	private long bytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			bytes += stripe.bytes;
+		}
+		return bytes;
+	}
+
+	/**
+	 * serialized response, immutable
+	 */
+	public static final class CachedResponse {
+		private final String tag;
+		private final byte[] body;
+		private final HttpHeaders headers;
+
+		private CachedResponse(String tag, byte[] body, HttpHeaders headers) {
+			this.tag = tag;
+			this.body = body;
+			this.headers = headers;
+		}
+
+		/**
+		 * @return the cached bytes themselves, not a copy, so they must not be changed
+		 */
+		public byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * @return read only headers
+		 */
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+	}
+
+	/**
+	 * one LRU ordered part of the cache, limited by the bytes of its entries
+	 */
+	private final class Stripe {
+		private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+		private final long maxBytes;
+		private volatile long bytes;
+
+		private Stripe(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		private synchronized CachedResponse get(String key) {
+			return entries.get(key);
+		}
+
+		private synchronized void put(String key, CachedResponse response) {
+			CachedResponse old = entries.put(key, response);
+			long size = bytes + weight(response) - (old == null ? 0 : weight(old));
+			for (Iterator<CachedResponse> iterator = entries.values().iterator(); size > maxBytes && iterator.hasNext(); ) {
+				size -= weight(iterator.next());
+				iterator.remove();
+				evictions.increment();
+			}
+			bytes = size;
+		}
+
+		private long weight(CachedResponse response) {
+			return response.body.length + ENTRY_OVERHEAD;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.abitmorecode.songrest.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * summary of a bulk import, only records that were rejected or got a new id are listed individually
+ * <p>
+ * the list is capped, so the summary stays small for any upload size
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchImportResult {
+
+	private final int maxReported;
+	private final List<RecordResult> records = new ArrayList<>();
+	private int received;
+	private int added;
+	private int rejected;
+	private int reassigned;
+	private boolean truncated;
+	private String error;
+
+	/**
+	 * BatchImportResult constructor
+	 *
+	 * @param maxReported maximum number of individually listed records
+	 */
+	public BatchImportResult(int maxReported) {
+		this.maxReported = maxReported;
+	}
+
+	/**
+	 * counts a received record
+	 */
+	public void received() {
+		received++;
+	}
+
+	/**
+	 * counts added songs
+	 *
+	 * @param count number of added songs
+	 */
+	public void added(int count) {
+		added += count;
+	}
+
+	/**
+	 * records a rejected record
+	 *
+	 * @param record number of the record, starting with 0
+	 * @param reason why it was rejected
+	 */
+	public void rejected(int record, String reason) {
+		rejected++;
+		report(new RecordResult(record, "rejected", null, null, reason));
+	}
+
+	/**
+	 * records a song that got a new id
+	 *
+	 * @param record      number of the record, starting with 0
+	 * @param requestedId id in the record
+	 * @param id          assigned id
+	 */
+	public void reassigned(int record, int requestedId, int id) {
+		reassigned++;
+		report(new RecordResult(record, "reassigned", requestedId, id, null));
+	}
+
+	/**
+	 * records an error which stopped the import, all songs counted as added stay added
+	 *
+	 * @param error error message
+	 */
+	public void failed(String error) {
+		this.error = error;
+	}
+
+	private void report(RecordResult result) {
+		if (records.size() < maxReported) {
+			records.add(result);
+		} else {
+			truncated = true;
+		}
+	}
+
+	public int getReceived() {
+		return received;
+	}
+
+	public int getAdded() {
+		return added;
+	}
+
+	public int getRejected() {
+		return rejected;
+	}
+
+	public int getReassigned() {
+		return reassigned;
+	}
+
+	/**
+	 * @return boolean, true if not all rejected and reassigned records are listed
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public List<RecordResult> getRecords() {
+		return Collections.unmodifiableList(records);
+	}
+
+	/**
+	 * outcome of a single record
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class RecordResult {
+		private final int record;
+		private final String status;
+		private final Integer requestedId;
+		private final Integer id;
+		private final String reason;
+
+		RecordResult(int record, String status, Integer requestedId, Integer id, String reason) {
+			this.record = record;
+			this.status = status;
+			this.requestedId = requestedId;
+			this.id = id;
+			this.reason = reason;
+		}
+
+		public int getRecord() {
+			return record;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public Integer getRequestedId() {
+			return requestedId;
+		}
+
+		public Integer getId() {
+			return id;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+	}
+}
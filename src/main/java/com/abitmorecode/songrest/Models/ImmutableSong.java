@@ -0,0 +1,47 @@
+package com.abitmorecode.songrest.Models;
+
+/**
+ * Song that can't be changed, the stores keep their songs as ImmutableSong, so the songs they hand out can be shared
+ * <p>
+ * with every reader without copying them, while a setter call can't corrupt the catalog
+ */
+public final class ImmutableSong extends Song {
+
+	/**
+	 * ImmutableSong constructor
+	 *
+	 * @param song Song to copy
+	 */
+	ImmutableSong(Song song) {
+		super(song);
+	}
+
+	@Override
+	public void setId(int id) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setTitle(String title) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setArtist(String artist) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setLabel(String label) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setReleased(int released) {
+		throw unsupported();
+	}
+
+	private static UnsupportedOperationException unsupported() {
+		return new UnsupportedOperationException("songs of the catalog can't be changed, change a copy and write it instead");
+	}
+}
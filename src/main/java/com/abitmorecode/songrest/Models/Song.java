@@ -1,5 +1,6 @@
 package com.abitmorecode.songrest.Models;
 
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 import org.springframework.lang.NonNull;
 
 import java.util.Objects;
@@ -7,6 +8,7 @@ import java.util.Objects;
 /**
  * Song Class
  */
+@JacksonXmlRootElement(localName = "song")
 public class Song {
 
 	private Integer id;
@@ -32,6 +34,19 @@ public class Song {
 		this.released = released;
 	}
 
+	/**
+	 * copy constructor, keeps null values
+	 *
+	 * @param song Song to copy
+	 */
+	protected Song(Song song) {
+		this.id = song.id;
+		this.title = song.title;
+		this.artist = song.artist;
+		this.label = song.label;
+		this.released = song.released;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -72,6 +87,15 @@ public class Song {
 		this.released = released;
 	}
 
+	/**
+	 * copy of this song that can't be changed anymore, for storing it
+	 *
+	 * @return ImmutableSong, this song if it is one already
+	 */
+	public Song toImmutable() {
+		return this instanceof ImmutableSong ? this : new ImmutableSong(this);
+	}
+
 	public boolean anyNull() {
 		return id == null || title == null || artist == null || label == null || released == null;
 	}
@@ -90,7 +114,8 @@ public class Song {
 	public boolean equals(Object o) {
 		if (this == o)
 			return true;
-		if (o == null || getClass() != o.getClass())
+		// an ImmutableSong equals the Song it was copied from
+		if (!(o instanceof Song))
 			return false;
 
 		Song song = (Song) o;
@@ -99,19 +124,19 @@ public class Song {
 			return false;
 		if (!released.equals(song.released))
 			return false;
-		if (!title.equals(song.title))
+		if (!Objects.equals(title, song.title))
 			return false;
-		if (!artist.equals(song.artist))
+		if (!Objects.equals(artist, song.artist))
 			return false;
-		return label.equals(song.label);
+		return Objects.equals(label, song.label);
 	}
 
 	@Override
 	public int hashCode() {
 		int result = id;
-		result = 31 * result + title.hashCode();
-		result = 31 * result + artist.hashCode();
-		result = 31 * result + label.hashCode();
+		result = 31 * result + Objects.hashCode(title);
+		result = 31 * result + Objects.hashCode(artist);
+		result = 31 * result + Objects.hashCode(label);
 		result = 31 * result + released;
 		return result;
 	}
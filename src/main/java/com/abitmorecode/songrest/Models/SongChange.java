@@ -0,0 +1,52 @@
+package com.abitmorecode.songrest.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * one entry of the change log of a catalog, immutable
+ * <p>
+ * ADDED and CHANGED carry the new song, DELETED only its id and RESET neither, clients drop their whole copy on a reset
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SongChange {
+
+	public enum Type {
+		ADDED, CHANGED, DELETED, RESET
+	}
+
+	private final long sequence;
+	private final Type type;
+	private final Integer id;
+	private final Song song;
+
+	/**
+	 * SongChange constructor
+	 *
+	 * @param sequence number of the change, bigger than the number of every earlier change
+	 * @param type     kind of change
+	 * @param id       id of the song, null for RESET
+	 * @param song     added or changed song, null for DELETED and RESET
+	 */
+	public SongChange(long sequence, Type type, Integer id, Song song) {
+		this.sequence = sequence;
+		this.type = type;
+		this.id = id;
+		this.song = song;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public Song getSong() {
+		return song;
+	}
+}
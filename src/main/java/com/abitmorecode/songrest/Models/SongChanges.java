@@ -0,0 +1,49 @@
+package com.abitmorecode.songrest.Models;
+
+import java.util.List;
+
+/**
+ * answer to "what changed since sequence n": either the changes after n or the request to resync
+ * <p>
+ * next is the sequence to ask from next time. after a resync the client loads the whole catalog again and
+ * <p>
+ * continues with next, changes in between may be sent twice, applying them again doesn't change the copy
+ */
+public class SongChanges {
+
+	private final String epoch;
+	private final long next;
+	private final boolean resync;
+	private final List<SongChange> changes;
+
+	/**
+	 * SongChanges constructor
+	 *
+	 * @param epoch   run of the change log, sequences of another epoch aren't comparable
+	 * @param next    sequence to continue with
+	 * @param resync  the changes are no longer known, the client has to load the whole catalog
+	 * @param changes changes in sequence order, empty on resync
+	 */
+	public SongChanges(String epoch, long next, boolean resync, List<SongChange> changes) {
+		this.epoch = epoch;
+		this.next = next;
+		this.resync = resync;
+		this.changes = changes;
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public long getNext() {
+		return next;
+	}
+
+	public boolean isResync() {
+		return resync;
+	}
+
+	public List<SongChange> getChanges() {
+		return changes;
+	}
+}
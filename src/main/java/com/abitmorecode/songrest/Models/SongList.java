@@ -0,0 +1,69 @@
+package com.abitmorecode.songrest.Models;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * SongList Class, a named list of songs
+ */
+@JacksonXmlRootElement(localName = "songList")
+public class SongList {
+
+	private Integer id;
+	private String name;
+	@JacksonXmlElementWrapper(localName = "songs")
+	@JacksonXmlProperty(localName = "item")
+	private List<Song> songs;
+
+	/**
+	 * SongList constructor
+	 *
+	 * @param id    id int, null for a new list, the id gets assigned by the service
+	 * @param name  name of the list
+	 * @param songs songs of the list
+	 */
+	public SongList(@Nullable Integer id, @NonNull String name, @NonNull List<Song> songs) {
+		this.id = id;
+		this.name = name;
+		this.songs = songs;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<Song> getSongs() {
+		return songs;
+	}
+
+	public void setSongs(List<Song> songs) {
+		this.songs = songs;
+	}
+
+	/**
+	 * custom to String
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "SongList{" + "id=" + id + ", name='" + name + '\'' + ", songs=" + songs + '}';
+	}
+}
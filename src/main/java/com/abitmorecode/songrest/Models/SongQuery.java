@@ -0,0 +1,88 @@
+package com.abitmorecode.songrest.Models;
+
+import java.util.Locale;
+
+/**
+ * filter for songs, every field that is null matches every song
+ */
+public class SongQuery {
+
+	private final String artist;
+	private final String label;
+	private final Integer releasedFrom;
+	private final Integer releasedTo;
+
+	/**
+	 * SongQuery constructor
+	 *
+	 * @param artist       Artist Name String, compared case insensitive
+	 * @param label        Label Name String, compared case insensitive
+	 * @param releasedFrom inclusive lower bound of the Release Year
+	 * @param releasedTo   inclusive upper bound of the Release Year
+	 */
+	public SongQuery(String artist, String label, Integer releasedFrom, Integer releasedTo) {
+		this.artist = artist;
+		this.label = label;
+		this.releasedFrom = releasedFrom;
+		this.releasedTo = releasedTo;
+	}
+
+	/**
+	 * normalizes artist and label names, so lookups are case insensitive
+	 *
+	 * @param name artist or label name
+	 *
+	 * @return normalized name, null for a song without that field
+	 */
+	public static String normalize(String name) {
+		return name == null ? null : name.toLowerCase(Locale.ROOT);
+	}
+
+	public String getArtist() {
+		return artist;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public Integer getReleasedFrom() {
+		return releasedFrom;
+	}
+
+	public Integer getReleasedTo() {
+		return releasedTo;
+	}
+
+	/**
+	 * @return boolean, true if no filter is set
+	 */
+	public boolean isEmpty() {
+		return artist == null && label == null && releasedFrom == null && releasedTo == null;
+	}
+
+	/**
+	 * checks if a song matches all set filters
+	 *
+	 * @param song Song to check
+	 *
+	 * @return boolean, matches or not
+	 */
+	public boolean matches(Song song) {
+		if (artist != null && !normalize(artist).equals(normalize(song.getArtist()))) {
+			return false;
+		}
+		if (label != null && !normalize(label).equals(normalize(song.getLabel()))) {
+			return false;
+		}
+		if (releasedFrom != null && song.getReleased() < releasedFrom) {
+			return false;
+		}
+		return releasedTo == null || song.getReleased() <= releasedTo;
+	}
+
+	@Override
+	public String toString() {
+		return "SongQuery{" + "artist='" + artist + '\'' + ", label='" + label + '\'' + ", releasedFrom=" + releasedFrom + ", releasedTo=" + releasedTo + '}';
+	}
+}
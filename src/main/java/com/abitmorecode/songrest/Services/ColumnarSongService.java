@@ -0,0 +1,244 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * SongsManager keeping the catalog in {@link SongColumns}, a compact columnar representation
+ * <p>
+ * needs a fraction of the heap of Song objects, in exchange every read creates the Song objects it returns.
+ * <p>
+ * reads share a read lock, writes take the write lock
+ */
+@Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "columnar")
+public class ColumnarSongService implements SongsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(ColumnarSongService.class);
+
+	private final SongColumns columns = new SongColumns();
+	private final FreeIdAllocator usedIds = new FreeIdAllocator();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final SongVersions versions = new SongVersions();
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+	private final SongMetrics metrics;
+
+	/**
+	 * default constructor, registers the meters at the global registry
+	 */
+	public ColumnarSongService() {
+		this(Metrics.globalRegistry);
+	}
+
+	/**
+	 * constructor, loads the default catalog
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 */
+	@Autowired
+	public ColumnarSongService(MeterRegistry meterRegistry) {
+		metrics = new SongMetrics(meterRegistry);
+		metrics.bindCatalogSize(this, ColumnarSongService::size);
+
+		try {
+			init(SongService.DEFAULT_CATALOG_PATH);
+		} catch (IOException e) {
+			log.error(Arrays.toString(e.getStackTrace()));
+		}
+	}
+
+	/**
+	 * loads a json catalog, songs with an existing id get replaced
+	 *
+	 * @param filepath file path to json file
+	 *
+	 * @throws IOException thrown, if file doesn't exist or file can't be read
+	 */
+	public void init(String filepath) throws IOException {
+		lock.writeLock().lock();
+		try {
+			SongJsonLoader.loadCatalog(Path.of(filepath), song -> {
+				if (columns.put(song)) {
+					log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+				}
+				usedIds.markUsed(song.getId());
+			}, metrics, log);
+			versions.changedAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Song getSpecificSong(int id) throws SongDoesntExistException {
+		lock.readLock().lock();
+		try {
+			int row = columns.indexOf(id);
+			if (row >= 0) {
+				return columns.songAt(row);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		metrics.songNotFound();
+		throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+	}
+
+	@Override
+	public List<Song> getAllSongs() {
+		return Collections.unmodifiableList(getSongsAfter(Long.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * streams the songs page by page, the read lock is only held while a page is read
+	 *
+	 * @return lazy Stream of all Songs in id order
+	 */
+	@Override
+	public Stream<Song> streamAllSongs() {
+		return SongPages.stream(this);
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		lock.readLock().lock();
+		try {
+			int from = columns.firstRowAfter(afterId);
+			int to = (int) Math.min(columns.size(), (long) from + limit);
+			List<Song> songs = new ArrayList<>(to - from);
+			for (int row = from; row < to; row++) {
+				songs.add(columns.songAt(row));
+			}
+			return songs;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		lock.readLock().lock();
+		try {
+			BitSet artists = query.getArtist() == null ? null : columns.artistsNamed(query.getArtist());
+			BitSet labels = query.getLabel() == null ? null : columns.labelsNamed(query.getLabel());
+			List<Song> songs = new ArrayList<>();
+			for (int row = 0; row < columns.size(); row++) {
+				if (columns.matches(row, artists, labels, query)) {
+					songs.add(columns.songAt(row));
+				}
+			}
+			return songs;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * adds a Song Object
+	 *
+	 * @param song Song
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	@Override
+	public void addSong(Song song) throws NoIdAvailableException {
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			if (columns.indexOf(song.getId()) >= 0) {
+				int oldId = song.getId();
+				int newId = usedIds.firstUnusedId();
+				song.setId(newId);
+				metrics.idReassigned();
+				log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + newId + " instead");
+			}
+			columns.put(song);
+			usedIds.markUsed(song.getId());
+			versions.changed(song.getId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info(song.getTitle() + " was added");
+	}
+
+	@Override
+	public void deleteSong(int id) throws SongDoesntExistException {
+		Song song = null;
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			int row = columns.indexOf(id);
+			if (row >= 0) {
+				song = columns.songAt(row);
+				columns.remove(row);
+				removalListeners.songRemoved(id);
+				usedIds.markFree(id);
+				versions.removed(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (song == null) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		log.info(song.getTitle() + " was removed");
+	}
+
+	@Override
+	public void reset() {
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			columns.clear();
+			removalListeners.allSongsRemoved();
+			usedIds.clear();
+			versions.changedAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("song list got cleared");
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public SongVersions getVersions() {
+		return versions;
+	}
+
+	private int size() {
+		lock.readLock().lock();
+		try {
+			return columns.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+/**
+ * keeps track of all used song ids as a set of disjoint, merged ranges
+ * <p>
+ * every operation is O(log r), where r is the number of ranges (and not the number of ids), so densely packed ids
+ * <p>
+ * cost nearly nothing, no matter how big the catalog gets
+ * <p>
+ * this class is not thread safe, callers have to synchronize writes themselves
+ */
+public class FreeIdAllocator {
+
+	/**
+	 * start of range -> inclusive end of range
+	 */
+	private final TreeMap<Integer, Integer> usedRanges = new TreeMap<>();
+
+	/**
+	 * marks an id as used
+	 *
+	 * @param id id int
+	 */
+	public void markUsed(int id) {
+		Map.Entry<Integer, Integer> lower = usedRanges.floorEntry(id);
+		if (lower != null && lower.getValue() >= id) {
+			// already inside a range
+			return;
+		}
+
+		int start = id;
+		int end = id;
+
+		// merge with the range directly in front
+		if (lower != null && lower.getValue() == id - 1 && id != Integer.MIN_VALUE) {
+			start = lower.getKey();
+		}
+
+		// merge with the range directly behind
+		if (id != Integer.MAX_VALUE) {
+			Integer higherEnd = usedRanges.get(id + 1);
+			if (higherEnd != null) {
+				usedRanges.remove(id + 1);
+				end = higherEnd;
+			}
+		}
+
+		usedRanges.put(start, end);
+	}
+
+	/**
+	 * marks an id as free again
+	 *
+	 * @param id id int
+	 */
+	public void markFree(int id) {
+		Map.Entry<Integer, Integer> range = usedRanges.floorEntry(id);
+		if (range == null || range.getValue() < id) {
+			// not used
+			return;
+		}
+
+		int start = range.getKey();
+		int end = range.getValue();
+		usedRanges.remove(start);
+
+		// split the range into the part in front and the part behind the id
+		if (start < id) {
+			usedRanges.put(start, id - 1);
+		}
+		if (id < end) {
+			usedRanges.put(id + 1, end);
+		}
+	}
+
+	/**
+	 * checks if an id is used
+	 *
+	 * @param id id int
+	 *
+	 * @return boolean, used or not
+	 */
+	public boolean isUsed(int id) {
+		Map.Entry<Integer, Integer> range = usedRanges.floorEntry(id);
+		return range != null && range.getValue() >= id;
+	}
+
+	/**
+	 * returns the smallest Integer which meets the following criteria:
+	 * <ul>
+	 * 	<li>is bigger or equal to 0</li>
+	 * 	<li>is not marked as used</li>
+	 * </ul>
+	 *
+	 * @return first unused id
+	 *
+	 * @throws NoIdAvailableException if there is no positive Integer left
+	 */
+	public int firstUnusedId() throws NoIdAvailableException {
+		Map.Entry<Integer, Integer> range = usedRanges.floorEntry(0);
+		if (range == null || range.getValue() < 0) {
+			return 0;
+		}
+		if (range.getValue() == Integer.MAX_VALUE) {
+			throw new NoIdAvailableException("No unused song id available");
+		}
+		// ranges are always merged, so the id right behind a range is free
+		return range.getValue() + 1;
+	}
+
+	/**
+	 * gets the biggest used id
+	 *
+	 * @return biggest used id or 0, if no id is used
+	 */
+	public int lastUsedId() {
+		return usedRanges.isEmpty() ? 0 : usedRanges.lastEntry().getValue();
+	}
+
+	/**
+	 * iterates the used ids in ascending order, the allocator must not change during the iteration
+	 *
+	 * @param afterId only ids bigger than afterId are returned
+	 *
+	 * @return iterator of used ids
+	 */
+	public PrimitiveIterator.OfInt usedIdsAfter(long afterId) {
+		long from = Math.max(afterId + 1, Integer.MIN_VALUE);
+		Map.Entry<Integer, Integer> first = from > Integer.MAX_VALUE ? null : usedRanges.floorEntry((int) from);
+		Iterator<Map.Entry<Integer, Integer>> ranges;
+		if (from > Integer.MAX_VALUE) {
+			ranges = usedRanges.tailMap(Integer.MAX_VALUE, false).entrySet().iterator();
+		} else if (first != null && first.getValue() >= from) {
+			ranges = usedRanges.tailMap(first.getKey(), true).entrySet().iterator();
+		} else {
+			ranges = usedRanges.tailMap((int) from, true).entrySet().iterator();
+		}
+
+		return new PrimitiveIterator.OfInt() {
+			private long next = 1;
+			private long end = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (next > end && ranges.hasNext()) {
+					Map.Entry<Integer, Integer> range = ranges.next();
+					next = Math.max(range.getKey(), from);
+					end = range.getValue();
+				}
+				return next <= end;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return (int) next++;
+			}
+		};
+	}
+
+	/**
+	 * frees all ids
+	 */
+	public void clear() {
+		usedRanges.clear();
+	}
+}
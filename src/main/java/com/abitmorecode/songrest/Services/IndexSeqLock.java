@@ -0,0 +1,75 @@
+package com.abitmorecode.songrest.Services;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * sequence lock pairing the mutable indexes of a store with the snapshot it publishes
+ * <p>
+ * writers count a write as begun before they touch an index and as ended after the snapshot with the same changes was
+ * <p>
+ * published. a query that saw no write in progress before it ran and no write begun after it used indexes and a
+ * <p>
+ * snapshot of the same version, otherwise it is run again, the last time under the writers' lock. writers may run
+ * <p>
+ * concurrently, e.g. on different shards
+ */
+final class IndexSeqLock {
+
+	/**
+	 * optimistic tries before a query waits for the writers
+	 */
+	private static final int OPTIMISTIC_TRIES = 4;
+
+	private final AtomicLong begun = new AtomicLong();
+	private final AtomicLong ended = new AtomicLong();
+
+	/**
+	 * called by the writer before it changes an index
+	 */
+	void beginWrite() {
+		begun.incrementAndGet();
+	}
+
+	/**
+	 * called by the writer after it published the snapshot matching the changed indexes
+	 */
+	void endWrite() {
+		ended.incrementAndGet();
+	}
+
+	/**
+	 * runs a query on the indexes and a snapshot, both of the same version
+	 *
+	 * @param query  reads the current snapshot and the indexes, may run several times
+	 * @param locked runs the query while holding the writers' lock
+	 * @param <T>    type of the result
+	 *
+	 * @return result of a consistent run
+	 */
+	<T> T read(Supplier<T> query, Supplier<T> locked) {
+		for (int i = 0; i < OPTIMISTIC_TRIES; i++) {
+			// ended first, it never passes begun, so equal counts mean no write was in progress
+			long end = ended.get();
+			long begin = begun.get();
+			if (end == begin) {
+				try {
+					T result = query.get();
+					// the reads of the query must not move behind the check
+					VarHandle.acquireFence();
+					if (begun.get() == begin) {
+						return result;
+					}
+				} catch (RuntimeException e) {
+					// indexes changed under the query, e.g. a posting list shrank
+					if (begun.get() == begin) {
+						throw e;
+					}
+				}
+			}
+			Thread.onSpinWait();
+		}
+		return locked.get();
+	}
+}
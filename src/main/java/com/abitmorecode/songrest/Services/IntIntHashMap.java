@@ -0,0 +1,174 @@
+package com.abitmorecode.songrest.Services;
+
+import java.util.Arrays;
+
+/**
+ * open addressing hash map from int to int without boxing
+ * <p>
+ * uses linear probing and backward shift deletion, so there are no tombstones. not thread safe
+ */
+public class IntIntHashMap {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private final int missingValue;
+
+	private int[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size;
+	private int resizeAt;
+
+	/**
+	 * IntIntHashMap constructor
+	 *
+	 * @param expectedSize expected number of entries
+	 * @param missingValue value returned by get, if there is no entry for a key
+	 */
+	public IntIntHashMap(int expectedSize, int missingValue) {
+		this.missingValue = missingValue;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * @param key key int
+	 *
+	 * @return value or the missing value
+	 */
+	public int get(int key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+		}
+		return missingValue;
+	}
+
+	/**
+	 * @param key key int
+	 *
+	 * @return boolean, contains key or not
+	 */
+	public boolean containsKey(int key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * puts a value, replacing the old one
+	 *
+	 * @param key   key int
+	 * @param value value int
+	 *
+	 * @return old value or the missing value
+	 */
+	public int put(int key, int value) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		for (; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				int old = values[slot];
+				values[slot] = value;
+				return old;
+			}
+		}
+		used[slot] = true;
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size >= resizeAt) {
+			rehash(keys.length * 2);
+		}
+		return missingValue;
+	}
+
+	/**
+	 * removes a key
+	 *
+	 * @param key key int
+	 *
+	 * @return removed value or the missing value
+	 */
+	public int remove(int key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		for (; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				int old = values[slot];
+				shiftBack(slot);
+				size--;
+				return old;
+			}
+		}
+		return missingValue;
+	}
+
+	/**
+	 * @return number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * removes all entries
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * closes the gap at slot by moving following entries of the same probe chain back
+	 */
+	private void shiftBack(int gap) {
+		int mask = keys.length - 1;
+		int slot = (gap + 1) & mask;
+		while (used[slot]) {
+			int home = hash(keys[slot]) & mask;
+			// move the entry if its home slot isn't between the gap and its current slot
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		used[gap] = false;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		return Math.max(capacity, 8);
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
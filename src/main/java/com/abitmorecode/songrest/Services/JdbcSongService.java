@@ -0,0 +1,367 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SongsManager persisting songs in a relational database (PostgreSQL, H2) through a pooled DataSource
+ * <p>
+ * selected with songrest.store=jdbc, e.g. by the jdbc profile. songs with a colliding id are inserted behind
+ * <p>
+ * the biggest id
+ */
+@Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "jdbc")
+public class JdbcSongService implements SongsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcSongService.class);
+
+	/**
+	 * rows per multi-row insert statement while loading a catalog
+	 */
+	static final int BATCH_SIZE = 500;
+
+	/**
+	 * attempts to insert a song behind the biggest id, before giving up, only concurrent writers taking the same id can
+	 * <p>
+	 * use them up
+	 */
+	private static final int NEXT_FREE_ID_ATTEMPTS = 16;
+
+	/**
+	 * rows fetched per round trip while streaming an export
+	 */
+	private static final int EXPORT_FETCH_SIZE = 1000;
+
+	private static final String COLUMNS = "id, title, artist, label, released";
+	private static final RowMapper<Song> SONG_MAPPER = (rs, rowNum) -> new Song(
+			rs.getInt("id"), rs.getString("title"), rs.getString("artist"), rs.getString("label"), rs.getInt("released"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SongMetrics metrics;
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+
+	/**
+	 * constructor, creates the table if needed and loads the default catalog into an empty table
+	 *
+	 * @param dataSource    pooled DataSource of the database
+	 * @param meterRegistry registry for the catalog meters
+	 */
+	@Autowired
+	public JdbcSongService(DataSource dataSource, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		this.metrics = new SongMetrics(meterRegistry);
+		new ResourceDatabasePopulator(new ClassPathResource("schema-jdbc.sql")).execute(dataSource);
+		metrics.bindCatalogSize(this, s -> s.count());
+
+		if (count() == 0) {
+			try {
+				init(SongService.DEFAULT_CATALOG_PATH);
+			} catch (IOException e) {
+				log.error(Arrays.toString(e.getStackTrace()));
+			}
+		}
+	}
+
+	/**
+	 * loads a json catalog into the table with multi-row batched inserts, songs with an existing id get replaced
+	 *
+	 * @param filepath file path to json file
+	 *
+	 * @throws IOException thrown, if file doesn't exist or file can't be read
+	 */
+	public void init(String filepath) throws IOException {
+		List<Song> batch = new ArrayList<>(BATCH_SIZE);
+		SongJsonLoader.Result result = SongJsonLoader.load(Path.of(filepath), song -> {
+			batch.add(song);
+			if (batch.size() == BATCH_SIZE) {
+				insertBatch(batch);
+				batch.clear();
+			}
+		});
+		insertBatch(batch);
+		SongJsonLoader.catalogLoaded(result, metrics, log);
+	}
+
+	@Override
+	public Song getSpecificSong(int id) throws SongDoesntExistException {
+		List<Song> songs = jdbcTemplate.query("SELECT " + COLUMNS + " FROM song WHERE id = ?", SONG_MAPPER, id);
+		if (songs.isEmpty()) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		return songs.get(0);
+	}
+
+	@Override
+	public List<Song> getAllSongs() {
+		return Collections.unmodifiableList(jdbcTemplate.query("SELECT " + COLUMNS + " FROM song ORDER BY id", SONG_MAPPER));
+	}
+
+	/**
+	 * streams all songs through a database cursor, only EXPORT_FETCH_SIZE rows are held in memory
+	 * <p>
+	 * the cursor runs in its own read only transaction on a dedicated connection, which is released on close
+	 *
+	 * @return Stream of all songs in id order
+	 */
+	@Override
+	public Stream<Song> streamAllSongs() {
+		String sql = "SELECT " + COLUMNS + " FROM song ORDER BY id";
+		Connection connection = DataSourceUtils.getConnection(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+		try {
+			// PostgreSQL only fetches in batches inside a transaction
+			connection.setAutoCommit(false);
+			PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(EXPORT_FETCH_SIZE);
+			ResultSet resultSet = statement.executeQuery();
+			Iterator<Song> rows = new Iterator<>() {
+				private Song next;
+				private int rowNum;
+
+				@Override
+				public boolean hasNext() {
+					if (next == null) {
+						try {
+							next = resultSet.next() ? SONG_MAPPER.mapRow(resultSet, rowNum++) : null;
+						} catch (SQLException e) {
+							throw translate(sql, e);
+						}
+					}
+					return next != null;
+				}
+
+				@Override
+				public Song next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Song song = next;
+					next = null;
+					return song;
+				}
+			};
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+					.onClose(() -> closeCursor(connection, statement));
+		} catch (SQLException e) {
+			closeCursor(connection, null);
+			throw translate(sql, e);
+		}
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		long from = Math.max(afterId, Integer.MIN_VALUE - 1L);
+		return jdbcTemplate.query("SELECT " + COLUMNS + " FROM song WHERE id > ? ORDER BY id LIMIT ?", SONG_MAPPER, from, limit);
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM song WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (query.getArtist() != null) {
+			sql.append(" AND LOWER(artist) = ?");
+			args.add(SongQuery.normalize(query.getArtist()));
+		}
+		if (query.getLabel() != null) {
+			sql.append(" AND LOWER(label) = ?");
+			args.add(SongQuery.normalize(query.getLabel()));
+		}
+		if (query.getReleasedFrom() != null) {
+			sql.append(" AND released >= ?");
+			args.add(query.getReleasedFrom());
+		}
+		if (query.getReleasedTo() != null) {
+			sql.append(" AND released <= ?");
+			args.add(query.getReleasedTo());
+		}
+		sql.append(" ORDER BY id");
+		return jdbcTemplate.query(sql.toString(), SONG_MAPPER, args.toArray());
+	}
+
+	/**
+	 * adds a Song Object, if its id is already used it gets the id behind the biggest one
+	 *
+	 * @param song Song
+	 *
+	 * @throws NoIdAvailableException thrown, if no unused id could be taken
+	 */
+	@Override
+	public void addSong(Song song) throws NoIdAvailableException {
+		try {
+			jdbcTemplate.update("INSERT INTO song (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)",
+					song.getId(), song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased());
+		} catch (DuplicateKeyException e) {
+			int oldId = song.getId();
+			song.setId(insertWithNextFreeId(song));
+			metrics.idReassigned();
+			log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + song.getId() + " instead");
+		}
+		log.info(song.getTitle() + " was added");
+	}
+
+	@Override
+	public void deleteSong(int id) throws SongDoesntExistException {
+		if (jdbcTemplate.update("DELETE FROM song WHERE id = ?", id) == 0) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		removalListeners.songRemoved(id);
+		log.info("song with id " + id + " was removed");
+	}
+
+	@Override
+	public void reset() {
+		jdbcTemplate.update("DELETE FROM song");
+		removalListeners.allSongsRemoved();
+		log.info("song list got cleared");
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	private void closeCursor(Connection connection, Statement statement) {
+		try {
+			if (statement != null) {
+				statement.close();
+			}
+			connection.rollback();
+			connection.setAutoCommit(true);
+		} catch (SQLException e) {
+			log.error("closing the export cursor failed: " + e.getMessage());
+		} finally {
+			DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+		}
+	}
+
+	private DataAccessException translate(String sql, SQLException e) {
+		DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("streamAllSongs", sql, e);
+		return translated != null ? translated : new UncategorizedSQLException("streamAllSongs", sql, e);
+	}
+
+	/**
+	 * @return number of songs in the table
+	 */
+	private int count() {
+		Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song", Integer.class);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * inserts songs with one multi-row statement, falls back to row by row upserts on duplicate ids
+	 */
+	private void insertBatch(List<Song> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		// the last song with an id wins, like in the in-memory store
+		Map<Integer, Song> unique = new LinkedHashMap<>();
+		batch.forEach(song -> unique.put(song.getId(), song));
+		List<Song> songs = new ArrayList<>(unique.values());
+
+		StringBuilder sql = new StringBuilder("INSERT INTO song (" + COLUMNS + ") VALUES ");
+		for (int i = 0; i < songs.size(); i++) {
+			sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+		}
+		try {
+			jdbcTemplate.update(sql.toString(), ps -> {
+				int parameter = 1;
+				for (Song song : songs) {
+					ps.setInt(parameter++, song.getId());
+					ps.setString(parameter++, song.getTitle());
+					ps.setString(parameter++, song.getArtist());
+					ps.setString(parameter++, song.getLabel());
+					ps.setInt(parameter++, song.getReleased());
+				}
+			});
+		} catch (DataIntegrityViolationException e) {
+			songs.forEach(this::upsert);
+		}
+	}
+
+	private void upsert(Song song) {
+		int updated = jdbcTemplate.update("UPDATE song SET title = ?, artist = ?, label = ?, released = ? WHERE id = ?",
+				song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased(), song.getId());
+		if (updated == 0) {
+			jdbcTemplate.update("INSERT INTO song (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)",
+					song.getId(), song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased());
+		} else {
+			log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+		}
+	}
+
+	/**
+	 * inserts the song behind the biggest id, the id is selected in the same transaction as the insert, a concurrent
+	 * <p>
+	 * writer taking the same id makes it retry, the identity of the table is left alone
+	 */
+	private int insertWithNextFreeId(Song song) throws NoIdAvailableException {
+		for (int attempt = 0; attempt < NEXT_FREE_ID_ATTEMPTS; attempt++) {
+			Integer id;
+			try {
+				id = transactionTemplate.execute(status -> {
+					Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM song", Integer.class);
+					if (maxId != null && maxId == Integer.MAX_VALUE) {
+						return null;
+					}
+					int nextId = maxId == null ? 1 : maxId + 1;
+					jdbcTemplate.update("INSERT INTO song (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)",
+							nextId, song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased());
+					return nextId;
+				});
+			} catch (DuplicateKeyException e) {
+				continue;
+			}
+			if (id == null) {
+				break;
+			}
+			return id;
+		}
+		throw new NoIdAvailableException("No unused song id available");
+	}
+}
@@ -0,0 +1,19 @@
+package com.abitmorecode.songrest.Services.Journal;
+
+/**
+ * when the journal forces written records to disk
+ */
+public enum FsyncPolicy {
+	/**
+	 * every write waits until its record is on disk, concurrent writers share one fsync (group commit)
+	 */
+	ALWAYS,
+	/**
+	 * records are forced to disk periodically in the background, writers don't wait
+	 */
+	BATCHED,
+	/**
+	 * records are only written to the OS, which decides when to flush them
+	 */
+	OS
+}
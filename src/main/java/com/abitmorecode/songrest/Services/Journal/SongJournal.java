@@ -0,0 +1,760 @@
+package com.abitmorecode.songrest.Services.Journal;
+
+import com.abitmorecode.songrest.Models.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * append-only binary write-ahead log of all catalog changes, compacted into snapshots
+ * <p>
+ * the directory contains at most one snapshot-SEQ.bin holding the catalog up to record SEQ and journal-FIRSTSEQ.log
+ * <p>
+ * segments with the records after it. records get their sequence numbers under the write lock of the store and are
+ * <p>
+ * written after it was released, in the order of their sequence numbers, so writers don't wait for the disk while
+ * <p>
+ * holding the write lock. waiting for durability doesn't need any lock, so concurrent writers share one fsync
+ */
+@Component
+@ConditionalOnProperty(name = "songrest.journal.enabled", havingValue = "true")
+public class SongJournal implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(SongJournal.class);
+
+	private static final int SNAPSHOT_MAGIC = 0x534F4E47;
+	private static final int MAX_RECORD_LENGTH = 1 << 24;
+
+	private static final byte ADD = 1;
+	private static final byte DELETE = 2;
+	private static final byte RESET = 3;
+	private static final byte ADD_ALL = 4;
+
+	private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+	private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+	private final Path directory;
+	private final FsyncPolicy fsyncPolicy;
+	private final long compactionThresholdBytes;
+	private final ScheduledExecutorService executor;
+	private final AtomicBoolean compacting = new AtomicBoolean();
+	private final Object appendLock = new Object();
+	private final Object syncLock = new Object();
+
+	private volatile FileChannel channel;
+	private volatile long writtenSeq;
+	private long lastSeq;
+	private long durableSeq;
+	private volatile long bytesSinceSnapshot;
+	private volatile long snapshotSeq;
+	private volatile long lostSeq;
+	private int lastReplayed;
+
+	/**
+	 * SongJournal constructor, call {@link #recover()} before appending
+	 *
+	 * @param directory                directory for snapshots and journal segments
+	 * @param fsyncPolicy              when records are forced to disk
+	 * @param fsyncIntervalMillis      interval of the background fsync for {@link FsyncPolicy#BATCHED}
+	 * @param compactionThresholdBytes journal size after which a new snapshot gets written
+	 */
+	public SongJournal(@Value("${songrest.journal.directory:data/journal}") Path directory,
+					   @Value("${songrest.journal.fsync:BATCHED}") FsyncPolicy fsyncPolicy,
+					   @Value("${songrest.journal.fsync-interval-ms:10}") long fsyncIntervalMillis,
+					   @Value("${songrest.journal.compaction-threshold-bytes:67108864}") long compactionThresholdBytes) {
+		this.directory = directory;
+		this.fsyncPolicy = fsyncPolicy;
+		this.compactionThresholdBytes = compactionThresholdBytes;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "song-journal");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (fsyncPolicy == FsyncPolicy.BATCHED) {
+			executor.scheduleWithFixedDelay(() -> sync(writtenSeq), fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * loads the latest snapshot and replays the journal behind it, a torn record at the end gets cut off
+	 *
+	 * @return recovered catalog
+	 *
+	 * @throws IOException thrown, if the directory can't be read or written
+	 */
+	public Recovery recover() throws IOException {
+		long start = System.nanoTime();
+		Files.createDirectories(directory);
+
+		Map<Integer, Song> songs = new HashMap<>();
+		long snapshotSeq = 0;
+		boolean found = false;
+		for (long seq : sequenceNumbers(SNAPSHOT, true)) {
+			try {
+				songs = readSnapshot(snapshotPath(seq));
+				snapshotSeq = seq;
+				found = true;
+				break;
+			} catch (IOException e) {
+				log.error("snapshot " + snapshotPath(seq) + " is corrupted, trying an older one: " + e.getMessage());
+			}
+		}
+
+		lastSeq = snapshotSeq;
+		int replayed = 0;
+		bytesSinceSnapshot = 0;
+		for (long firstSeq : sequenceNumbers(SEGMENT, false)) {
+			Path segment = segmentPath(firstSeq);
+			long validBytes = replay(segment, songs);
+			replayed += lastReplayed;
+			found |= lastReplayed > 0;
+			bytesSinceSnapshot += validBytes;
+			if (validBytes < Files.size(segment)) {
+				log.warn("cutting off torn journal tail of " + segment + " at byte " + validBytes);
+				try (FileChannel torn = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+					torn.truncate(validBytes);
+				}
+			}
+		}
+
+		writtenSeq = lastSeq;
+		durableSeq = lastSeq;
+		this.snapshotSeq = snapshotSeq;
+		channel = openSegment(lastSeq + 1);
+
+		List<Song> recovered = new ArrayList<>(songs.values());
+		recovered.sort(Comparator.comparingInt(Song::getId));
+		Recovery recovery = new Recovery(recovered, !found, replayed, System.nanoTime() - start);
+		log.info("recovered " + recovered.size() + " Songs from snapshot " + snapshotSeq + " and " + replayed + " journal records in " + recovery.getDurationNanos() / 1_000_000 + " ms");
+		return recovery;
+	}
+
+	/**
+	 * starts the records of one change of the catalog
+	 *
+	 * @return empty Records
+	 */
+	public Records records() {
+		return new Records();
+	}
+
+	/**
+	 * numbers the records behind all records numbered before, has to be called under the write lock of the store
+	 * <p>
+	 * as the last step of the change, so every numbered record gets written
+	 *
+	 * @param records records of one change
+	 *
+	 * @return sequence number of the last record, of the last record before if there is none
+	 */
+	public long sequence(Records records) {
+		records.firstSeq = lastSeq + 1;
+		for (int start : records.starts) {
+			records.buffer.patchLong(start + Integer.BYTES + 1, ++lastSeq);
+		}
+		records.lastSeq = lastSeq;
+		return lastSeq;
+	}
+
+	/**
+	 * writes numbered records after all records numbered before them, without the write lock of the store
+	 * <p>
+	 * if writing fails, the segment is cut back to the end of the record before, so the records behind can still be
+	 * <p>
+	 * recovered. the change is lost for the journal then, so it asks for a new snapshot by {@link #needsCompaction()}
+	 *
+	 * @param records records numbered by {@link #sequence(Records)}
+	 *
+	 * @throws UncheckedIOException thrown, if the records couldn't be written
+	 */
+	public void write(Records records) {
+		if (records.starts.isEmpty()) {
+			return;
+		}
+		// outside of the append lock, writers compute their checksums in parallel
+		records.checksum();
+		boolean interrupted = false;
+		synchronized (appendLock) {
+			try {
+				while (writtenSeq < records.firstSeq - 1) {
+					try {
+						appendLock.wait();
+					} catch (InterruptedException e) {
+						// the records behind wait for these ones, so they are written anyway
+						interrupted = true;
+					}
+				}
+				append(records);
+			} catch (IOException e) {
+				lostSeq = records.lastSeq;
+				throw new UncheckedIOException(e);
+			} finally {
+				writtenSeq = records.lastSeq;
+				appendLock.notifyAll();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * waits until the record with the sequence number is on disk, if the fsync policy asks for it
+	 *
+	 * @param seq sequence number of the record
+	 */
+	public void awaitDurable(long seq) {
+		if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+			sync(seq);
+		}
+	}
+
+	/**
+	 * @return boolean, if the journal grew big enough to write a new snapshot or lost records of the catalog
+	 */
+	public boolean needsCompaction() {
+		return lostSeq > snapshotSeq || bytesSinceSnapshot > compactionThresholdBytes;
+	}
+
+	/**
+	 * runs a checkpoint on the background thread, unless one is running already
+	 *
+	 * @param checkpoint calls {@link #rotate()} and {@link #writeSnapshot(Collection, long)}
+	 */
+	public void compactInBackground(Runnable checkpoint) {
+		if (compacting.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				try {
+					checkpoint.run();
+				} catch (RuntimeException e) {
+					log.error("writing a snapshot failed: " + e.getMessage());
+				} finally {
+					compacting.set(false);
+				}
+			});
+		}
+	}
+
+	/**
+	 * closes the current segment and starts a new one, has to be called under the write lock of the store. records
+	 * <p>
+	 * numbered before but not written yet go into the new segment, recovery skips them behind the snapshot
+	 *
+	 * @return sequence number of the last numbered record, the snapshot has to contain all records up to it
+	 */
+	public long rotate() {
+		synchronized (appendLock) {
+			synchronized (syncLock) {
+				try {
+					channel.force(false);
+					durableSeq = writtenSeq;
+					channel.close();
+					channel = openSegment(lastSeq + 1);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				bytesSinceSnapshot = 0;
+				return lastSeq;
+			}
+		}
+	}
+
+	/**
+	 * writes a snapshot of the catalog and deletes everything it replaces
+	 *
+	 * @param songs all songs up to and including record seq
+	 * @param seq   sequence number returned by {@link #rotate()}
+	 *
+	 * @throws IOException thrown, if the snapshot can't be written
+	 */
+	public void writeSnapshot(Collection<Song> songs, long seq) throws IOException {
+		long start = System.nanoTime();
+		Path tmp = directory.resolve("snapshot-" + seq + ".tmp");
+		CRC32 checksum = new CRC32();
+		try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(file), checksum), 1 << 16));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeLong(seq);
+			out.writeInt(songs.size());
+			for (Song song : songs) {
+				writeSong(out, song);
+			}
+			out.flush();
+			out.writeInt((int) checksum.getValue());
+			out.flush();
+			file.force(true);
+		}
+		Files.move(tmp, snapshotPath(seq), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		snapshotSeq = seq;
+
+		// the new snapshot replaces older snapshots and all segments before the current one
+		for (long older : sequenceNumbers(SNAPSHOT, false)) {
+			if (older < seq) {
+				Files.deleteIfExists(snapshotPath(older));
+			}
+		}
+		for (long firstSeq : sequenceNumbers(SEGMENT, false)) {
+			if (firstSeq <= seq) {
+				Files.deleteIfExists(segmentPath(firstSeq));
+			}
+		}
+		log.info("snapshot of " + songs.size() + " Songs up to record " + seq + " written in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+	/**
+	 * forces all records to disk and closes the journal
+	 */
+	@Override
+	@PreDestroy
+	public void close() {
+		executor.shutdown();
+		synchronized (appendLock) {
+			synchronized (syncLock) {
+				if (channel != null && channel.isOpen()) {
+					sync(writtenSeq);
+					try {
+						channel.close();
+					} catch (IOException e) {
+						log.error("closing the journal failed: " + e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * writes the records into the current segment, cuts a partly written record off again
+	 */
+	private void append(Records records) throws IOException {
+		FileChannel segment = channel;
+		long validBytes = segment.size();
+		ByteBuffer bytes = ByteBuffer.wrap(records.buffer.buffer(), 0, records.buffer.size());
+		try {
+			while (bytes.hasRemaining()) {
+				segment.write(bytes);
+			}
+		} catch (IOException e) {
+			try {
+				segment.truncate(validBytes);
+				log.error("writing journal records " + records.firstSeq + " to " + records.lastSeq + " failed, cut the segment back to byte " + validBytes + ": " + e.getMessage());
+			} catch (IOException truncateFailed) {
+				log.error("writing journal records " + records.firstSeq + " to " + records.lastSeq + " failed and the segment can't be cut back: " + truncateFailed.getMessage());
+			}
+			throw e;
+		}
+		bytesSinceSnapshot += bytes.limit();
+	}
+
+	/**
+	 * forces everything written so far to disk, unless another writer already did it for seq (group commit)
+	 */
+	private void sync(long seq) {
+		synchronized (syncLock) {
+			if (durableSeq >= seq || channel == null || !channel.isOpen()) {
+				return;
+			}
+			long target = writtenSeq;
+			try {
+				channel.force(false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			durableSeq = target;
+		}
+	}
+
+	/**
+	 * applies all valid records of a segment behind lastSeq
+	 *
+	 * @return number of bytes up to the end of the last valid record
+	 */
+	private long replay(Path segment, Map<Integer, Song> songs) throws IOException {
+		lastReplayed = 0;
+		long validBytes = 0;
+		CRC32 checksum = new CRC32();
+		try (InputStream file = new BufferedInputStream(Files.newInputStream(segment), 1 << 16)) {
+			DataInputStream in = new DataInputStream(file);
+			while (true) {
+				int length;
+				byte[] body;
+				int storedCrc;
+				try {
+					length = in.readInt();
+					if (length < 9 || length > MAX_RECORD_LENGTH) {
+						return validBytes;
+					}
+					body = new byte[length];
+					in.readFully(body);
+					storedCrc = in.readInt();
+				} catch (EOFException e) {
+					return validBytes;
+				}
+				checksum.reset();
+				checksum.update(body);
+				if ((int) checksum.getValue() != storedCrc) {
+					return validBytes;
+				}
+
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+				byte type = record.readByte();
+				long seq = record.readLong();
+				if (seq > lastSeq) {
+					apply(type, record, songs);
+					lastSeq = seq;
+					lastReplayed++;
+				}
+				validBytes += Integer.BYTES + length + Integer.BYTES;
+			}
+		}
+	}
+
+	private static void apply(byte type, DataInput record, Map<Integer, Song> songs) throws IOException {
+		switch (type) {
+			case ADD:
+				Song song = readSong(record);
+				songs.put(song.getId(), song);
+				break;
+			case ADD_ALL:
+				int count = record.readInt();
+				for (int i = 0; i < count; i++) {
+					Song added = readSong(record);
+					songs.put(added.getId(), added);
+				}
+				break;
+			case DELETE:
+				songs.remove(record.readInt());
+				break;
+			case RESET:
+				songs.clear();
+				break;
+			default:
+				throw new IOException("unknown journal record type " + type);
+		}
+	}
+
+	private static Map<Integer, Song> readSnapshot(Path snapshot) throws IOException {
+		CRC32 checksum = new CRC32();
+		try (InputStream file = Files.newInputStream(snapshot)) {
+			CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, 1 << 16), checksum);
+			DataInputStream in = new DataInputStream(checked);
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("not a song snapshot");
+			}
+			in.readLong();
+			int count = in.readInt();
+			Map<Integer, Song> songs = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+			for (int i = 0; i < count; i++) {
+				Song song = readSong(in);
+				songs.put(song.getId(), song);
+			}
+			long expected = checksum.getValue();
+			if ((int) expected != in.readInt()) {
+				throw new IOException("checksum mismatch");
+			}
+			return songs;
+		}
+	}
+
+	private static void writeSong(DataOutput out, Song song) throws IOException {
+		out.writeInt(song.getId());
+		out.writeInt(song.getReleased());
+		writeString(out, song.getTitle());
+		writeString(out, song.getArtist());
+		writeString(out, song.getLabel());
+	}
+
+	private static Song readSong(DataInput in) throws IOException {
+		int id = in.readInt();
+		int released = in.readInt();
+		return new Song(id, readString(in), readString(in), readString(in), released);
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > MAX_RECORD_LENGTH) {
+			throw new IOException("invalid string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private FileChannel openSegment(long firstSeq) throws IOException {
+		return FileChannel.open(segmentPath(firstSeq), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private Path segmentPath(long firstSeq) {
+		return directory.resolve("journal-" + firstSeq + ".log");
+	}
+
+	private Path snapshotPath(long seq) {
+		return directory.resolve("snapshot-" + seq + ".bin");
+	}
+
+	/**
+	 * sequence numbers in the names of all files matching the pattern
+	 */
+	private List<Long> sequenceNumbers(Pattern pattern, boolean descending) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			Comparator<Long> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+			return files.map(path -> pattern.matcher(path.getFileName().toString()))
+					.filter(Matcher::matches)
+					.map(matcher -> Long.parseLong(matcher.group(1)))
+					.sorted(order)
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * ByteArrayOutputStream giving access to its buffer, so records can be written without copying
+	 */
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+		private byte[] buffer() {
+			return buf;
+		}
+
+		private void patchInt(int position, int value) {
+			buf[position] = (byte) (value >>> 24);
+			buf[position + 1] = (byte) (value >>> 16);
+			buf[position + 2] = (byte) (value >>> 8);
+			buf[position + 3] = (byte) value;
+		}
+
+		private void patchLong(int position, long value) {
+			patchInt(position, (int) (value >>> 32));
+			patchInt(position + Integer.BYTES, (int) value);
+		}
+	}
+
+	/**
+	 * records of one change of the catalog, encoded before {@link #sequence(Records)} without sequence numbers and
+	 * <p>
+	 * checksums, those are filled in when they get numbered and written
+	 */
+	public static final class Records {
+		private final RecordBuffer buffer = new RecordBuffer();
+		private final DataOutputStream out = new DataOutputStream(buffer);
+		private final List<Integer> starts = new ArrayList<>();
+		private long firstSeq;
+		private long lastSeq;
+
+		private Records() {
+		}
+
+		/**
+		 * adds a record for an added or replaced song
+		 *
+		 * @param song Song
+		 *
+		 * @return these Records
+		 */
+		public Records add(Song song) {
+			try {
+				begin(ADD);
+				writeSong(out, song);
+				end();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return this;
+		}
+
+		/**
+		 * adds one record for several added or replaced songs, recovery applies all or none of them
+		 *
+		 * @param songs Songs in order
+		 *
+		 * @return these Records
+		 *
+		 * @throws IllegalArgumentException thrown, if the songs don't fit into one record, the Records can't be used then
+		 */
+		public Records addAll(List<Song> songs) {
+			try {
+				begin(ADD_ALL);
+				out.writeInt(songs.size());
+				for (Song song : songs) {
+					writeSong(out, song);
+				}
+				end();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return this;
+		}
+
+		/**
+		 * adds a record for a deleted song
+		 *
+		 * @param id id of Song
+		 *
+		 * @return these Records
+		 */
+		public Records delete(int id) {
+			try {
+				begin(DELETE);
+				out.writeInt(id);
+				end();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return this;
+		}
+
+		/**
+		 * adds a record for a cleared catalog
+		 *
+		 * @return these Records
+		 */
+		public Records reset() {
+			try {
+				begin(RESET);
+				end();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return this;
+		}
+
+		/**
+		 * @return sequence number of the last record, set by {@link #sequence(Records)}
+		 */
+		public long getLastSeq() {
+			return lastSeq;
+		}
+
+		private void begin(byte type) throws IOException {
+			starts.add(buffer.size());
+			// length, sequence number and checksum are patched in later
+			out.writeInt(0);
+			out.writeByte(type);
+			out.writeLong(0);
+		}
+
+		private void end() throws IOException {
+			int start = starts.get(starts.size() - 1);
+			int bodyLength = buffer.size() - start - Integer.BYTES;
+			if (bodyLength > MAX_RECORD_LENGTH) {
+				// recovery would take the record for a torn one
+				throw new IllegalArgumentException("journal record of " + bodyLength + " bytes is too big");
+			}
+			out.writeInt(0);
+			buffer.patchInt(start, bodyLength);
+		}
+
+		private void checksum() {
+			CRC32 crc = new CRC32();
+			for (int start : starts) {
+				int bodyLength = readInt(start);
+				crc.reset();
+				crc.update(buffer.buffer(), start + Integer.BYTES, bodyLength);
+				buffer.patchInt(start + Integer.BYTES + bodyLength, (int) crc.getValue());
+			}
+		}
+
+		private int readInt(int position) {
+			byte[] bytes = buffer.buffer();
+			return (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16
+					| (bytes[position + 2] & 0xFF) << 8 | bytes[position + 3] & 0xFF;
+		}
+	}
+
+	/**
+	 * result of a recovery
+	 */
+	public static final class Recovery {
+		private final List<Song> songs;
+		private final boolean empty;
+		private final int replayedRecords;
+		private final long durationNanos;
+
+		Recovery(List<Song> songs, boolean empty, int replayedRecords, long durationNanos) {
+			this.songs = songs;
+			this.empty = empty;
+			this.replayedRecords = replayedRecords;
+			this.durationNanos = durationNanos;
+		}
+
+		/**
+		 * @return recovered songs in id order
+		 */
+		public List<Song> getSongs() {
+			return songs;
+		}
+
+		/**
+		 * @return boolean, true if there was neither a snapshot nor a journal record
+		 */
+		public boolean isEmpty() {
+			return empty;
+		}
+
+		/**
+		 * @return number of journal records replayed on top of the snapshot
+		 */
+		public int getReplayedRecords() {
+			return replayedRecords;
+		}
+
+		/**
+		 * @return duration of the recovery in nanoseconds
+		 */
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+	}
+}
@@ -0,0 +1,343 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * read-only song catalog in a compact binary file, memory-mapped and read without parsing
+ * <p>
+ * the file holds fixed-width int columns (id, released and references into the string tables) sorted by id,
+ * <p>
+ * followed by one dictionary-encoded string table each for title, artist and label. Song objects are only created
+ * <p>
+ * when a row is requested. the whole file has to fit into one mapping (2 GB)
+ */
+public final class MappedSongCatalog {
+
+	private static final int MAGIC = 0x534F4E43;
+	private static final int VERSION = 1;
+
+	/**
+	 * magic, version, count and the offsets of the three string tables
+	 */
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+	private static final int COLUMNS = 5;
+
+	private static final int ID = 0;
+	private static final int RELEASED = 1;
+	private static final int TITLE = 2;
+	private static final int ARTIST = 3;
+	private static final int LABEL = 4;
+
+	private final ByteBuffer buffer;
+	private final int count;
+	private final StringTable titles;
+	private final StringTable artists;
+	private final StringTable labels;
+
+	private MappedSongCatalog(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("not a binary song catalog");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("unsupported catalog version " + buffer.getInt(4));
+		}
+		count = buffer.getInt(8);
+		if (count < 0 || HEADER_SIZE + (long) COLUMNS * count * Integer.BYTES > buffer.capacity()) {
+			throw new IOException("catalog is truncated");
+		}
+		titles = new StringTable(buffer, buffer.getInt(12));
+		artists = new StringTable(buffer, buffer.getInt(16));
+		labels = new StringTable(buffer, buffer.getInt(20));
+	}
+
+	/**
+	 * maps a catalog file read-only into memory
+	 *
+	 * @param file path of the binary catalog
+	 *
+	 * @return catalog backed by the mapping
+	 *
+	 * @throws IOException thrown, if the file can't be read or isn't a valid catalog
+	 */
+	public static MappedSongCatalog open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("catalog " + file + " is bigger than 2 GB");
+			}
+			// the mapping stays valid after the channel is closed
+			return new MappedSongCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * writes songs as binary catalog, of songs with the same id the last one is kept
+	 *
+	 * @param songs songs in any order
+	 * @param file  target path, replaced atomically
+	 *
+	 * @return number of songs written
+	 *
+	 * @throws IOException thrown, if the file can't be written or would exceed 2 GB
+	 */
+	public static int write(Collection<Song> songs, Path file) throws IOException {
+		Map<Integer, Song> byId = new TreeMap<>();
+		songs.forEach(song -> byId.put(song.getId(), song));
+
+		Map<String, Integer> titleTable = new LinkedHashMap<>();
+		Map<String, Integer> artistTable = new LinkedHashMap<>();
+		Map<String, Integer> labelTable = new LinkedHashMap<>();
+		int[][] columns = new int[COLUMNS][byId.size()];
+		int row = 0;
+		for (Song song : byId.values()) {
+			columns[ID][row] = song.getId();
+			columns[RELEASED][row] = song.getReleased();
+			columns[TITLE][row] = titleTable.computeIfAbsent(song.getTitle(), s -> titleTable.size());
+			columns[ARTIST][row] = artistTable.computeIfAbsent(song.getArtist(), s -> artistTable.size());
+			columns[LABEL][row] = labelTable.computeIfAbsent(song.getLabel(), s -> labelTable.size());
+			row++;
+		}
+
+		List<byte[]> titleBytes = encode(titleTable.keySet());
+		List<byte[]> artistBytes = encode(artistTable.keySet());
+		List<byte[]> labelBytes = encode(labelTable.keySet());
+		long titlesOffset = HEADER_SIZE + (long) COLUMNS * row * Integer.BYTES;
+		long artistsOffset = titlesOffset + StringTable.sizeOf(titleBytes);
+		long labelsOffset = artistsOffset + StringTable.sizeOf(artistBytes);
+		if (labelsOffset + StringTable.sizeOf(labelBytes) > Integer.MAX_VALUE) {
+			throw new IOException("catalog would be bigger than 2 GB");
+		}
+
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(row);
+			out.writeInt((int) titlesOffset);
+			out.writeInt((int) artistsOffset);
+			out.writeInt((int) labelsOffset);
+			for (int[] column : columns) {
+				for (int value : column) {
+					out.writeInt(value);
+				}
+			}
+			StringTable.write(out, titleBytes);
+			StringTable.write(out, artistBytes);
+			StringTable.write(out, labelBytes);
+		}
+		Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return row;
+	}
+
+	/**
+	 * @return number of songs
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * binary search over the id column
+	 *
+	 * @param id id of Song
+	 *
+	 * @return row of the song, or (-(insertion point) - 1) like {@link java.util.Arrays#binarySearch(int[], int)}
+	 */
+	public int indexOf(int id) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleId = idAt(middle);
+			if (middleId < id) {
+				low = middle + 1;
+			} else if (middleId > id) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * first row with an id bigger than afterId
+	 *
+	 * @param afterId exclusive lower bound
+	 *
+	 * @return row, size() if there is none
+	 */
+	public int firstRowAfter(long afterId) {
+		if (afterId < Integer.MIN_VALUE) {
+			return 0;
+		}
+		if (afterId >= Integer.MAX_VALUE) {
+			return count;
+		}
+		int row = indexOf((int) afterId);
+		return row >= 0 ? row + 1 : -row - 1;
+	}
+
+	/**
+	 * @param row row
+	 *
+	 * @return id of the song in row
+	 */
+	public int idAt(int row) {
+		return column(ID, row);
+	}
+
+	/**
+	 * @param row row
+	 *
+	 * @return release year of the song in row
+	 */
+	public int releasedAt(int row) {
+		return column(RELEASED, row);
+	}
+
+	/**
+	 * creates the Song of a row, every call returns a new object
+	 *
+	 * @param row row
+	 *
+	 * @return Song
+	 */
+	public Song songAt(int row) {
+		return new Song(idAt(row), titles.get(column(TITLE, row)), artists.get(column(ARTIST, row)),
+				labels.get(column(LABEL, row)), releasedAt(row));
+	}
+
+	/**
+	 * checks a row against a query by comparing string table references, without creating the Song
+	 *
+	 * @param row            row
+	 * @param matchingArtist artist table entries matching the query, null if the query has no artist
+	 * @param matchingLabel  label table entries matching the query, null if the query has no label
+	 * @param query          query for the release years
+	 *
+	 * @return boolean, matches or not
+	 */
+	public boolean matches(int row, BitSet matchingArtist, BitSet matchingLabel, SongQuery query) {
+		if (matchingArtist != null && !matchingArtist.get(column(ARTIST, row))) {
+			return false;
+		}
+		if (matchingLabel != null && !matchingLabel.get(column(LABEL, row))) {
+			return false;
+		}
+		int released = releasedAt(row);
+		return (query.getReleasedFrom() == null || released >= query.getReleasedFrom())
+				&& (query.getReleasedTo() == null || released <= query.getReleasedTo());
+	}
+
+	/**
+	 * @param artist artist name, compared case insensitive
+	 *
+	 * @return artist table entries with that name
+	 */
+	public BitSet artistsNamed(String artist) {
+		return artists.entriesMatching(SongQuery.normalize(artist));
+	}
+
+	/**
+	 * @param label label name, compared case insensitive
+	 *
+	 * @return label table entries with that name
+	 */
+	public BitSet labelsNamed(String label) {
+		return labels.entriesMatching(SongQuery.normalize(label));
+	}
+
+	private int column(int column, int row) {
+		return buffer.getInt(HEADER_SIZE + (column * count + row) * Integer.BYTES);
+	}
+
+	private static List<byte[]> encode(Collection<String> strings) {
+		List<byte[]> encoded = new ArrayList<>(strings.size());
+		strings.forEach(s -> encoded.add(s.getBytes(StandardCharsets.UTF_8)));
+		return encoded;
+	}
+
+	/**
+	 * string table: entry count, entry count + 1 byte offsets into the data, UTF-8 data
+	 */
+	private static final class StringTable {
+		private final ByteBuffer buffer;
+		private final int entries;
+		private final int offsets;
+		private final int data;
+
+		private StringTable(ByteBuffer buffer, int position) throws IOException {
+			if (position < HEADER_SIZE || position > buffer.capacity() - Integer.BYTES) {
+				throw new IOException("catalog is truncated");
+			}
+			this.buffer = buffer;
+			this.entries = buffer.getInt(position);
+			this.offsets = position + Integer.BYTES;
+			this.data = offsets + (entries + 1) * Integer.BYTES;
+			if (entries < 0 || data > buffer.capacity() || data + (long) buffer.getInt(offsets + entries * Integer.BYTES) > buffer.capacity()) {
+				throw new IOException("catalog is truncated");
+			}
+		}
+
+		private String get(int entry) {
+			int start = buffer.getInt(offsets + entry * Integer.BYTES);
+			int end = buffer.getInt(offsets + (entry + 1) * Integer.BYTES);
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(data + start + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private BitSet entriesMatching(String normalized) {
+			BitSet matching = new BitSet(entries);
+			for (int entry = 0; entry < entries; entry++) {
+				if (SongQuery.normalize(get(entry)).equals(normalized)) {
+					matching.set(entry);
+				}
+			}
+			return matching;
+		}
+
+		private static long sizeOf(List<byte[]> strings) {
+			long size = Integer.BYTES + (strings.size() + 1L) * Integer.BYTES;
+			for (byte[] string : strings) {
+				size += string.length;
+			}
+			return size;
+		}
+
+		private static void write(DataOutputStream out, List<byte[]> strings) throws IOException {
+			out.writeInt(strings.size());
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] string : strings) {
+				offset += string.length;
+				out.writeInt(offset);
+			}
+			for (byte[] string : strings) {
+				out.write(string);
+			}
+		}
+	}
+}
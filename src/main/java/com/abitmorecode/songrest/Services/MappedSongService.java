@@ -0,0 +1,318 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * SongsManager serving a memory-mapped binary catalog (see {@link MappedSongCatalog} and {@link SongCatalogConverter})
+ * <p>
+ * startup only maps the file, songs are created from the mapping when a request needs them. added songs and
+ * <p>
+ * deleted catalog songs are kept in immutable overlays in memory, they are lost on restart
+ */
+@Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "mapped")
+public class MappedSongService implements SongsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(MappedSongService.class);
+
+	private final MappedSongCatalog catalog;
+
+	/**
+	 * current overlay over the catalog, replaced atomically on every write
+	 */
+	private volatile Overlay overlay;
+
+	/**
+	 * used and free ids, built on the first id collision, guarded by writeLock
+	 */
+	private FreeIdAllocator usedIds;
+
+	private final Object writeLock = new Object();
+	private final SongVersions versions = new SongVersions();
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+	private final SongMetrics metrics;
+
+	/**
+	 * constructor, maps the catalog file
+	 *
+	 * @param catalogPath   binary catalog written by {@link SongCatalogConverter}
+	 * @param meterRegistry registry for the catalog meters
+	 *
+	 * @throws IOException thrown, if the catalog can't be mapped
+	 */
+	@Autowired
+	public MappedSongService(@Value("${songrest.catalog.mapped-path:data/songs.bin}") Path catalogPath, MeterRegistry meterRegistry) throws IOException {
+		long start = System.nanoTime();
+		catalog = MappedSongCatalog.open(catalogPath);
+		overlay = new Overlay(true, SongSnapshot.empty(), SongSnapshot.empty());
+		long duration = System.nanoTime() - start;
+
+		metrics = new SongMetrics(meterRegistry);
+		metrics.bindCatalogSize(this, s -> s.overlay.size(s.catalog));
+		metrics.catalogLoaded(duration);
+		log.info(catalog.size() + " Songs mapped from " + catalogPath + " in " + duration / 1_000 + " µs");
+	}
+
+	@Override
+	public Song getSpecificSong(int id) throws SongDoesntExistException {
+		Song song = find(overlay, id);
+		if (song != null) {
+			return song;
+		}
+		metrics.songNotFound();
+		throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+	}
+
+	@Override
+	public List<Song> getAllSongs() {
+		Overlay current = overlay;
+		if (current.isUnchanged()) {
+			return new CatalogList(catalog);
+		}
+		return Collections.unmodifiableList(after(current, Long.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		return after(overlay, afterId, limit);
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		Overlay current = overlay;
+		List<Song> fromCatalog = new ArrayList<>();
+		if (current.catalogVisible) {
+			BitSet artists = query.getArtist() == null ? null : catalog.artistsNamed(query.getArtist());
+			BitSet labels = query.getLabel() == null ? null : catalog.labelsNamed(query.getLabel());
+			for (int row = 0; row < catalog.size(); row++) {
+				if (catalog.matches(row, artists, labels, query) && !current.deleted.contains(catalog.idAt(row))) {
+					fromCatalog.add(catalog.songAt(row));
+				}
+			}
+		}
+		List<Song> fromOverlay = new ArrayList<>();
+		for (Song song : current.added.asList()) {
+			if (query.matches(song)) {
+				fromOverlay.add(song);
+			}
+		}
+		return mergeById(fromCatalog, fromOverlay, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * adds a Song Object to the overlay
+	 *
+	 * @param song Song
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	@Override
+	public void addSong(Song song) throws NoIdAvailableException {
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			if (find(overlay, song.getId()) != null) {
+				int oldId = song.getId();
+				int newId = usedIds().firstUnusedId();
+				song.setId(newId);
+				metrics.idReassigned();
+				log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + newId + " instead");
+			}
+			overlay = new Overlay(overlay.catalogVisible, overlay.added.with(song), overlay.deleted);
+			if (usedIds != null) {
+				usedIds.markUsed(song.getId());
+			}
+			versions.changed(song.getId());
+		}
+		log.info(song.getTitle() + " was added");
+	}
+
+	@Override
+	public void deleteSong(int id) throws SongDoesntExistException {
+		Song song;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			Overlay current = overlay;
+			song = find(current, id);
+			if (song != null) {
+				if (current.added.contains(id)) {
+					overlay = new Overlay(current.catalogVisible, current.added.without(id), current.deleted);
+				} else {
+					overlay = new Overlay(current.catalogVisible, current.added, current.deleted.with(song));
+				}
+				removalListeners.songRemoved(id);
+				if (usedIds != null) {
+					usedIds.markFree(id);
+				}
+				versions.removed(id);
+			}
+		}
+		if (song == null) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		log.info(song.getTitle() + " was removed");
+	}
+
+	@Override
+	public void reset() {
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			overlay = new Overlay(false, SongSnapshot.empty(), SongSnapshot.empty());
+			removalListeners.allSongsRemoved();
+			if (usedIds != null) {
+				usedIds.clear();
+			}
+			versions.changedAll();
+		}
+		log.info("song list got cleared");
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public SongVersions getVersions() {
+		return versions;
+	}
+
+	/**
+	 * looks a song up in the overlay first, then in the catalog
+	 */
+	private Song find(Overlay current, int id) {
+		Song song = current.added.find(id);
+		if (song != null || !current.catalogVisible || current.deleted.contains(id)) {
+			return song;
+		}
+		int row = catalog.indexOf(id);
+		return row >= 0 ? catalog.songAt(row) : null;
+	}
+
+	/**
+	 * merges the catalog rows and the added songs behind afterId
+	 */
+	private List<Song> after(Overlay current, long afterId, int limit) {
+		List<Song> fromCatalog = new ArrayList<>();
+		if (current.catalogVisible) {
+			for (int row = catalog.firstRowAfter(afterId); row < catalog.size() && fromCatalog.size() < limit; row++) {
+				if (!current.deleted.contains(catalog.idAt(row))) {
+					fromCatalog.add(catalog.songAt(row));
+				}
+			}
+		}
+		return mergeById(fromCatalog, current.added.after(afterId, limit), limit);
+	}
+
+	private static List<Song> mergeById(List<Song> first, List<Song> second, int limit) {
+		List<Song> merged = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+		int i = 0;
+		int j = 0;
+		while (merged.size() < limit && (i < first.size() || j < second.size())) {
+			if (j == second.size() || (i < first.size() && first.get(i).getId() < second.get(j).getId())) {
+				merged.add(first.get(i++));
+			} else {
+				merged.add(second.get(j++));
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * has to be called while holding the write lock
+	 */
+	private FreeIdAllocator usedIds() {
+		if (usedIds == null) {
+			usedIds = new FreeIdAllocator();
+			Overlay current = overlay;
+			if (current.catalogVisible) {
+				for (int row = 0; row < catalog.size(); row++) {
+					int id = catalog.idAt(row);
+					if (!current.deleted.contains(id)) {
+						usedIds.markUsed(id);
+					}
+				}
+			}
+			current.added.asList().forEach(song -> usedIds.markUsed(song.getId()));
+		}
+		return usedIds;
+	}
+
+	/**
+	 * immutable changes on top of the catalog
+	 */
+	private static final class Overlay {
+		/**
+		 * false after a reset
+		 */
+		private final boolean catalogVisible;
+		/**
+		 * added songs, their ids are never used by a visible catalog row
+		 */
+		private final SongSnapshot added;
+		/**
+		 * deleted catalog songs
+		 */
+		private final SongSnapshot deleted;
+
+		private Overlay(boolean catalogVisible, SongSnapshot added, SongSnapshot deleted) {
+			this.catalogVisible = catalogVisible;
+			this.added = added;
+			this.deleted = catalogVisible ? deleted : SongSnapshot.empty();
+		}
+
+		private boolean isUnchanged() {
+			return catalogVisible && added.isEmpty() && deleted.isEmpty();
+		}
+
+		private int size(MappedSongCatalog catalog) {
+			return (catalogVisible ? catalog.size() - deleted.size() : 0) + added.size();
+		}
+	}
+
+	/**
+	 * List view of the unchanged catalog, creates every Song on access
+	 */
+	private static final class CatalogList extends AbstractList<Song> implements RandomAccess {
+		private final MappedSongCatalog catalog;
+
+		private CatalogList(MappedSongCatalog catalog) {
+			this.catalog = catalog;
+		}
+
+		@Override
+		public Song get(int index) {
+			if (index < 0 || index >= catalog.size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + catalog.size());
+			}
+			return catalog.songAt(index);
+		}
+
+		@Override
+		public int size() {
+			return catalog.size();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.abitmorecode.songrest.Services;
+
+import java.nio.ByteBuffer;
+
+/**
+ * open addressing hash map from song id to record address, stored in a direct ByteBuffer outside of the heap
+ * <p>
+ * same probing and backward shift deletion as {@link IntIntHashMap}. an entry is the int key followed by the long
+ * <p>
+ * address + 1, so a zeroed slot is empty. holds up to about 80 million entries. not thread safe
+ */
+public class OffHeapIdIndex {
+
+	private static final int ENTRY_BYTES = Integer.BYTES + Long.BYTES;
+	private static final float LOAD_FACTOR = 0.6f;
+	private static final int MAX_CAPACITY = 1 << 27;
+
+	private ByteBuffer table;
+	private int capacity;
+	private int size;
+	private int resizeAt;
+
+	/**
+	 * OffHeapIdIndex constructor
+	 *
+	 * @param expectedSize expected number of entries
+	 */
+	public OffHeapIdIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * @param id id of Song
+	 *
+	 * @return address of the record, -1 if there is none
+	 */
+	public long get(int id) {
+		int mask = capacity - 1;
+		for (int slot = hash(id) & mask; isUsed(slot); slot = (slot + 1) & mask) {
+			if (keyAt(slot) == id) {
+				return addressAt(slot);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * puts an address, replacing the old one
+	 *
+	 * @param id      id of Song
+	 * @param address non negative address of the record
+	 *
+	 * @return old address, -1 if there was none
+	 */
+	public long put(int id, long address) {
+		int mask = capacity - 1;
+		int slot = hash(id) & mask;
+		for (; isUsed(slot); slot = (slot + 1) & mask) {
+			if (keyAt(slot) == id) {
+				long old = addressAt(slot);
+				write(slot, id, address);
+				return old;
+			}
+		}
+		write(slot, id, address);
+		if (++size >= resizeAt) {
+			rehash(capacity * 2);
+		}
+		return -1;
+	}
+
+	/**
+	 * removes an id
+	 *
+	 * @param id id of Song
+	 *
+	 * @return removed address, -1 if there was none
+	 */
+	public long remove(int id) {
+		int mask = capacity - 1;
+		for (int slot = hash(id) & mask; isUsed(slot); slot = (slot + 1) & mask) {
+			if (keyAt(slot) == id) {
+				long old = addressAt(slot);
+				shiftBack(slot);
+				size--;
+				return old;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * removes all entries and gives the memory back
+	 */
+	public void clear() {
+		allocate(capacityFor(0));
+		size = 0;
+	}
+
+	/**
+	 * closes the gap at slot by moving following entries of the same probe chain back
+	 */
+	private void shiftBack(int gap) {
+		int mask = capacity - 1;
+		int slot = (gap + 1) & mask;
+		while (isUsed(slot)) {
+			int home = hash(keyAt(slot)) & mask;
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				write(gap, keyAt(slot), addressAt(slot));
+				gap = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table.putLong(gap * ENTRY_BYTES + Integer.BYTES, 0);
+	}
+
+	private void rehash(int newCapacity) {
+		if (newCapacity > MAX_CAPACITY) {
+			throw new IllegalStateException("off-heap id index is full");
+		}
+		ByteBuffer old = table;
+		int oldCapacity = capacity;
+		allocate(newCapacity);
+		size = 0;
+		for (int slot = 0; slot < oldCapacity; slot++) {
+			long stored = old.getLong(slot * ENTRY_BYTES + Integer.BYTES);
+			if (stored != 0) {
+				put(old.getInt(slot * ENTRY_BYTES), stored - 1);
+			}
+		}
+	}
+
+	private boolean isUsed(int slot) {
+		return table.getLong(slot * ENTRY_BYTES + Integer.BYTES) != 0;
+	}
+
+	private int keyAt(int slot) {
+		return table.getInt(slot * ENTRY_BYTES);
+	}
+
+	private long addressAt(int slot) {
+		return table.getLong(slot * ENTRY_BYTES + Integer.BYTES) - 1;
+	}
+
+	private void write(int slot, int id, long address) {
+		table.putInt(slot * ENTRY_BYTES, id);
+		table.putLong(slot * ENTRY_BYTES + Integer.BYTES, address + 1);
+	}
+
+	private void allocate(int newCapacity) {
+		// direct buffers are zeroed, so every slot starts empty
+		table = ByteBuffer.allocateDirect(newCapacity * ENTRY_BYTES);
+		capacity = newCapacity;
+		resizeAt = (int) (newCapacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		return Math.min(Math.max(capacity, 8), MAX_CAPACITY);
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
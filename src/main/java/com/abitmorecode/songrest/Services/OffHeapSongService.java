@@ -0,0 +1,251 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * SongsManager keeping the catalog outside of the heap in an {@link OffHeapSongStore}
+ * <p>
+ * the garbage collector doesn't have to trace the catalog anymore, only the Song objects of running requests.
+ * <p>
+ * songs are listed in id order by walking the used id ranges of the {@link FreeIdAllocator}. reads share a read
+ * <p>
+ * lock, writes take the write lock. the direct memory is limited by -XX:MaxDirectMemorySize
+ */
+@Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "offheap")
+public class OffHeapSongService implements SongsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(OffHeapSongService.class);
+
+	private final OffHeapSongStore store;
+	private final FreeIdAllocator usedIds = new FreeIdAllocator();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final SongVersions versions = new SongVersions();
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+	private final SongMetrics metrics;
+
+	/**
+	 * default constructor, registers the meters at the global registry and uses 64MB slabs
+	 */
+	public OffHeapSongService() {
+		this(Metrics.globalRegistry, DataSize.ofMegabytes(64));
+	}
+
+	/**
+	 * constructor, loads the default catalog
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param slabSize      size of the off-heap slabs, at most 2GB
+	 */
+	@Autowired
+	public OffHeapSongService(MeterRegistry meterRegistry, @Value("${songrest.offheap.slab-size:64MB}") DataSize slabSize) {
+		if (slabSize.toBytes() <= 0 || slabSize.toBytes() > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("songrest.offheap.slab-size has to be between 1B and 2GB");
+		}
+		store = new OffHeapSongStore((int) slabSize.toBytes(), 1024);
+		metrics = new SongMetrics(meterRegistry);
+		metrics.bindCatalogSize(this, OffHeapSongService::size);
+
+		try {
+			init(SongService.DEFAULT_CATALOG_PATH);
+		} catch (IOException e) {
+			log.error(Arrays.toString(e.getStackTrace()));
+		}
+	}
+
+	/**
+	 * loads a json catalog, songs with an existing id get replaced
+	 *
+	 * @param filepath file path to json file
+	 *
+	 * @throws IOException thrown, if file doesn't exist or file can't be read
+	 */
+	public void init(String filepath) throws IOException {
+		lock.writeLock().lock();
+		try {
+			SongJsonLoader.loadCatalog(Path.of(filepath), song -> {
+				if (store.put(song)) {
+					log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+				}
+				usedIds.markUsed(song.getId());
+			}, metrics, log);
+			versions.changedAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Song getSpecificSong(int id) throws SongDoesntExistException {
+		lock.readLock().lock();
+		try {
+			Song song = store.find(id);
+			if (song != null) {
+				return song;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		metrics.songNotFound();
+		throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+	}
+
+	@Override
+	public List<Song> getAllSongs() {
+		return Collections.unmodifiableList(getSongsAfter(Long.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * streams the songs page by page, the read lock is only held while a page is read
+	 *
+	 * @return lazy Stream of all Songs in id order
+	 */
+	@Override
+	public Stream<Song> streamAllSongs() {
+		return SongPages.stream(this);
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		lock.readLock().lock();
+		try {
+			List<Song> songs = new ArrayList<>(Math.min(limit, store.size()));
+			PrimitiveIterator.OfInt ids = usedIds.usedIdsAfter(afterId);
+			while (songs.size() < limit && ids.hasNext()) {
+				songs.add(store.find(ids.nextInt()));
+			}
+			return songs;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		lock.readLock().lock();
+		try {
+			List<Song> songs = new ArrayList<>();
+			PrimitiveIterator.OfInt ids = usedIds.usedIdsAfter(Long.MIN_VALUE);
+			while (ids.hasNext()) {
+				Song song = store.find(ids.nextInt());
+				if (query.matches(song)) {
+					songs.add(song);
+				}
+			}
+			return songs;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * adds a Song Object
+	 *
+	 * @param song Song
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	@Override
+	public void addSong(Song song) throws NoIdAvailableException {
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			if (store.contains(song.getId())) {
+				int oldId = song.getId();
+				int newId = usedIds.firstUnusedId();
+				song.setId(newId);
+				metrics.idReassigned();
+				log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + newId + " instead");
+			}
+			store.put(song);
+			usedIds.markUsed(song.getId());
+			versions.changed(song.getId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info(song.getTitle() + " was added");
+	}
+
+	@Override
+	public void deleteSong(int id) throws SongDoesntExistException {
+		Song song;
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			song = store.find(id);
+			if (song != null) {
+				store.remove(id);
+				removalListeners.songRemoved(id);
+				usedIds.markFree(id);
+				versions.removed(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (song == null) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		log.info(song.getTitle() + " was removed");
+	}
+
+	@Override
+	public void reset() {
+		long waitStart = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			store.clear();
+			removalListeners.allSongsRemoved();
+			usedIds.clear();
+			versions.changedAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("song list got cleared");
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public SongVersions getVersions() {
+		return versions;
+	}
+
+	private int size() {
+		lock.readLock().lock();
+		try {
+			return store.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * song records in direct ByteBuffer slabs outside of the heap, found through an {@link OffHeapIdIndex}
+ * <p>
+ * records are appended to the current slab: record length, id, released and title, artist and label as length
+ * <p>
+ * prefixed UTF-8, length -1 for null. a removed record is only marked as dead. a slab without live records goes back to the pool of
+ * <p>
+ * free slabs, a slab that is mostly dead gets compacted by moving its live records into the current slab. the heap
+ * <p>
+ * only holds one small object per slab, no matter how many songs are stored. not thread safe
+ */
+public class OffHeapSongStore {
+
+	private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+	/**
+	 * a slab gets compacted, once less than this share of its bytes is live
+	 */
+	private static final double COMPACTION_THRESHOLD = 0.5;
+
+	private final int slabSize;
+	private final List<Slab> slabs = new ArrayList<>();
+	private final Deque<Integer> freeSlabs = new ArrayDeque<>();
+	private final OffHeapIdIndex index;
+	private int current = -1;
+
+	/**
+	 * OffHeapSongStore constructor
+	 *
+	 * @param slabSize     bytes per slab, also the maximum record size
+	 * @param expectedSize expected number of songs
+	 */
+	public OffHeapSongStore(int slabSize, int expectedSize) {
+		this.slabSize = slabSize;
+		this.index = new OffHeapIdIndex(expectedSize);
+	}
+
+	/**
+	 * @return number of songs
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * @param id id of Song
+	 *
+	 * @return boolean, if there is a song with the id
+	 */
+	public boolean contains(int id) {
+		return index.get(id) >= 0;
+	}
+
+	/**
+	 * reads a song out of its slab
+	 *
+	 * @param id id of Song
+	 *
+	 * @return new Song object, null if there is no song with the id
+	 */
+	public Song find(int id) {
+		long address = index.get(id);
+		if (address < 0) {
+			return null;
+		}
+		ByteBuffer slab = slabs.get(slabOf(address)).buffer;
+		int position = offsetOf(address);
+		int released = slab.getInt(position + 2 * Integer.BYTES);
+		position += HEADER_BYTES;
+		String title = readString(slab, position);
+		position += Integer.BYTES + Math.max(0, slab.getInt(position));
+		String artist = readString(slab, position);
+		position += Integer.BYTES + Math.max(0, slab.getInt(position));
+		String label = readString(slab, position);
+		return new Song(id, title, artist, label, released);
+	}
+
+	/**
+	 * stores a song, replacing the song with the same id
+	 *
+	 * @param song Song
+	 *
+	 * @return boolean, true if a song got replaced
+	 */
+	public boolean put(Song song) {
+		byte[] title = bytesOf(song.getTitle());
+		byte[] artist = bytesOf(song.getArtist());
+		byte[] label = bytesOf(song.getLabel());
+		long length = HEADER_BYTES + 3L * Integer.BYTES + byteCount(title) + byteCount(artist) + byteCount(label);
+		if (length > slabSize) {
+			throw new IllegalArgumentException("song with id " + song.getId() + " is bigger than a slab");
+		}
+
+		long address = reserve((int) length);
+		ByteBuffer slab = slabs.get(slabOf(address)).buffer;
+		int position = offsetOf(address);
+		slab.putInt(position, (int) length);
+		slab.putInt(position + Integer.BYTES, song.getId());
+		slab.putInt(position + 2 * Integer.BYTES, song.getReleased());
+		position += HEADER_BYTES;
+		position = writeBytes(slab, position, title);
+		position = writeBytes(slab, position, artist);
+		writeBytes(slab, position, label);
+
+		long old = index.put(song.getId(), address);
+		if (old >= 0) {
+			release(old);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * removes a song
+	 *
+	 * @param id id of Song
+	 *
+	 * @return boolean, true if there was a song with the id
+	 */
+	public boolean remove(int id) {
+		long address = index.remove(id);
+		if (address < 0) {
+			return false;
+		}
+		release(address);
+		return true;
+	}
+
+	/**
+	 * removes all songs and gives all slabs back
+	 */
+	public void clear() {
+		slabs.clear();
+		freeSlabs.clear();
+		index.clear();
+		current = -1;
+	}
+
+	/**
+	 * @return number of slabs in use or in the pool
+	 */
+	public int slabCount() {
+		return slabs.size();
+	}
+
+	/**
+	 * reserves space for a record in the current slab, switching to a free or new slab if it is full
+	 */
+	private long reserve(int length) {
+		if (current < 0 || slabs.get(current).used + length > slabSize) {
+			if (current >= 0 && slabs.get(current).live == 0) {
+				// the old slab became empty while it was current
+				recycle(current);
+			}
+			current = freeSlabs.isEmpty() ? newSlab() : freeSlabs.pop();
+		}
+		Slab slab = slabs.get(current);
+		int offset = slab.used;
+		slab.used += length;
+		slab.live += length;
+		return (long) current << 32 | offset;
+	}
+
+	private int newSlab() {
+		slabs.add(new Slab(ByteBuffer.allocateDirect(slabSize)));
+		return slabs.size() - 1;
+	}
+
+	/**
+	 * marks a record as dead, recycles or compacts its slab
+	 */
+	private void release(long address) {
+		int slabIndex = slabOf(address);
+		Slab slab = slabs.get(slabIndex);
+		int offset = offsetOf(address);
+		int length = slab.buffer.getInt(offset);
+		slab.buffer.putInt(offset, -length);
+		slab.live -= length;
+		if (slabIndex == current) {
+			return;
+		}
+		if (slab.live == 0) {
+			recycle(slabIndex);
+		} else if (slab.live < slab.used * COMPACTION_THRESHOLD) {
+			compact(slabIndex);
+		}
+	}
+
+	/**
+	 * moves all live records of a slab into the current slab and recycles it
+	 */
+	private void compact(int slabIndex) {
+		Slab slab = slabs.get(slabIndex);
+		// mark the slab as empty first, so it can't be picked as current while its records move
+		int used = slab.used;
+		slab.live = 0;
+		int offset = 0;
+		while (offset < used) {
+			int length = slab.buffer.getInt(offset);
+			if (length > 0) {
+				long address = reserve(length);
+				ByteBuffer target = slabs.get(slabOf(address)).buffer;
+				int targetOffset = offsetOf(address);
+				for (int i = 0; i < length; i++) {
+					target.put(targetOffset + i, slab.buffer.get(offset + i));
+				}
+				index.put(slab.buffer.getInt(offset + Integer.BYTES), address);
+			}
+			offset += Math.abs(length);
+		}
+		recycle(slabIndex);
+	}
+
+	private void recycle(int slabIndex) {
+		Slab slab = slabs.get(slabIndex);
+		slab.used = 0;
+		slab.live = 0;
+		freeSlabs.push(slabIndex);
+	}
+
+	private static byte[] bytesOf(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int byteCount(byte[] bytes) {
+		return bytes == null ? 0 : bytes.length;
+	}
+
+	private static int writeBytes(ByteBuffer slab, int position, byte[] bytes) {
+		if (bytes == null) {
+			slab.putInt(position, -1);
+			return position + Integer.BYTES;
+		}
+		slab.putInt(position, bytes.length);
+		position += Integer.BYTES;
+		for (byte b : bytes) {
+			slab.put(position++, b);
+		}
+		return position;
+	}
+
+	private static String readString(ByteBuffer slab, int position) {
+		int length = slab.getInt(position);
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		position += Integer.BYTES;
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = slab.get(position + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int slabOf(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static int offsetOf(long address) {
+		return (int) address;
+	}
+
+	/**
+	 * one direct buffer, used is the append position, live the bytes of records that are not dead
+	 */
+	private static final class Slab {
+		private final ByteBuffer buffer;
+		private int used;
+		private int live;
+
+		private Slab(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+	}
+}
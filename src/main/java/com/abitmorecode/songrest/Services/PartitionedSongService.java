@@ -0,0 +1,575 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * SongsManager splitting the catalog into shards by a hash of the song id, so writes of different songs run in parallel
+ * <p>
+ * every shard has its own lock, its own immutable snapshot, its own indexes with an IndexSeqLock and its own free ids,
+ * <p>
+ * reads of one song don't lock at all and writes of one song only lock its shard. reset takes all shard locks in shard
+ * <p>
+ * order. the views over all shards (getAllSongs, pages, filters and searches) query every shard without locking and
+ * <p>
+ * check afterwards that no snapshot changed meanwhile, only the shards written in between are queried again. only a
+ * <p>
+ * view that keeps racing with writers takes all shard locks
+ */
+@Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "partitioned")
+public class PartitionedSongService implements SongsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(PartitionedSongService.class);
+
+	private final Shard[] shards;
+	private final int shardShift;
+
+	/**
+	 * rounds of querying the changed shards before a view over all shards takes all shard locks
+	 */
+	private static final int VIEW_TRIES = 4;
+
+	/**
+	 * every id below is used, except the free ids of the shards. only raised, a reset replaces it, so a colliding write
+	 * <p>
+	 * that looked for an id before the reset looks again
+	 */
+	private volatile AtomicLong unusedFrom = new AtomicLong();
+	private final SongVersions versions = new SongVersions();
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+	private final SongMetrics metrics;
+
+	/**
+	 * constructor, registers the meters at the global registry
+	 *
+	 * @param shards number of shards, rounded up to a power of two
+	 */
+	public PartitionedSongService(int shards) {
+		this(Metrics.globalRegistry, shards);
+	}
+
+	/**
+	 * constructor, loads the default catalog
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param shards        number of shards, rounded up to a power of two
+	 */
+	@Autowired
+	public PartitionedSongService(MeterRegistry meterRegistry, @Value("${songrest.partitioned.shards:32}") int shards) {
+		if (shards < 1 || shards > 1 << 16) {
+			throw new IllegalArgumentException("shards has to be between 1 and 65536, but is " + shards);
+		}
+		int bits = 32 - Integer.numberOfLeadingZeros(shards - 1);
+		this.shards = new Shard[1 << bits];
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = new Shard();
+		}
+		// a shift by 32 would be a shift by 0 in java
+		shardShift = bits == 0 ? 0 : 32 - bits;
+
+		metrics = new SongMetrics(meterRegistry);
+		metrics.bindCatalogSize(this, PartitionedSongService::size);
+
+		try {
+			init(SongService.DEFAULT_CATALOG_PATH);
+		} catch (IOException e) {
+			log.error(Arrays.toString(e.getStackTrace()));
+		}
+	}
+
+	/**
+	 * loads a json catalog, songs with an existing id get replaced
+	 *
+	 * @param filepath file path to json file
+	 *
+	 * @throws IOException thrown, if file doesn't exist or file can't be read
+	 */
+	public void init(String filepath) throws IOException {
+		SongJsonLoader.loadCatalog(Path.of(filepath), this::putSong, metrics, log);
+		lockAll();
+		try {
+			versions.changedAll();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * @return number of shards, a power of two
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * fibonacci hashing, consecutive ids end up in different shards
+	 */
+	private Shard shardOf(int id) {
+		return shardShift == 0 ? shards[0] : shards[(id * 0x9E3779B9) >>> shardShift];
+	}
+
+	/**
+	 * puts a song into its shard, replacing any song with the same id
+	 *
+	 * @param song Song
+	 */
+	private void putSong(Song song) {
+		Shard shard = shardOf(song.getId());
+		shard.lock.lock();
+		shard.indexLock.beginWrite();
+		try {
+			Song replaced = shard.songs.find(song.getId());
+			if (replaced != null) {
+				log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+				shard.index.remove(replaced);
+				shard.searchIndex.remove(replaced);
+			}
+			insert(shard, song);
+		} finally {
+			shard.indexLock.endWrite();
+			shard.lock.unlock();
+		}
+	}
+
+	/**
+	 * publishes a song with an id unused in the shard and indexes it, has to be called while holding the shard lock
+	 * <p>
+	 * and between beginWrite and endWrite of its indexLock
+	 */
+	private void insert(Shard shard, Song song) {
+		shard.index.add(song);
+		shard.searchIndex.add(song);
+		shard.songs = shard.songs.with(song);
+		shard.freeIds.remove(song.getId());
+	}
+
+	@Override
+	public Song getSpecificSong(int id) throws SongDoesntExistException {
+		Song song = shardOf(id).songs.find(id);
+		if (song != null) {
+			return song;
+		}
+		metrics.songNotFound();
+		throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+	}
+
+	/**
+	 * reads without locks, a shard query that keeps racing with writers of its shard waits for the shard lock, only a
+	 * <p>
+	 * view that keeps racing with writers of other shards takes all shard locks
+	 */
+	@Override
+	public boolean readsWithoutBlocking() {
+		return true;
+	}
+
+	@Override
+	public List<Song> getAllSongs() {
+		return Collections.unmodifiableList(mergeById(results(readShards((shard, songs) -> songs.asList())), Integer.MAX_VALUE));
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		return mergeById(results(readShards((shard, songs) -> songs.after(afterId, limit))), limit);
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		if (query.isEmpty()) {
+			return getAllSongs();
+		}
+		return mergeById(results(readShards((shard, songs) -> shard.index.find(query, songs))), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * merges the best hits of every shard, so scores use the statistics of the shard of the song. with hashed ids every
+	 * <p>
+	 * shard holds a sample of the whole catalog, so the statistics hardly differ
+	 */
+	@Override
+	public List<Song> searchSongs(String query, int limit) {
+		List<ShardRead<SongSearchIndex.Hits>> reads = readShards((shard, songs) -> shard.searchIndex.searchScored(query, limit));
+		SongSearchIndex.Hits[] hits = new SongSearchIndex.Hits[shards.length];
+		int[] positions = new int[shards.length];
+		for (int i = 0; i < shards.length; i++) {
+			hits[i] = reads.get(i).result;
+		}
+		List<Song> result = new ArrayList<>();
+		while (result.size() < limit) {
+			// the hits of every shard are sorted, the best of all shards is one of their first hits
+			int best = -1;
+			for (int i = 0; i < shards.length; i++) {
+				if (positions[i] < hits[i].getIds().length && (best < 0 || isBetter(hits[i], positions[i], hits[best], positions[best]))) {
+					best = i;
+				}
+			}
+			if (best < 0) {
+				break;
+			}
+			Song song = reads.get(best).songs.find(hits[best].getIds()[positions[best]++]);
+			if (song != null) {
+				result.add(song);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isBetter(SongSearchIndex.Hits hits, int position, SongSearchIndex.Hits other, int otherPosition) {
+		int byScore = Double.compare(hits.getScores()[position], other.getScores()[otherPosition]);
+		return byScore != 0 ? byScore > 0 : hits.getIds()[position] < other.getIds()[otherPosition];
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public SongVersions getVersions() {
+		return versions;
+	}
+
+	/**
+	 * adds a Song Object, only the shard of the song is locked
+	 *
+	 * @param song Song
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	@Override
+	public void addSong(Song song) throws NoIdAvailableException {
+		long waitStart = System.nanoTime();
+		int oldId = song.getId();
+		Shard shard = shardOf(oldId);
+		boolean added = false;
+		shard.lock.lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			if (!shard.songs.contains(oldId)) {
+				shard.indexLock.beginWrite();
+				try {
+					insert(shard, song);
+				} finally {
+					shard.indexLock.endWrite();
+				}
+				versions.changed(oldId);
+				added = true;
+			}
+		} finally {
+			shard.lock.unlock();
+		}
+
+		while (!added) {
+			// the id is looked up without locks, a writer that took it first or a reset makes this one look again
+			AtomicLong from = unusedFrom;
+			int newId = firstUnusedId(from);
+			shard = shardOf(newId);
+			shard.lock.lock();
+			try {
+				if (from == unusedFrom && !shard.songs.contains(newId)) {
+					song.setId(newId);
+					shard.indexLock.beginWrite();
+					try {
+						insert(shard, song);
+					} finally {
+						shard.indexLock.endWrite();
+					}
+					versions.changed(newId);
+					added = true;
+				}
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+		if (song.getId() != oldId) {
+			metrics.idReassigned();
+			log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + song.getId() + " instead");
+		}
+		log.info(song.getTitle() + " was added");
+	}
+
+	@Override
+	public void deleteSong(int id) throws SongDoesntExistException {
+		Song song;
+		long waitStart = System.nanoTime();
+		Shard shard = shardOf(id);
+		shard.lock.lock();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			song = shard.songs.find(id);
+			if (song != null) {
+				shard.indexLock.beginWrite();
+				try {
+					shard.songs = shard.songs.without(id);
+					shard.index.remove(song);
+					shard.searchIndex.remove(song);
+				} finally {
+					shard.indexLock.endWrite();
+				}
+				removalListeners.songRemoved(id);
+				if (id >= 0) {
+					// also above unusedFrom, a colliding write may just be passing the id as used
+					shard.freeIds.add(id);
+				}
+				versions.removed(id);
+			}
+		} finally {
+			shard.lock.unlock();
+		}
+		if (song == null) {
+			metrics.songNotFound();
+			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
+		}
+		log.info(song.getTitle() + " was removed");
+	}
+
+	@Override
+	public void reset() {
+		long waitStart = System.nanoTime();
+		lockAll();
+		try {
+			metrics.writeLockAcquired(waitStart);
+			for (Shard shard : shards) {
+				shard.indexLock.beginWrite();
+				try {
+					shard.songs = shard.songs.cleared();
+					shard.index.clear();
+					shard.searchIndex.clear();
+				} finally {
+					shard.indexLock.endWrite();
+				}
+				shard.freeIds.clear();
+			}
+			unusedFrom = new AtomicLong();
+			removalListeners.allSongsRemoved();
+			versions.changedAll();
+		} finally {
+			unlockAll();
+		}
+		log.info("song list got cleared");
+	}
+
+	/**
+	 * finds the smallest unused id without locking, the caller checks it under the lock of its shard
+	 *
+	 * @param from unusedFrom, raised to the first id the scan found unused
+	 *
+	 * @return smallest id, which is not used by any shard
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	private int firstUnusedId(AtomicLong from) throws NoIdAvailableException {
+		long id = from.get();
+		while (id <= Integer.MAX_VALUE && shardOf((int) id).songs.contains((int) id)) {
+			id++;
+		}
+		// a song deleted after the scan passed its id is a free id of its shard
+		from.accumulateAndGet(id, Math::max);
+		for (Shard shard : shards) {
+			Integer free = shard.freeIds.ceiling(0);
+			if (free != null && free < id) {
+				id = free;
+			}
+		}
+		if (id > Integer.MAX_VALUE) {
+			throw new NoIdAvailableException("No unused song id available");
+		}
+		return (int) id;
+	}
+
+	/**
+	 * runs a query on every shard, the results belong to snapshots which were all current at one point in time, so no
+	 * <p>
+	 * write to any shard is half visible. a query runs again, if the snapshot of its shard changed before all shards were
+	 * <p>
+	 * queried
+	 *
+	 * @param query reads the indexes of a shard and its snapshot passed along, may run several times
+	 * @param <T>   type of the result of one shard
+	 *
+	 * @return one read per shard, in shard order
+	 */
+	private <T> List<ShardRead<T>> readShards(BiFunction<Shard, SongSnapshot, T> query) {
+		List<ShardRead<T>> reads = new ArrayList<>(Collections.nCopies(shards.length, null));
+		for (int i = 0; i < VIEW_TRIES; i++) {
+			for (int s = 0; s < shards.length; s++) {
+				if (reads.get(s) == null) {
+					reads.set(s, shards[s].read(query));
+				}
+			}
+			// snapshots are never published twice, an unchanged one was current from its query up to here
+			boolean unchanged = true;
+			for (int s = 0; s < shards.length; s++) {
+				if (reads.get(s).songs != shards[s].songs) {
+					reads.set(s, null);
+					unchanged = false;
+				}
+			}
+			if (unchanged) {
+				return reads;
+			}
+		}
+		lockAll();
+		try {
+			for (int s = 0; s < shards.length; s++) {
+				reads.set(s, new ShardRead<>(shards[s].songs, query.apply(shards[s], shards[s].songs)));
+			}
+			return reads;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	private static <T> List<T> results(List<ShardRead<T>> reads) {
+		List<T> results = new ArrayList<>(reads.size());
+		for (ShardRead<T> read : reads) {
+			results.add(read.result);
+		}
+		return results;
+	}
+
+	/**
+	 * locks all shards, always in the same order
+	 */
+	private void lockAll() {
+		for (Shard shard : shards) {
+			shard.lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = shards.length - 1; i >= 0; i--) {
+			shards[i].lock.unlock();
+		}
+	}
+
+	private int size() {
+		int size = 0;
+		for (Shard shard : shards) {
+			size += shard.songs.size();
+		}
+		return size;
+	}
+
+	/**
+	 * merges lists sorted by id into one list sorted by id
+	 *
+	 * @param lists lists sorted by id, with distinct ids
+	 * @param limit maximum number of songs
+	 *
+	 * @return List of at most limit songs
+	 */
+	static List<Song> mergeById(List<List<Song>> lists, int limit) {
+		long total = 0;
+		for (List<Song> list : lists) {
+			total += list.size();
+		}
+		List<Song> merged = new ArrayList<>((int) Math.min(total, limit));
+		// heap of the first remaining song of every list
+		PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, lists.size()), Comparator.comparingInt(c -> c.head.getId()));
+		for (List<Song> list : lists) {
+			Iterator<Song> songs = list.iterator();
+			if (songs.hasNext()) {
+				heads.add(new Cursor(songs.next(), songs));
+			}
+		}
+		while (merged.size() < limit && !heads.isEmpty()) {
+			Cursor cursor = heads.poll();
+			merged.add(cursor.head);
+			if (cursor.rest.hasNext()) {
+				cursor.head = cursor.rest.next();
+				heads.add(cursor);
+			}
+		}
+		return merged;
+	}
+
+	private static final class Cursor {
+		private Song head;
+		private final Iterator<Song> rest;
+
+		private Cursor(Song head, Iterator<Song> rest) {
+			this.head = head;
+			this.rest = rest;
+		}
+	}
+
+	/**
+	 * one partition of the catalog, songs, indexes and free ids are written under lock, songs and free ids are read
+	 * <p>
+	 * without
+	 */
+	private static final class Shard {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final SongSecondaryIndex index = new SongSecondaryIndex();
+		private final SongSearchIndex searchIndex = new SongSearchIndex();
+
+		/**
+		 * pairs the indexes with the snapshot, see IndexSeqLock
+		 */
+		private final IndexSeqLock indexLock = new IndexSeqLock();
+
+		/**
+		 * deleted, not reused ids of the shard, which are not negative
+		 */
+		private final ConcurrentSkipListSet<Integer> freeIds = new ConcurrentSkipListSet<>();
+		private volatile SongSnapshot songs = SongSnapshot.empty();
+
+		/**
+		 * runs a query on the indexes and the snapshot of the same version, waits for the shard lock only if it keeps
+		 * <p>
+		 * racing with writers
+		 */
+		private <T> ShardRead<T> read(BiFunction<Shard, SongSnapshot, T> query) {
+			return indexLock.read(() -> {
+				SongSnapshot snapshot = songs;
+				return new ShardRead<>(snapshot, query.apply(this, snapshot));
+			}, () -> {
+				lock.lock();
+				try {
+					return new ShardRead<>(songs, query.apply(this, songs));
+				} finally {
+					lock.unlock();
+				}
+			});
+		}
+	}
+
+	/**
+	 * result of a query on one shard with the snapshot it used
+	 */
+	private static final class ShardRead<T> {
+		private final SongSnapshot songs;
+		private final T result;
+
+		private ShardRead(SongSnapshot songs, T result) {
+			this.songs = songs;
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ReactiveSongsManager on top of the configured SongsManager
+ * <p>
+ * writes wait for locks, fsyncs of the journal or the database, so they run on the boundedElastic scheduler. reads
+ * <p>
+ * stay on the event loop only if the store says they never block (SongsManager.readsWithoutBlocking), reads of
+ * <p>
+ * stores with a lock or a database are offloaded as well. songrest.reactive.offload-store=false calls every store
+ * <p>
+ * on the subscribing thread. getAllSongs pulls the songs from the store stream only as fast as the subscriber
+ * <p>
+ * requests them
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSongService implements ReactiveSongsManager {
+
+	private final SongsManager songsManager;
+	private final Scheduler readScheduler;
+	private final Scheduler writeScheduler;
+
+	/**
+	 * ReactiveSongService constructor
+	 *
+	 * @param songsManager store to use
+	 * @param offloadStore call the store on the boundedElastic scheduler, if it may block
+	 */
+	@Autowired
+	public ReactiveSongService(SongsManager songsManager, @Value("${songrest.reactive.offload-store:true}") boolean offloadStore) {
+		this(songsManager,
+				offloadStore && !songsManager.readsWithoutBlocking() ? Schedulers.boundedElastic() : Schedulers.immediate(),
+				offloadStore ? Schedulers.boundedElastic() : Schedulers.immediate());
+	}
+
+	/**
+	 * ReactiveSongService constructor
+	 *
+	 * @param songsManager store to use
+	 * @param scheduler    scheduler the store is called on
+	 */
+	public ReactiveSongService(SongsManager songsManager, Scheduler scheduler) {
+		this(songsManager, scheduler, scheduler);
+	}
+
+	/**
+	 * ReactiveSongService constructor
+	 *
+	 * @param songsManager   store to use
+	 * @param readScheduler  scheduler reads of the store are called on
+	 * @param writeScheduler scheduler writes to the store are called on
+	 */
+	public ReactiveSongService(SongsManager songsManager, Scheduler readScheduler, Scheduler writeScheduler) {
+		this.songsManager = songsManager;
+		this.readScheduler = readScheduler;
+		this.writeScheduler = writeScheduler;
+	}
+
+	@Override
+	public Mono<Song> getSpecificSong(int id) {
+		return Mono.fromCallable(() -> songsManager.getSpecificSong(id)).subscribeOn(readScheduler);
+	}
+
+	@Override
+	public Flux<Song> getAllSongs() {
+		// fromStream pulls on demand and closes the stream (and e.g. its database cursor) on completion or cancel
+		return Flux.fromStream(songsManager::streamAllSongs).subscribeOn(readScheduler);
+	}
+
+	@Override
+	public Flux<Song> getSongsAfter(long afterId, int limit) {
+		return Flux.defer(() -> Flux.fromIterable(songsManager.getSongsAfter(afterId, limit))).subscribeOn(readScheduler);
+	}
+
+	@Override
+	public Flux<Song> findSongs(SongQuery query) {
+		return Flux.defer(() -> Flux.fromIterable(songsManager.findSongs(query))).subscribeOn(readScheduler);
+	}
+
+	@Override
+	public Flux<Song> searchSongs(String query, int limit) {
+		return Flux.defer(() -> Flux.fromIterable(songsManager.searchSongs(query, limit))).subscribeOn(readScheduler);
+	}
+
+	@Override
+	public Mono<Song> addSong(Song song) {
+		return Mono.fromCallable(() -> {
+			songsManager.addSong(song);
+			return song;
+		}).subscribeOn(writeScheduler);
+	}
+
+	@Override
+	public Mono<Void> deleteSong(int id) {
+		return Mono.<Void>fromCallable(() -> {
+			// the store tells the song lists about the removal
+			songsManager.deleteSong(id);
+			return null;
+		}).subscribeOn(writeScheduler);
+	}
+
+	@Override
+	public Mono<Void> reset() {
+		return Mono.<Void>fromRunnable(songsManager::reset).subscribeOn(writeScheduler);
+	}
+}
@@ -0,0 +1,84 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * non blocking counterpart of {@link SongsManager}, used by the reactive controller
+ * <p>
+ * nothing happens before subscribing. errors are signalled with the same exceptions as in SongsManager
+ */
+public interface ReactiveSongsManager {
+
+	/**
+	 * getter for a specific song in list
+	 *
+	 * @param id id of Song
+	 *
+	 * @return Song searched for, SongDoesntExistException if id isn't used by a Song
+	 */
+	Mono<Song> getSpecificSong(int id);
+
+	/**
+	 * all Songs in id order, produced as they are requested by the subscriber
+	 *
+	 * @return Flux of all songs
+	 */
+	Flux<Song> getAllSongs();
+
+	/**
+	 * one page of Songs in id order
+	 *
+	 * @param afterId only Songs with a bigger id are returned
+	 * @param limit   maximum number of Songs
+	 *
+	 * @return Flux of at most limit Songs
+	 */
+	Flux<Song> getSongsAfter(long afterId, int limit);
+
+	/**
+	 * all Songs matching a query, in id order
+	 *
+	 * @param query filter
+	 *
+	 * @return Flux of matching Songs
+	 */
+	Flux<Song> findSongs(SongQuery query);
+
+	/**
+	 * full text search over title and artist, best match first
+	 *
+	 * @param query search text
+	 * @param limit maximum number of Songs
+	 *
+	 * @return Flux of matching Songs
+	 */
+	Flux<Song> searchSongs(String query, int limit);
+
+	/**
+	 * adds a Song Object
+	 *
+	 * @param song Song
+	 *
+	 * @return the added Song with the id it got, NoIdAvailableException if there is no unused id
+	 */
+	Mono<Song> addSong(Song song);
+
+	/**
+	 * deletes a Song over id
+	 *
+	 * @param id id int
+	 *
+	 * @return completes after the delete, SongDoesntExistException if Song with id doesn't exist
+	 */
+	Mono<Void> deleteSong(int id);
+
+	/**
+	 * deletes all Songs
+	 *
+	 * @return completes after the reset
+	 */
+	Mono<Void> reset();
+}
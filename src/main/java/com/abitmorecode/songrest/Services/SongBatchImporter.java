@@ -0,0 +1,155 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.BatchImportResult;
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * streams songs from NDJSON (one json object per line) or a json array into a SongsManager
+ * <p>
+ * songs are collected into chunks of a fixed size, every chunk is added with one {@link SongsManager#addSongs(List)}
+ * <p>
+ * call, so memory use only depends on the chunk size and not on the size of the upload
+ */
+public class SongBatchImporter {
+
+	private final SongsManager songsManager;
+	private final int chunkSize;
+	private final int maxReported;
+
+	/**
+	 * SongBatchImporter constructor
+	 *
+	 * @param songsManager store to add the songs to
+	 * @param chunkSize    songs per atomic write
+	 * @param maxReported  maximum number of individually reported records
+	 */
+	public SongBatchImporter(SongsManager songsManager, int chunkSize, int maxReported) {
+		this.songsManager = songsManager;
+		this.chunkSize = chunkSize;
+		this.maxReported = maxReported;
+	}
+
+	/**
+	 * imports NDJSON, a malformed line only rejects that record
+	 *
+	 * @param reader NDJSON input, doesn't get closed
+	 *
+	 * @return summary of the import
+	 *
+	 * @throws IOException thrown, if the reader can't be read
+	 */
+	public BatchImportResult importNdjson(Reader reader) throws IOException {
+		BatchImportResult result = new BatchImportResult(maxReported);
+		Chunk chunk = new Chunk(result);
+		BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		int record = 0;
+		for (String line = lines.readLine(); line != null && result.getError() == null; line = lines.readLine()) {
+			if (line.isBlank()) {
+				continue;
+			}
+			try {
+				JsonReader jsonReader = new JsonReader(new StringReader(line));
+				Song song = SongJsonLoader.readSong(jsonReader);
+				if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+					throw new MalformedJsonException("more than one json value in line");
+				}
+				chunk.add(record, song);
+			} catch (MalformedJsonException | IllegalStateException | NumberFormatException | EOFException e) {
+				result.received();
+				result.rejected(record, "malformed json: " + e.getMessage());
+			}
+			record++;
+		}
+		chunk.flush();
+		return result;
+	}
+
+	/**
+	 * imports a json array of songs, a syntax error stops the import
+	 *
+	 * @param reader json input, doesn't get closed
+	 *
+	 * @return summary of the import, contains an error if the json was malformed
+	 *
+	 * @throws IOException thrown, if the reader can't be read
+	 */
+	public BatchImportResult importJsonArray(Reader reader) throws IOException {
+		BatchImportResult result = new BatchImportResult(maxReported);
+		Chunk chunk = new Chunk(result);
+		JsonReader jsonReader = new JsonReader(reader);
+		try {
+			jsonReader.beginArray();
+			for (int record = 0; jsonReader.hasNext() && result.getError() == null; record++) {
+				chunk.add(record, SongJsonLoader.readSong(jsonReader));
+			}
+			if (result.getError() == null) {
+				jsonReader.endArray();
+			}
+		} catch (MalformedJsonException | IllegalStateException | NumberFormatException | EOFException e) {
+			result.failed("malformed json: " + e.getMessage());
+		}
+		chunk.flush();
+		return result;
+	}
+
+	/**
+	 * valid songs waiting to be added
+	 */
+	private final class Chunk {
+		private final BatchImportResult result;
+		private final List<Song> songs = new ArrayList<>(chunkSize);
+		private final int[] records = new int[chunkSize];
+		private final int[] requestedIds = new int[chunkSize];
+
+		private Chunk(BatchImportResult result) {
+			this.result = result;
+		}
+
+		private void add(int record, Song song) {
+			result.received();
+			if (song.anyNull()) {
+				result.rejected(record, "at least one 'null' parameter");
+				return;
+			}
+			records[songs.size()] = record;
+			requestedIds[songs.size()] = song.getId();
+			songs.add(song);
+			if (songs.size() == chunkSize) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (songs.isEmpty() || result.getError() != null) {
+				songs.clear();
+				return;
+			}
+			try {
+				songsManager.addSongs(songs);
+			} catch (NoIdAvailableException e) {
+				result.failed(e.getMessage());
+				songs.clear();
+				return;
+			}
+			result.added(songs.size());
+			for (int i = 0; i < songs.size(); i++) {
+				if (songs.get(i).getId() != requestedIds[i]) {
+					result.reassigned(records[i], requestedIds[i], songs.get(i).getId());
+				}
+			}
+			songs.clear();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * offline converter from a json catalog (like songs.json) to the binary catalog of {@link MappedSongCatalog}
+ * <p>
+ * usage: SongCatalogConverter &lt;songs.json&gt; &lt;songs.bin&gt;
+ */
+public final class SongCatalogConverter {
+
+	private static final Logger log = LoggerFactory.getLogger(SongCatalogConverter.class);
+
+	private SongCatalogConverter() {
+	}
+
+	/**
+	 * converts a json catalog, of songs with the same id the last one is kept
+	 *
+	 * @param json   json catalog
+	 * @param binary target path of the binary catalog
+	 *
+	 * @return number of songs written
+	 *
+	 * @throws IOException thrown, if a file can't be read or written
+	 */
+	public static int convert(Path json, Path binary) throws IOException {
+		List<Song> songs = new ArrayList<>();
+		SongJsonLoader.Result result = SongJsonLoader.load(json, songs::add);
+		int written = MappedSongCatalog.write(songs, binary);
+		log.info(written + " Songs converted from " + json + " to " + binary + ", " + result.getSkipped() + " skipped");
+		return written;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: SongCatalogConverter <songs.json> <songs.bin>");
+			System.exit(2);
+		}
+		convert(Path.of(args[0]), Path.of(args[1]));
+	}
+}
@@ -0,0 +1,153 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * difference between the current catalog and a new catalog file, by song id
+ * <p>
+ * the new file is compared with the file loaded last, only its changes are applied, and only to songs the current
+ * <p>
+ * catalog still has like that file had them. songs written through the API since are kept. only the fingerprints of
+ * <p>
+ * the loaded file are kept, both files are walked once in id order, so computing the diff costs O(n) comparisons of
+ * <p>
+ * content hashes, applying it only touches the added, changed and removed songs
+ */
+public final class SongCatalogDiff {
+
+	private static final Logger log = LoggerFactory.getLogger(SongCatalogDiff.class);
+
+	private final List<Song> added;
+	private final List<Song> changed;
+	private final List<Song> removed;
+
+	private SongCatalogDiff(List<Song> added, List<Song> changed, List<Song> removed) {
+		this.added = added;
+		this.changed = changed;
+		this.removed = removed;
+	}
+
+	/**
+	 * sorts songs by id, of several songs with the same id the last one is kept like in a full load
+	 *
+	 * @param songs songs in file order, gets sorted
+	 *
+	 * @return songs with distinct ids in id order
+	 */
+	public static List<Song> distinctById(List<Song> songs) {
+		// stable, so songs with the same id stay in file order
+		songs.sort(Comparator.comparingInt(Song::getId));
+		List<Song> distinct = new ArrayList<>(songs.size());
+		for (Song song : songs) {
+			int last = distinct.size() - 1;
+			if (last >= 0 && distinct.get(last).getId() == song.getId()) {
+				log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+				distinct.set(last, song);
+			} else {
+				distinct.add(song);
+			}
+		}
+		return distinct;
+	}
+
+	/**
+	 * computes the diff to apply to the current catalog for the changes from the loaded file to the new one
+	 *
+	 * @param current snapshot of the current catalog
+	 * @param loaded  fingerprints of the catalog file loaded last
+	 * @param catalog new catalog file, with distinct ids in id order
+	 *
+	 * @return SongCatalogDiff
+	 */
+	public static SongCatalogDiff between(SongSnapshot current, SongCatalogFingerprints loaded, List<Song> catalog) {
+		List<Song> added = new ArrayList<>();
+		List<Song> changed = new ArrayList<>();
+		List<Song> removed = new ArrayList<>();
+
+		int old = 0;
+		Iterator<Song> news = catalog.iterator();
+		Song next = news.hasNext() ? news.next() : null;
+		while (old < loaded.size() || next != null) {
+			if (next == null || (old < loaded.size() && loaded.id(old) < next.getId())) {
+				Song live = current.find(loaded.id(old));
+				if (loaded.matches(old, live)) {
+					removed.add(live);
+				} else if (live != null) {
+					keep(live);
+				}
+				old++;
+			} else if (old == loaded.size() || next.getId() < loaded.id(old)) {
+				put(current, loaded, -1, next, added, changed);
+				next = news.hasNext() ? news.next() : null;
+			} else {
+				if (!loaded.matches(old, next)) {
+					put(current, loaded, old, next, added, changed);
+				}
+				old++;
+				next = news.hasNext() ? news.next() : null;
+			}
+		}
+		return new SongCatalogDiff(added, changed, removed);
+	}
+
+	/**
+	 * adds or changes a song of the new file, unless the current catalog has another song with its id
+	 *
+	 * @param old position of the song with the same id in the loaded file, -1 if it has none
+	 */
+	private static void put(SongSnapshot current, SongCatalogFingerprints loaded, int old, Song next, List<Song> added, List<Song> changed) {
+		Song live = current.find(next.getId());
+		if (live == null) {
+			added.add(next);
+		} else if (old >= 0 && loaded.matches(old, live)) {
+			changed.add(next);
+		} else if (!live.equals(next)) {
+			keep(live);
+		}
+	}
+
+	private static void keep(Song live) {
+		log.warn("song id: " + live.getId() + " was written after the catalog file was loaded, keeping " + live.getTitle());
+	}
+
+	/**
+	 * @return songs of the new catalog with an id that isn't used in the current one, in id order
+	 */
+	public List<Song> getAdded() {
+		return Collections.unmodifiableList(added);
+	}
+
+	/**
+	 * @return songs of the new catalog that differ from the current song with the same id, in id order
+	 */
+	public List<Song> getChanged() {
+		return Collections.unmodifiableList(changed);
+	}
+
+	/**
+	 * @return songs of the loaded file the new one doesn't have anymore, as the current catalog has them, in id order
+	 */
+	public List<Song> getRemoved() {
+		return Collections.unmodifiableList(removed);
+	}
+
+	/**
+	 * @return boolean, there is nothing to apply or not
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return added.size() + " added, " + changed.size() + " changed, " + removed.size() + " removed";
+	}
+}
@@ -0,0 +1,105 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+
+import java.util.List;
+
+/**
+ * ids and 64 bit content hashes of a catalog file in id order, all a reload needs of the file loaded last
+ * <p>
+ * 12 bytes per song instead of a second copy of every song, two songs with the same id and hash count as equal
+ */
+public final class SongCatalogFingerprints {
+
+	private static final SongCatalogFingerprints EMPTY = new SongCatalogFingerprints(new int[0], new long[0]);
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final int[] ids;
+	private final long[] hashes;
+
+	private SongCatalogFingerprints(int[] ids, long[] hashes) {
+		this.ids = ids;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * @return fingerprints of an empty catalog file
+	 */
+	public static SongCatalogFingerprints empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @param catalog songs with distinct ids in id order (see SongCatalogDiff.distinctById)
+	 *
+	 * @return fingerprints of the catalog
+	 */
+	public static SongCatalogFingerprints of(List<Song> catalog) {
+		int[] ids = new int[catalog.size()];
+		long[] hashes = new long[catalog.size()];
+		for (int i = 0; i < ids.length; i++) {
+			Song song = catalog.get(i);
+			ids[i] = song.getId();
+			hashes[i] = hash(song);
+		}
+		return new SongCatalogFingerprints(ids, hashes);
+	}
+
+	/**
+	 * fnv-1a over every field but the id, which is compared on its own
+	 *
+	 * @param song Song
+	 *
+	 * @return 64 bit hash, equal songs have equal hashes
+	 */
+	public static long hash(Song song) {
+		long hash = FNV_OFFSET;
+		hash = hash(hash, song.getTitle());
+		hash = hash(hash, song.getArtist());
+		hash = hash(hash, song.getLabel());
+		return mix(hash, song.getReleased());
+	}
+
+	private static long hash(long hash, String field) {
+		if (field == null) {
+			return mix(hash, 0);
+		}
+		for (int i = 0; i < field.length(); i++) {
+			hash = mix(hash, field.charAt(i));
+		}
+		// the length separates the fields, so "ab" + "c" and "a" + "bc" differ
+		return mix(hash, field.length() + 1);
+	}
+
+	private static long mix(long hash, int value) {
+		return (hash ^ value) * FNV_PRIME;
+	}
+
+	/**
+	 * @return number of songs
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param position position in id order
+	 *
+	 * @return id of the song at the position
+	 */
+	public int id(int position) {
+		return ids[position];
+	}
+
+	/**
+	 * @param position position in id order
+	 * @param song     Song, may be null
+	 *
+	 * @return boolean, the song equals the one of the file at the position or not
+	 */
+	public boolean matches(int position, Song song) {
+		return song != null && song.getId() == ids[position] && hash(song) == hashes[position];
+	}
+}
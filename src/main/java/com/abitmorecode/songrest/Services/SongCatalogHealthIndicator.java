@@ -0,0 +1,46 @@
+package com.abitmorecode.songrest.Services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * health of the song catalog, OUT_OF_SERVICE while it is loading in the background, see songrest.catalog.async-load
+ * <p>
+ * part of the readiness group, so /actuator/health/readiness only reports UP once the whole catalog can be served,
+ * <p>
+ * while the liveness probe is UP as soon as the server runs. the details show the progress of the load
+ */
+@Component("songCatalog")
+public class SongCatalogHealthIndicator extends AbstractHealthIndicator {
+
+	private final SongsManager songsManager;
+
+	@Autowired
+	public SongCatalogHealthIndicator(SongsManager songsManager) {
+		super("song catalog health check failed");
+		this.songsManager = songsManager;
+	}
+
+	@Override
+	protected void doHealthCheck(Health.Builder builder) {
+		SongCatalogLoad load = songsManager.getCatalogLoad();
+		if (load == null) {
+			builder.up();
+			return;
+		}
+		if (load.isReady()) {
+			builder.up().withDetail("loadMillis", load.getElapsedMillis());
+		} else {
+			builder.outOfService()
+					.withDetail("progressPercent", (int) (load.getProgress() * 100))
+					.withDetail("elapsedMillis", load.getElapsedMillis())
+					.withDetail("remainingMillis", load.getRemainingMillis());
+		}
+		builder.withDetail("songs", load.getLoadedSongs());
+		if (load.getError() != null) {
+			builder.withDetail("error", load.getError());
+		}
+	}
+}
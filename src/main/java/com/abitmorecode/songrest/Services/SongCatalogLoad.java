@@ -0,0 +1,157 @@
+package com.abitmorecode.songrest.Services;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * state and progress of loading the catalog file, read by the readiness probe and the requests during warm-up
+ * <p>
+ * progress is written by the loading thread only, every field is volatile so it can be read from any thread.
+ * <p>
+ * a store is ready unless a background load is running, a synchronous load has finished before anyone can ask
+ */
+public class SongCatalogLoad {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile boolean ready = true;
+	private volatile boolean started;
+	private volatile long startNanos;
+	private volatile long durationNanos = -1;
+	private volatile long totalBytes;
+	private volatile long loadedBytes;
+	private volatile long loadedSongs;
+	private volatile String error;
+
+	/**
+	 * marks the catalog as not ready, until finished or failed is called
+	 */
+	public void loadingInBackground() {
+		ready = false;
+	}
+
+	/**
+	 * a load starts
+	 *
+	 * @param totalBytes size of the catalog file
+	 */
+	public void started(long totalBytes) {
+		this.totalBytes = totalBytes;
+		loadedBytes = 0;
+		loadedSongs = 0;
+		durationNanos = -1;
+		startNanos = System.nanoTime();
+		started = true;
+	}
+
+	/**
+	 * @param loadedBytes bytes of the file that were parsed and applied
+	 */
+	public void bytesLoaded(long loadedBytes) {
+		this.loadedBytes = loadedBytes;
+	}
+
+	/**
+	 * one more song was applied, only called by the loading thread
+	 */
+	@SuppressWarnings("NonAtomicOperationOnVolatileField")
+	public void songLoaded() {
+		loadedSongs++;
+	}
+
+	/**
+	 * the load finished, the catalog is ready
+	 */
+	public void finished() {
+		// a load that failed before it started, e.g. on a missing file, took no time
+		durationNanos = started ? System.nanoTime() - startNanos : 0;
+		loadedBytes = totalBytes;
+		ready = true;
+		done.countDown();
+	}
+
+	/**
+	 * the load failed, the catalog is ready with the songs loaded so far
+	 *
+	 * @param e cause
+	 */
+	public void failed(Exception e) {
+		error = e.toString();
+		finished();
+	}
+
+	/**
+	 * waits for a background load
+	 *
+	 * @param timeout maximum time to wait
+	 * @param unit    unit of timeout
+	 *
+	 * @return boolean, ready or not
+	 *
+	 * @throws InterruptedException thrown, if interrupted while waiting
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return ready || done.await(timeout, unit);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public long getLoadedSongs() {
+		return loadedSongs;
+	}
+
+	/**
+	 * @return share of the file that was loaded, between 0 and 1
+	 */
+	public double getProgress() {
+		long total = totalBytes;
+		return total == 0 ? (ready ? 1 : 0) : Math.min(1, (double) loadedBytes / total);
+	}
+
+	/**
+	 * @return milliseconds since the start of the last load, or its duration if it finished, 0 before a load started
+	 */
+	public long getElapsedMillis() {
+		long duration = durationNanos;
+		if (duration < 0 && !started) {
+			return 0;
+		}
+		return (duration >= 0 ? duration : System.nanoTime() - startNanos) / 1_000_000;
+	}
+
+	/**
+	 * extrapolates the remaining time from the progress so far
+	 *
+	 * @return estimated milliseconds until the load finishes, -1 if there is no progress yet
+	 */
+	public long getRemainingMillis() {
+		double progress = getProgress();
+		if (ready) {
+			return 0;
+		}
+		if (progress <= 0) {
+			return -1;
+		}
+		return (long) (getElapsedMillis() * (1 - progress) / progress);
+	}
+
+	/**
+	 * value for the Retry-After header of requests during the load, the estimated remaining time
+	 *
+	 * @param max upper bound in seconds
+	 *
+	 * @return seconds, at least 1
+	 */
+	public long getRetryAfterSeconds(long max) {
+		long remaining = getRemainingMillis();
+		return remaining < 0 ? max : Math.max(1, Math.min(max, (remaining + 999) / 1000));
+	}
+
+	/**
+	 * @return error of a failed load, null if none failed
+	 */
+	public String getError() {
+		return error;
+	}
+}
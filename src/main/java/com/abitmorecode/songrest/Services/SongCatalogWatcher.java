@@ -0,0 +1,144 @@
+package com.abitmorecode.songrest.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * watches the catalog file of the memory store and reloads it incrementally, see {@link SongService#reload(Path)}
+ * <p>
+ * editors and copy tools write a file in several steps, so a reload waits until there were no events for the file
+ * <p>
+ * for quietMillis. a file that can't be parsed or is empty is left alone, the catalog stays as it is until the next
+ * <p>
+ * change of the file. only changes of the file are applied, songs written through the API are kept, songs removed
+ * <p>
+ * by a reload are removed from the song lists by the store
+ */
+@Component
+@ConditionalOnProperty(name = "songrest.catalog.watch", havingValue = "true")
+public class SongCatalogWatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(SongCatalogWatcher.class);
+
+	private final SongService songService;
+	private final Path catalog;
+	private final long quietMillis;
+	private WatchService watchService;
+	private Thread thread;
+
+	/**
+	 * constructor, watches only if the memory store is used
+	 *
+	 * @param songService provider of the memory store
+	 * @param quietMillis time without events before the file is reloaded
+	 */
+	@Autowired
+	public SongCatalogWatcher(ObjectProvider<SongService> songService, @Value("${songrest.catalog.watch-quiet-ms:500}") long quietMillis) {
+		this(songService.getIfAvailable(), quietMillis);
+	}
+
+	/**
+	 * SongCatalogWatcher constructor
+	 *
+	 * @param songService memory store, may be null
+	 * @param quietMillis time without events before the file is reloaded
+	 */
+	public SongCatalogWatcher(SongService songService, long quietMillis) {
+		this.songService = songService;
+		this.catalog = songService == null ? null : songService.getCatalogPath().toAbsolutePath().normalize();
+		this.quietMillis = quietMillis;
+	}
+
+	/**
+	 * starts watching the directory of the catalog
+	 *
+	 * @throws IOException thrown, if the directory can't be watched
+	 */
+	@PostConstruct
+	public void start() throws IOException {
+		if (songService == null) {
+			log.warn("songrest.catalog.watch only works with the memory store, the catalog isn't watched");
+			return;
+		}
+		watchService = catalog.getFileSystem().newWatchService();
+		catalog.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		// later changes of the file are applied against the file as it is now
+		songService.takeCatalogAsLoaded();
+		thread = new Thread(this::watch, "song-catalog-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		log.info("watching " + catalog + " for changes");
+	}
+
+	@PreDestroy
+	public void stop() throws IOException, InterruptedException {
+		if (watchService != null) {
+			watchService.close();
+			thread.join();
+			songService.releaseLoadedCatalog();
+		}
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				if (!concernsCatalog(watchService.take())) {
+					continue;
+				}
+				WatchKey key;
+				while ((key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS)) != null) {
+					concernsCatalog(key);
+				}
+				reload();
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			// stopped
+		}
+	}
+
+	/**
+	 * consumes the events of a key
+	 *
+	 * @return boolean, one of the events was about the catalog file
+	 */
+	private boolean concernsCatalog(WatchKey key) {
+		boolean catalogChanged = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			// after an overflow it's unknown which files changed
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || catalog.getFileName().equals(event.context())) {
+				catalogChanged = true;
+			}
+		}
+		key.reset();
+		return catalogChanged;
+	}
+
+	private void reload() {
+		try {
+			if (!Files.exists(catalog) || Files.size(catalog) == 0) {
+				log.warn(catalog + " is missing or empty, the catalog stays as it is");
+				return;
+			}
+			songService.reload(catalog);
+		} catch (IOException | RuntimeException e) {
+			log.error(catalog + " can't be reloaded, the catalog stays as it is: " + e.getMessage());
+		}
+	}
+}
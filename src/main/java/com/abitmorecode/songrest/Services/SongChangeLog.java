@@ -0,0 +1,161 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongChange;
+import com.abitmorecode.songrest.Models.SongChanges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * bounded in-memory log of the changes of a catalog, for clients that keep a copy of it
+ * <p>
+ * every change gets the next sequence number, the latest capacity changes are kept in a ring, older ones are
+ * <p>
+ * overwritten. a client asking for changes that are gone has to resync, i.e. load the whole catalog again.
+ * <p>
+ * the sequence starts at 0 with every run of the service, the epoch tells runs apart. the catalog a store loads on
+ * <p>
+ * startup isn't logged, it is the state the sequence starts from
+ */
+public class SongChangeLog {
+
+	/**
+	 * sequences of an earlier run of the service must not be continued
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final SongChange[] ring;
+
+	/**
+	 * sequence of the latest change, 0 if nothing changed yet, guarded by this
+	 */
+	private long latest;
+
+	/**
+	 * called for every appended change, in sequence order
+	 */
+	private final List<Consumer<SongChange>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * SongChangeLog constructor
+	 *
+	 * @param capacity number of changes kept
+	 */
+	public SongChangeLog(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity has to be positive, but is " + capacity);
+		}
+		ring = new SongChange[capacity];
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return sequence of the latest change, 0 if nothing changed yet
+	 */
+	public synchronized long latest() {
+		return latest;
+	}
+
+	/**
+	 * a song was added
+	 *
+	 * @param song added Song
+	 */
+	public void added(Song song) {
+		append(SongChange.Type.ADDED, song.getId(), song.toImmutable());
+	}
+
+	/**
+	 * a song was replaced by a song with the same id
+	 *
+	 * @param song new Song
+	 */
+	public void changed(Song song) {
+		append(SongChange.Type.CHANGED, song.getId(), song.toImmutable());
+	}
+
+	/**
+	 * a song was deleted
+	 *
+	 * @param id id of the deleted Song
+	 */
+	public void deleted(int id) {
+		append(SongChange.Type.DELETED, id, null);
+	}
+
+	/**
+	 * all songs were deleted
+	 */
+	public void reset() {
+		append(SongChange.Type.RESET, null, null);
+	}
+
+	/**
+	 * stores call this while holding their write lock, so the sequence follows the order of the writes
+	 */
+	private synchronized void append(SongChange.Type type, Integer id, Song song) {
+		SongChange change = new SongChange(++latest, type, id, song);
+		ring[(int) (change.getSequence() % ring.length)] = change;
+		for (Consumer<SongChange> listener : listeners) {
+			listener.accept(change);
+		}
+	}
+
+	/**
+	 * getter for the changes after a sequence
+	 *
+	 * @param epoch epoch the sequence belongs to, null for the current one
+	 * @param since sequence the client has seen last
+	 * @param limit maximum number of changes
+	 *
+	 * @return at most limit changes after since, or a resync if they aren't kept anymore or since is of another run
+	 */
+	public synchronized SongChanges since(String epoch, long since, int limit) {
+		if ((epoch != null && !epoch.equals(this.epoch)) || since < oldest() - 1 || since > latest) {
+			return new SongChanges(this.epoch, latest, true, Collections.emptyList());
+		}
+		long until = Math.min(latest, since + limit);
+		List<SongChange> changes = new ArrayList<>((int) (until - since));
+		for (long sequence = since + 1; sequence <= until; sequence++) {
+			changes.add(ring[(int) (sequence % ring.length)]);
+		}
+		return new SongChanges(this.epoch, until, false, changes);
+	}
+
+	/**
+	 * registers a listener and returns the changes it missed, atomically, so the listener sees every later change
+	 * <p>
+	 * exactly once. the listener is called by the writing thread while the log is locked, it must not block
+	 *
+	 * @param epoch    epoch the sequence belongs to, null for the current one
+	 * @param since    sequence the listener has seen last
+	 * @param listener gets every change after the returned ones
+	 *
+	 * @return changes after since, all kept ones, or a resync
+	 */
+	public synchronized SongChanges subscribe(String epoch, long since, Consumer<SongChange> listener) {
+		listeners.add(listener);
+		return since(epoch, since, ring.length);
+	}
+
+	/**
+	 * @param listener listener registered by subscribe
+	 */
+	public void unsubscribe(Consumer<SongChange> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return sequence of the oldest kept change
+	 */
+	private long oldest() {
+		return Math.max(1, latest - ring.length + 1);
+	}
+}
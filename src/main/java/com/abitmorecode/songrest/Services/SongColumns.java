@@ -0,0 +1,303 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * songs stored column by column, sorted by id
+ * <p>
+ * id and release year are int arrays, artist and label are int codes into dictionaries of distinct names, titles
+ * <p>
+ * are UTF-8 bytes in one shared byte array. Song objects are only created by {@link #songAt(int)}. not thread safe
+ */
+public class SongColumns {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * title length of a song without title
+	 */
+	private static final int NULL_TITLE = -1;
+
+	private final Dictionary artists = new Dictionary();
+	private final Dictionary labels = new Dictionary();
+
+	private int size;
+	private int[] ids = new int[INITIAL_CAPACITY];
+	private int[] released = new int[INITIAL_CAPACITY];
+	private int[] artistCodes = new int[INITIAL_CAPACITY];
+	private int[] labelCodes = new int[INITIAL_CAPACITY];
+	private int[] titleOffsets = new int[INITIAL_CAPACITY];
+	private int[] titleLengths = new int[INITIAL_CAPACITY];
+
+	/**
+	 * title bytes of all rows, bytes of removed titles stay until the next compaction
+	 */
+	private byte[] titleHeap = new byte[INITIAL_CAPACITY * 16];
+	private int titleHeapSize;
+	private int titleGarbage;
+
+	/**
+	 * @return number of songs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * binary search over the id column
+	 *
+	 * @param id id of Song
+	 *
+	 * @return row of the song, or (-(insertion point) - 1) like {@link Arrays#binarySearch(int[], int)}
+	 */
+	public int indexOf(int id) {
+		return Arrays.binarySearch(ids, 0, size, id);
+	}
+
+	/**
+	 * first row with an id bigger than afterId
+	 *
+	 * @param afterId exclusive lower bound
+	 *
+	 * @return row, size() if there is none
+	 */
+	public int firstRowAfter(long afterId) {
+		if (afterId < Integer.MIN_VALUE) {
+			return 0;
+		}
+		if (afterId >= Integer.MAX_VALUE) {
+			return size;
+		}
+		int row = indexOf((int) afterId);
+		return row >= 0 ? row + 1 : -row - 1;
+	}
+
+	/**
+	 * @param row row
+	 *
+	 * @return id of the song in row
+	 */
+	public int idAt(int row) {
+		return ids[row];
+	}
+
+	/**
+	 * creates the Song of a row
+	 *
+	 * @param row row
+	 *
+	 * @return new Song object
+	 */
+	public Song songAt(int row) {
+		String title = titleLengths[row] == NULL_TITLE ? null : new String(titleHeap, titleOffsets[row], titleLengths[row], StandardCharsets.UTF_8);
+		return new Song(ids[row], title, artists.get(artistCodes[row]), labels.get(labelCodes[row]), released[row]);
+	}
+
+	/**
+	 * stores a song, replacing the song with the same id
+	 *
+	 * @param song Song
+	 *
+	 * @return boolean, true if a song got replaced
+	 */
+	public boolean put(Song song) {
+		int row = indexOf(song.getId());
+		boolean replaced = row >= 0;
+		if (replaced) {
+			titleGarbage += titleBytes(row);
+			titleLengths[row] = 0;
+		} else {
+			row = -row - 1;
+			insertRow(row);
+		}
+		ids[row] = song.getId();
+		released[row] = song.getReleased();
+		artistCodes[row] = artists.codeOf(song.getArtist());
+		labelCodes[row] = labels.codeOf(song.getLabel());
+		if (song.getTitle() == null) {
+			titleOffsets[row] = 0;
+			titleLengths[row] = NULL_TITLE;
+		} else {
+			storeTitle(row, song.getTitle().getBytes(StandardCharsets.UTF_8));
+		}
+		return replaced;
+	}
+
+	/**
+	 * removes the song of a row
+	 *
+	 * @param row row
+	 */
+	public void remove(int row) {
+		titleGarbage += titleBytes(row);
+		int moved = size - row - 1;
+		for (int[] column : columns()) {
+			System.arraycopy(column, row + 1, column, row, moved);
+		}
+		size--;
+		if (titleGarbage > titleHeapSize / 2) {
+			compactTitles();
+		}
+	}
+
+	/**
+	 * removes all songs, the dictionaries are emptied as well
+	 */
+	public void clear() {
+		size = 0;
+		titleHeapSize = 0;
+		titleGarbage = 0;
+		artists.clear();
+		labels.clear();
+	}
+
+	/**
+	 * checks a row against a query by comparing dictionary codes, without creating the Song
+	 *
+	 * @param row            row
+	 * @param matchingArtist artist codes matching the query, null if the query has no artist
+	 * @param matchingLabel  label codes matching the query, null if the query has no label
+	 * @param query          query for the release years
+	 *
+	 * @return boolean, matches or not
+	 */
+	public boolean matches(int row, BitSet matchingArtist, BitSet matchingLabel, SongQuery query) {
+		if (matchingArtist != null && !matchingArtist.get(artistCodes[row])) {
+			return false;
+		}
+		if (matchingLabel != null && !matchingLabel.get(labelCodes[row])) {
+			return false;
+		}
+		return (query.getReleasedFrom() == null || released[row] >= query.getReleasedFrom())
+				&& (query.getReleasedTo() == null || released[row] <= query.getReleasedTo());
+	}
+
+	/**
+	 * @param artist artist name, compared case insensitive
+	 *
+	 * @return artist codes with that name
+	 */
+	public BitSet artistsNamed(String artist) {
+		return artists.codesMatching(SongQuery.normalize(artist));
+	}
+
+	/**
+	 * @param label label name, compared case insensitive
+	 *
+	 * @return label codes with that name
+	 */
+	public BitSet labelsNamed(String label) {
+		return labels.codesMatching(SongQuery.normalize(label));
+	}
+
+	private int titleBytes(int row) {
+		return Math.max(0, titleLengths[row]);
+	}
+
+	private int[][] columns() {
+		return new int[][]{ids, released, artistCodes, labelCodes, titleOffsets, titleLengths};
+	}
+
+	/**
+	 * opens a gap at row, appending at the end (ids in ascending order) doesn't move anything
+	 */
+	private void insertRow(int row) {
+		if (size == ids.length) {
+			int capacity = size + (size >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			released = Arrays.copyOf(released, capacity);
+			artistCodes = Arrays.copyOf(artistCodes, capacity);
+			labelCodes = Arrays.copyOf(labelCodes, capacity);
+			titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+			titleLengths = Arrays.copyOf(titleLengths, capacity);
+		}
+		int moved = size - row;
+		for (int[] column : columns()) {
+			System.arraycopy(column, row, column, row + 1, moved);
+		}
+		size++;
+	}
+
+	private void storeTitle(int row, byte[] title) {
+		if (titleHeapSize + title.length > titleHeap.length) {
+			if (titleGarbage > titleHeapSize / 2) {
+				compactTitles();
+			}
+			if (titleHeapSize + title.length > titleHeap.length) {
+				long capacity = Math.max(titleHeapSize + (long) title.length, titleHeap.length + (titleHeap.length >> 1));
+				if (capacity > Integer.MAX_VALUE - 8) {
+					throw new IllegalStateException("titles exceed 2 GB");
+				}
+				titleHeap = Arrays.copyOf(titleHeap, (int) capacity);
+			}
+		}
+		System.arraycopy(title, 0, titleHeap, titleHeapSize, title.length);
+		titleOffsets[row] = titleHeapSize;
+		titleLengths[row] = title.length;
+		titleHeapSize += title.length;
+	}
+
+	/**
+	 * copies the titles of all rows into a new heap without the bytes of removed titles
+	 */
+	private void compactTitles() {
+		byte[] compacted = new byte[Math.max(INITIAL_CAPACITY * 16, titleHeapSize - titleGarbage + (titleHeapSize >> 2))];
+		int offset = 0;
+		for (int row = 0; row < size; row++) {
+			if (titleLengths[row] != NULL_TITLE) {
+				System.arraycopy(titleHeap, titleOffsets[row], compacted, offset, titleLengths[row]);
+				titleOffsets[row] = offset;
+				offset += titleLengths[row];
+			}
+		}
+		titleHeap = compacted;
+		titleHeapSize = offset;
+		titleGarbage = 0;
+	}
+
+	/**
+	 * distinct strings and their int codes, codes are never reused until clear
+	 */
+	private static final class Dictionary {
+		private final List<String> values = new ArrayList<>();
+		private final Map<String, Integer> codes = new HashMap<>();
+
+		private int codeOf(String value) {
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		private String get(int code) {
+			return values.get(code);
+		}
+
+		private BitSet codesMatching(String normalized) {
+			BitSet matching = new BitSet(values.size());
+			for (int code = 0; code < values.size(); code++) {
+				if (normalized.equals(SongQuery.normalize(values.get(code)))) {
+					matching.set(code);
+				}
+			}
+			return matching;
+		}
+
+		private void clear() {
+			values.clear();
+			codes.clear();
+		}
+	}
+}
@@ -0,0 +1,467 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * streaming json loader for songs
+ * <p>
+ * reads one song at a time via gson's JsonReader and hands it directly to a consumer, so the memory needed
+ * <p>
+ * doesn't depend on the size of the file
+ */
+public final class SongJsonLoader {
+
+	private static final Logger log = LoggerFactory.getLogger(SongJsonLoader.class);
+
+	/**
+	 * smaller files are loaded sequentially, splitting them costs more than it saves
+	 */
+	static final int PARALLEL_MIN_BYTES = 1 << 20;
+
+	private static final byte[] ARRAY_START = {'['};
+	private static final byte[] ARRAY_END = {']'};
+
+	private SongJsonLoader() {
+	}
+
+	/**
+	 * loads a json array of songs from a file
+	 *
+	 * @param filepath path to json file
+	 * @param consumer gets every valid Song
+	 *
+	 * @return statistics of the load
+	 *
+	 * @throws IOException         thrown, if file doesn't exist or file can't be read
+	 * @throws JsonSyntaxException thrown, if the file isn't a json array of objects
+	 */
+	public static Result load(Path filepath, Consumer<Song> consumer) throws IOException {
+		try (Reader reader = Files.newBufferedReader(filepath, StandardCharsets.UTF_8)) {
+			return load(reader, consumer);
+		}
+	}
+
+	/**
+	 * loads the catalog of a store from a file, like load, and reports it with catalogLoaded
+	 *
+	 * @param filepath path to json file
+	 * @param consumer puts every valid Song into the store
+	 * @param metrics  metrics of the store
+	 * @param storeLog logger of the store
+	 *
+	 * @return statistics of the load
+	 *
+	 * @throws IOException         thrown, if file doesn't exist or file can't be read
+	 * @throws JsonSyntaxException thrown, if the file isn't a json array of objects
+	 */
+	static Result loadCatalog(Path filepath, Consumer<Song> consumer, SongMetrics metrics, Logger storeLog) throws IOException {
+		Result result = load(filepath, consumer);
+		catalogLoaded(result, metrics, storeLog);
+		return result;
+	}
+
+	/**
+	 * records the duration of a catalog load at the metrics of a store and logs its throughput
+	 *
+	 * @param result   statistics of the load
+	 * @param metrics  metrics of the store
+	 * @param storeLog logger of the store
+	 */
+	static void catalogLoaded(Result result, SongMetrics metrics, Logger storeLog) {
+		metrics.catalogLoaded(result.getDurationNanos());
+		storeLog.info(result.getLoaded() + " Songs initialized in " + result.getDurationNanos() / 1_000_000 + " ms (" + (long) result.getSongsPerSecond() + " songs/sec)");
+	}
+
+	/**
+	 * loads a json array of songs from a reader, the reader doesn't get closed
+	 *
+	 * @param reader   reader to read the json from
+	 * @param consumer gets every valid Song
+	 *
+	 * @return statistics of the load
+	 *
+	 * @throws IOException         thrown, if the reader can't be read
+	 * @throws JsonSyntaxException thrown, if the content isn't a json array of objects
+	 */
+	public static Result load(Reader reader, Consumer<Song> consumer) throws IOException {
+		long start = System.nanoTime();
+		int loaded = 0;
+		int skipped = 0;
+
+		JsonReader jsonReader = new JsonReader(reader);
+		try {
+			if (isEmpty(jsonReader)) {
+				return new Result(0, 0, System.nanoTime() - start);
+			}
+			jsonReader.beginArray();
+			while (jsonReader.hasNext()) {
+				Song song = readSong(jsonReader);
+				if (song.anyNull()) {
+					log.warn(song + " was not added due to at least one 'null' parameter");
+					skipped++;
+				} else {
+					consumer.accept(song);
+					loaded++;
+				}
+			}
+			jsonReader.endArray();
+		} catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+			throw new JsonSyntaxException(e);
+		}
+
+		return new Result(loaded, skipped, System.nanoTime() - start);
+	}
+
+	/**
+	 * loads a json array of songs from a file, parsing chunks of it in parallel
+	 * <p>
+	 * the file is mapped, not read into the heap. one scan over the bytes splits the array at the commas between its
+	 * <p>
+	 * elements, every chunk is parsed by a task of the executor. the consumer gets the songs on the calling thread in
+	 * <p>
+	 * file order, while the next chunks are parsed, so parsing overlaps with whatever the consumer does. at most window
+	 * <p>
+	 * chunks are submitted ahead of the consumer, so a slow consumer doesn't pile up parsed songs. songs before a
+	 * <p>
+	 * malformed element are consumed like in a sequential load. without an executor the chunks are parsed by the
+	 * <p>
+	 * calling thread, only to report progress. small files, files over 2 GB and files that don't look like one array
+	 * <p>
+	 * are loaded sequentially
+	 *
+	 * @param filepath path to json file
+	 * @param executor executor parsing the chunks, null to parse them on the calling thread
+	 * @param chunks   number of chunks to split the file into
+	 * @param window   maximum number of chunks submitted and not consumed yet, e.g. twice the parsing threads
+	 * @param consumer gets every valid Song, in file order
+	 * @param progress gets the number of bytes consumed so far, after every chunk
+	 *
+	 * @return statistics of the load
+	 *
+	 * @throws IOException         thrown, if file doesn't exist or file can't be read
+	 * @throws JsonSyntaxException thrown, if the file isn't a json array of objects
+	 */
+	public static Result loadParallel(Path filepath, ExecutorService executor, int chunks, int window, Consumer<Song> consumer,
+									  LongConsumer progress) throws IOException {
+		long size = Files.size(filepath);
+		if (chunks < 2 || size < PARALLEL_MIN_BYTES || size > Integer.MAX_VALUE - 8) {
+			Result result = load(filepath, consumer);
+			progress.accept(size);
+			return result;
+		}
+
+		long start = System.nanoTime();
+		ByteBuffer json;
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			json = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		int[] separators = split(json, chunks);
+		if (separators == null) {
+			Result result = load(new InputStreamReader(streamOf(json.duplicate()), StandardCharsets.UTF_8), consumer);
+			progress.accept(size);
+			return result;
+		}
+
+		int count = separators.length - 1;
+		Deque<Future<Chunk>> parsing = new ArrayDeque<>();
+		int submitted = 0;
+		int loaded = 0;
+		int skipped = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				// keeps up to window chunks parsing ahead, including the one consumed next
+				for (; executor != null && submitted < count && submitted - i < Math.max(1, window); submitted++) {
+					int from = separators[submitted] + 1;
+					int to = separators[submitted + 1];
+					parsing.add(executor.submit(() -> Chunk.parse(json, from, to)));
+				}
+				Chunk chunk = executor == null ? Chunk.parse(json, separators[i] + 1, separators[i + 1]) : parsing.poll().get();
+				chunk.songs.forEach(consumer);
+				loaded += chunk.songs.size();
+				skipped += chunk.skipped;
+				progress.accept(separators[i + 1] + 1L);
+				chunk.rethrow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("loading " + filepath + " was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("loading " + filepath + " failed", e.getCause());
+		} finally {
+			parsing.forEach(future -> future.cancel(true));
+		}
+		progress.accept(size);
+		return new Result(loaded, skipped, System.nanoTime() - start);
+	}
+
+	/**
+	 * finds the positions to split a json array at, the positions of top level commas after every chunk of
+	 * <p>
+	 * json.length / chunks bytes, strings are skipped
+	 *
+	 * @param json   json array, from 0 to its limit
+	 * @param chunks wanted number of chunks
+	 *
+	 * @return positions of the opening bracket, the commas and the closing bracket, null if json isn't an array
+	 */
+	static int[] split(ByteBuffer json, int chunks) {
+		int length = json.limit();
+		int position = 0;
+		while (position < length && json.get(position) != '[') {
+			if (!isWhitespace(json.get(position))) {
+				return null;
+			}
+			position++;
+		}
+		if (position == length) {
+			return null;
+		}
+		List<Integer> separators = new ArrayList<>(chunks + 1);
+		separators.add(position);
+		int chunkSize = length / chunks;
+		int nextSplit = position + chunkSize;
+		int depth = 0;
+		boolean inString = false;
+		for (; position < length; position++) {
+			byte b = json.get(position);
+			if (inString) {
+				if (b == '\\') {
+					position++;
+				} else if (b == '"') {
+					inString = false;
+				}
+				continue;
+			}
+			switch (b) {
+				case '"':
+					inString = true;
+					break;
+				case '[':
+				case '{':
+					depth++;
+					break;
+				case ']':
+				case '}':
+					if (--depth == 0) {
+						separators.add(position);
+						return separators.stream().mapToInt(Integer::intValue).toArray();
+					}
+					break;
+				case ',':
+					if (depth == 1 && position >= nextSplit) {
+						separators.add(position);
+						nextSplit = position + chunkSize;
+					}
+					break;
+				default:
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * reads a buffer from its position to its limit, moving its position
+	 */
+	private static InputStream streamOf(ByteBuffer buffer) {
+		return new InputStream() {
+			@Override
+			public int read() {
+				return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) {
+				if (length == 0) {
+					return 0;
+				}
+				if (!buffer.hasRemaining()) {
+					return -1;
+				}
+				int count = Math.min(length, buffer.remaining());
+				buffer.get(bytes, offset, count);
+				return count;
+			}
+		};
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	/**
+	 * reads the next json object as a Song, unknown fields are ignored, missing fields stay null
+	 *
+	 * @param jsonReader reader positioned in front of a json object
+	 *
+	 * @return read Song, may contain null values
+	 *
+	 * @throws IOException thrown, if the reader can't be read or the object is malformed
+	 */
+	static Song readSong(JsonReader jsonReader) throws IOException {
+		Integer id = null;
+		String title = null;
+		String artist = null;
+		String label = null;
+		Integer released = null;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+			if (jsonReader.peek() == JsonToken.NULL) {
+				jsonReader.nextNull();
+				continue;
+			}
+			switch (name) {
+				case "id":
+					id = jsonReader.nextInt();
+					break;
+				case "title":
+					title = jsonReader.nextString();
+					break;
+				case "artist":
+					artist = jsonReader.nextString();
+					break;
+				case "label":
+					label = jsonReader.nextString();
+					break;
+				case "released":
+					released = jsonReader.nextInt();
+					break;
+				default:
+					jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		//noinspection ConstantConditions
+		return new Song(id, title, artist, label, released);
+	}
+
+	/**
+	 * checks if there is no json at all (empty file / whitespace only)
+	 */
+	private static boolean isEmpty(JsonReader jsonReader) throws IOException {
+		try {
+			jsonReader.peek();
+			return false;
+		} catch (EOFException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * songs of a part of a json array, and the error that stopped parsing it
+	 */
+	private static final class Chunk {
+		private final List<Song> songs = new ArrayList<>();
+		private int skipped;
+		private Exception error;
+
+		/**
+		 * parses the elements between two separators as an array of their own
+		 */
+		static Chunk parse(ByteBuffer json, int from, int to) {
+			Chunk chunk = new Chunk();
+			if (Thread.currentThread().isInterrupted()) {
+				chunk.error = new CancellationException();
+				return chunk;
+			}
+			// a view of its own, the position of the shared buffer isn't touched
+			ByteBuffer elements = json.duplicate();
+			elements.limit(to).position(from);
+			Reader reader = new InputStreamReader(new SequenceInputStream(Collections.enumeration(List.of(
+					new ByteArrayInputStream(ARRAY_START), streamOf(elements), new ByteArrayInputStream(ARRAY_END)))),
+					StandardCharsets.UTF_8);
+			try {
+				chunk.skipped = load(reader, chunk.songs::add).getSkipped();
+			} catch (IOException | RuntimeException e) {
+				chunk.error = e;
+			}
+			return chunk;
+		}
+
+		void rethrow() throws IOException {
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			}
+			if (error != null) {
+				throw (RuntimeException) error;
+			}
+		}
+	}
+
+	/**
+	 * statistics of a load
+	 */
+	public static final class Result {
+		private final int loaded;
+		private final int skipped;
+		private final long durationNanos;
+
+		Result(int loaded, int skipped, long durationNanos) {
+			this.loaded = loaded;
+			this.skipped = skipped;
+			this.durationNanos = durationNanos;
+		}
+
+		/**
+		 * @return number of songs given to the consumer
+		 */
+		public int getLoaded() {
+			return loaded;
+		}
+
+		/**
+		 * @return number of songs skipped due to null values
+		 */
+		public int getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * @return duration of the load in nanoseconds
+		 */
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+		/**
+		 * @return loaded songs per second
+		 */
+		public double getSongsPerSecond() {
+			return durationNanos == 0 ? 0 : loaded * 1_000_000_000d / durationNanos;
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongList;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.abitmorecode.songrest.SongControllerException.SongListDoesntExistException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SongListsManager keeping song lists in memory, members are stored as a primitive array of song ids
+ * <p>
+ * the songs themselves are read from the {@link SongsManager} when a list is read. the store reports every removed
+ * <p>
+ * song before its id can be reused, also deletes and resets that don't go through this class, and the song is
+ * <p>
+ * dropped from all lists. a reverse index from song id to the ids of all lists containing the song lets that touch
+ * <p>
+ * only these lists. list ids are handed out in increasing order, so every posting list of the reverse index stays sorted
+ * <p>
+ * by appending. reads share a read lock, writes take the write lock
+ */
+@Service
+public class SongListService implements SongListsManager {
+
+	private static final Logger log = LoggerFactory.getLogger(SongListService.class);
+
+	/**
+	 * attempts to add a song list, whose members get removed while they are checked, before giving up
+	 */
+	private static final int ADD_ATTEMPTS = 4;
+
+	private final SongsManager songsManager;
+
+	/**
+	 * all lists by id, sorted for getAllSongLists
+	 */
+	private final TreeMap<Integer, Members> lists = new TreeMap<>();
+
+	/**
+	 * song id to the sorted ids of all lists containing the song
+	 */
+	private final Map<Integer, IntList> listsBySong = new HashMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * last handed out list id, guarded by the write lock
+	 */
+	private int lastId;
+
+	/**
+	 * members of the song lists being added, checked outside of the lock, guarded by the write lock
+	 */
+	private final List<MemberCheck> checks = new ArrayList<>();
+
+	/**
+	 * SongListService constructor
+	 *
+	 * @param songsManager song store the members are read from, reports removed songs to this
+	 */
+	@Autowired
+	public SongListService(SongsManager songsManager) {
+		this.songsManager = songsManager;
+		songsManager.addRemovalListener(this);
+	}
+
+	@Override
+	public SongList getSongList(int id) throws SongListDoesntExistException {
+		Members members;
+		lock.readLock().lock();
+		try {
+			members = lists.get(id);
+		} finally {
+			lock.readLock().unlock();
+		}
+		if (members == null) {
+			throw new SongListDoesntExistException("Song list with id: " + id + " doesn't exist");
+		}
+		return resolve(id, members);
+	}
+
+	@Override
+	public List<SongList> getAllSongLists() {
+		List<Map.Entry<Integer, Members>> entries;
+		lock.readLock().lock();
+		try {
+			entries = new ArrayList<>(lists.entrySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+		List<SongList> result = new ArrayList<>(entries.size());
+		for (Map.Entry<Integer, Members> entry : entries) {
+			result.add(resolve(entry.getKey(), entry.getValue()));
+		}
+		return result;
+	}
+
+	@Override
+	public void addSongList(SongList songList) throws SongDoesntExistException, NoIdAvailableException {
+		int[] songIds = new int[songList.getSongs().size()];
+		for (int i = 0; i < songIds.length; i++) {
+			songIds[i] = songList.getSongs().get(i).getId();
+		}
+
+		MemberCheck check = new MemberCheck(songIds);
+		for (int attempt = 1; !tryAddSongList(songList, songIds, check, attempt == ADD_ATTEMPTS); attempt++) {
+			// a member was removed during the check, it may have been added again meanwhile
+		}
+		log.info("added song list " + songList.getId() + " with " + songIds.length + " songs");
+	}
+
+	/**
+	 * checks the members without holding the lock, the store calls songRemoved while it holds its own locks. the
+	 * <p>
+	 * removals of members during the check are recorded, so under the lock it is known if the check still holds
+	 *
+	 * @return boolean, false if the store removed a member meanwhile and the members have to be checked again
+	 *
+	 * @throws SongDoesntExistException thrown, if a member doesn't exist or was removed during the last attempt
+	 */
+	private boolean tryAddSongList(SongList songList, int[] songIds, MemberCheck check, boolean lastAttempt) throws SongDoesntExistException, NoIdAvailableException {
+		lock.writeLock().lock();
+		try {
+			check.removedSongId = null;
+			checks.add(check);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			for (int songId : songIds) {
+				songsManager.getSpecificSong(songId);
+			}
+		} catch (SongDoesntExistException | RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				checks.remove(check);
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+
+		lock.writeLock().lock();
+		try {
+			checks.remove(check);
+			if (check.removedSongId != null) {
+				if (lastAttempt) {
+					throw new SongDoesntExistException("Song with id: " + check.removedSongId + " doesn't exist");
+				}
+				return false;
+			}
+			if (lastId == Integer.MAX_VALUE) {
+				throw new NoIdAvailableException("there is no unused song list id available");
+			}
+			int id = ++lastId;
+			lists.put(id, new Members(songList.getName(), songIds));
+			for (int songId : check.songIds) {
+				listsBySong.computeIfAbsent(songId, k -> new IntList()).add(id);
+			}
+			songList.setId(id);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void deleteSongList(int id) throws SongListDoesntExistException {
+		lock.writeLock().lock();
+		try {
+			Members members = lists.remove(id);
+			if (members == null) {
+				throw new SongListDoesntExistException("Song list with id: " + id + " doesn't exist");
+			}
+			for (int songId : distinct(members.songIds)) {
+				IntList listIds = listsBySong.get(songId);
+				listIds.remove(id);
+				if (listIds.size == 0) {
+					listsBySong.remove(songId);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void songRemoved(int songId) {
+		lock.writeLock().lock();
+		try {
+			for (MemberCheck check : checks) {
+				if (Arrays.binarySearch(check.songIds, songId) >= 0) {
+					check.removedSongId = songId;
+				}
+			}
+			IntList listIds = listsBySong.remove(songId);
+			if (listIds == null) {
+				return;
+			}
+			for (int i = 0; i < listIds.size; i++) {
+				Members members = lists.get(listIds.values[i]);
+				members.songIds = Arrays.stream(members.songIds).filter(id -> id != songId).toArray();
+			}
+			log.info("removed song " + songId + " from " + listIds.size + " song lists");
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void allSongsRemoved() {
+		lock.writeLock().lock();
+		try {
+			for (MemberCheck check : checks) {
+				if (check.songIds.length > 0) {
+					check.removedSongId = check.songIds[0];
+				}
+			}
+			for (Members members : lists.values()) {
+				members.songIds = new int[0];
+			}
+			listsBySong.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("removed all songs from the song lists");
+	}
+
+	@Override
+	public void reset() {
+		lock.writeLock().lock();
+		try {
+			lists.clear();
+			listsBySong.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * builds the SongList of a members snapshot, outside of the lock
+	 */
+	private SongList resolve(int id, Members members) {
+		int[] songIds = members.songIds;
+		List<Song> songs = new ArrayList<>(songIds.length);
+		for (int songId : songIds) {
+			try {
+				songs.add(songsManager.getSpecificSong(songId));
+			} catch (SongDoesntExistException e) {
+				// removed after the members were read, songRemoved drops it from the list
+			}
+		}
+		return new SongList(id, members.name, songs);
+	}
+
+	private static int[] distinct(int[] songIds) {
+		return Arrays.stream(songIds).distinct().toArray();
+	}
+
+	/**
+	 * name and member ids of a list, songIds gets replaced, never changed in place, so readers can use it unlocked
+	 */
+	private static final class Members {
+		private final String name;
+		private volatile int[] songIds;
+
+		private Members(String name, int[] songIds) {
+			this.name = name;
+			this.songIds = songIds;
+		}
+	}
+
+	/**
+	 * sorted distinct members of a song list being added, removedSongId is set when one of them gets removed
+	 */
+	private static final class MemberCheck {
+		private final int[] songIds;
+		private Integer removedSongId;
+
+		private MemberCheck(int[] songIds) {
+			this.songIds = distinct(songIds);
+			Arrays.sort(this.songIds);
+		}
+	}
+
+	/**
+	 * growable sorted int array, values are only appended in increasing order
+	 */
+	private static final class IntList {
+		private int[] values = new int[2];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private void remove(int value) {
+			int index = Arrays.binarySearch(values, 0, size, value);
+			if (index >= 0) {
+				System.arraycopy(values, index + 1, values, index, size - index - 1);
+				size--;
+			}
+		}
+	}
+}
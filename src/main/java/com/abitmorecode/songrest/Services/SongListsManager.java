@@ -0,0 +1,58 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.SongList;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.abitmorecode.songrest.SongControllerException.SongListDoesntExistException;
+
+import java.util.List;
+
+/**
+ * song lists, they get told by the song store about removed songs, so the members of a list never refer to an id
+ * <p>
+ * that was handed out again
+ */
+public interface SongListsManager extends SongRemovalListener {
+
+	/**
+	 * getter for a specific song list, the songs are read from the song store
+	 *
+	 * @param id id of SongList
+	 *
+	 * @return SongList searched for
+	 *
+	 * @throws SongListDoesntExistException thrown, if id isn't used by a SongList
+	 */
+	SongList getSongList(int id) throws SongListDoesntExistException;
+
+	/**
+	 * getter for all song lists in id order
+	 *
+	 * @return List of all song lists
+	 */
+	List<SongList> getAllSongLists();
+
+	/**
+	 * adds a SongList and sets its new id, all songs have to exist in the song store
+	 *
+	 * @param songList SongList without id, songs only need their id
+	 *
+	 * @throws SongDoesntExistException thrown, if one of the songs doesn't exist
+	 * @throws NoIdAvailableException   thrown, if there is no unused positive integer id available
+	 */
+	void addSongList(SongList songList) throws SongDoesntExistException, NoIdAvailableException;
+
+	/**
+	 * deletes a SongList over id
+	 *
+	 * @param id id int
+	 *
+	 * @throws SongListDoesntExistException thrown, if SongList with id doesn't exist
+	 */
+	void deleteSongList(int id) throws SongListDoesntExistException;
+
+	/**
+	 * reset method for deleting all song lists
+	 */
+	void reset();
+}
@@ -0,0 +1,92 @@
+package com.abitmorecode.songrest.Services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * meters of a SongsManager
+ * <p>
+ * all meters are registered once up front, so recording on the hot path doesn't allocate
+ */
+public class SongMetrics {
+
+	private final MeterRegistry meterRegistry;
+	private final Counter notFound;
+	private final Counter idReassigned;
+	private final Timer writeLockWait;
+	private volatile double lastLoadMillis;
+
+	/**
+	 * SongMetrics constructor
+	 *
+	 * @param meterRegistry registry to register the meters at
+	 */
+	public SongMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.notFound = Counter.builder("songrest.songs.not.found")
+				.description("requests for a song id that doesn't exist")
+				.register(meterRegistry);
+		this.idReassigned = Counter.builder("songrest.songs.id.reassigned")
+				.description("added songs that got a new id, because their id was already in use")
+				.register(meterRegistry);
+		this.writeLockWait = Timer.builder("songrest.songs.write.lock.wait")
+				.description("time writers wait for the write lock of the catalog")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		Gauge.builder("songrest.songs.load.duration", this, m -> m.lastLoadMillis)
+				.description("duration of the last catalog load")
+				.baseUnit("milliseconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * registers the catalog size gauge
+	 *
+	 * @param songsManager manager to observe, only weakly referenced
+	 * @param size         function returning the number of songs
+	 * @param <T>          type of the manager
+	 */
+	public <T> void bindCatalogSize(T songsManager, ToDoubleFunction<T> size) {
+		Gauge.builder("songrest.songs.catalog.size", songsManager, size)
+				.description("number of songs in the catalog")
+				.register(meterRegistry);
+	}
+
+	public void songNotFound() {
+		notFound.increment();
+	}
+
+	public void idReassigned() {
+		idReassigned.increment();
+	}
+
+	/**
+	 * counts several added songs that got a new id at once
+	 *
+	 * @param count number of songs
+	 */
+	public void idsReassigned(int count) {
+		idReassigned.increment(count);
+	}
+
+	/**
+	 * records the time a writer waited for the write lock
+	 *
+	 * @param waitStartNanos System.nanoTime() before trying to get the lock
+	 */
+	public void writeLockAcquired(long waitStartNanos) {
+		writeLockWait.record(System.nanoTime() - waitStartNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param durationNanos duration of the last catalog load in nanoseconds
+	 */
+	public void catalogLoaded(long durationNanos) {
+		lastLoadMillis = durationNanos / 1_000_000d;
+	}
+}
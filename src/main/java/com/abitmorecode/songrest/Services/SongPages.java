@@ -0,0 +1,72 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * streams a catalog in id order page by page through {@link SongsManager#getSongsAfter(long, int)}
+ * <p>
+ * for stores that lock per read, only one page is held on the heap and the lock is taken once per page, so writers
+ * <p>
+ * get in between two pages of a long stream. a song written meanwhile shows up if its id wasn't passed yet
+ */
+final class SongPages implements Iterator<Song> {
+
+	/**
+	 * songs per page
+	 */
+	static final int PAGE_SIZE = 1000;
+
+	private final SongsManager store;
+	private final int pageSize;
+	private List<Song> page = List.of();
+	private int position;
+	private long lastId = Long.MIN_VALUE;
+	private boolean lastPage;
+
+	private SongPages(SongsManager store, int pageSize) {
+		this.store = store;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @param store store with an efficient getSongsAfter
+	 *
+	 * @return lazy stream of all songs of the store in id order
+	 */
+	static Stream<Song> stream(SongsManager store) {
+		return stream(store, PAGE_SIZE);
+	}
+
+	static Stream<Song> stream(SongsManager store, int pageSize) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new SongPages(store, pageSize),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (position == page.size() && !lastPage) {
+			page = store.getSongsAfter(lastId, pageSize);
+			position = 0;
+			lastPage = page.size() < pageSize;
+		}
+		return position < page.size();
+	}
+
+	@Override
+	public Song next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Song song = page.get(position++);
+		lastId = song.getId();
+		return song;
+	}
+}
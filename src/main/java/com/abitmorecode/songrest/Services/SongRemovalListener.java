@@ -0,0 +1,23 @@
+package com.abitmorecode.songrest.Services;
+
+/**
+ * gets told about songs a {@link SongsManager} removes
+ * <p>
+ * stores call it while they still hold their write lock, before a removed id can be handed out again, so a listener
+ * <p>
+ * must not call back into the store while it holds a lock of its own
+ */
+public interface SongRemovalListener {
+
+	/**
+	 * a song was deleted, e.g. by DELETE /songs/{id} or a reload of the catalog file
+	 *
+	 * @param songId id of Song
+	 */
+	void songRemoved(int songId);
+
+	/**
+	 * all songs were deleted by a reset of the store
+	 */
+	void allSongsRemoved();
+}
@@ -0,0 +1,30 @@
+package com.abitmorecode.songrest.Services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * the SongRemovalListeners registered at a store
+ */
+final class SongRemovalListeners implements SongRemovalListener {
+
+	private final List<SongRemovalListener> listeners = new CopyOnWriteArrayList<>();
+
+	void add(SongRemovalListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void songRemoved(int songId) {
+		for (SongRemovalListener listener : listeners) {
+			listener.songRemoved(songId);
+		}
+	}
+
+	@Override
+	public void allSongsRemoved() {
+		for (SongRemovalListener listener : listeners) {
+			listener.allSongsRemoved();
+		}
+	}
+}
@@ -0,0 +1,409 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * in-memory inverted index over title and artist of all songs, ranked with BM25
+ * <p>
+ * postings are primitive int arrays (song id and term frequency) per term. writes have to be serialized by the
+ * <p>
+ * caller, searches can run concurrently to them. a search takes no lock, it reads optimistically and only runs again
+ * <p>
+ * under the read lock if a write overlapped it
+ */
+public class SongSearchIndex {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	/**
+	 * concurrent, so an optimistic search never walks a bucket a write is changing
+	 */
+	private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+	private final IntIntHashMap documentLengths = new IntIntHashMap(1024, 0);
+	private final StampedLock lock = new StampedLock();
+	private long totalLength;
+
+	/**
+	 * splits a text into case and accent folded terms
+	 *
+	 * @param text text to tokenize, may be null
+	 *
+	 * @return terms in order of appearance, may contain duplicates
+	 */
+	public static List<String> tokenize(String text) {
+		if (text == null) {
+			return new ArrayList<>();
+		}
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+		List<String> terms = new ArrayList<>();
+		for (String term : SEPARATORS.split(folded)) {
+			if (!term.isEmpty()) {
+				terms.add(term);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * ranks songs without an index, for stores that keep none: by the number of distinct query terms in title and
+	 * <p>
+	 * artist, then by how often they occur there, ties by the smaller id. only the best limit songs are kept while
+	 * <p>
+	 * the songs are streamed
+	 *
+	 * @param songs songs to search, consumed
+	 * @param query search text
+	 * @param limit maximum number of results
+	 *
+	 * @return Songs containing at least one of the query terms, best match first
+	 */
+	public static List<Song> rank(Stream<Song> songs, String query, int limit) {
+		Set<String> terms = new HashSet<>(tokenize(query));
+		if (terms.isEmpty() || limit < 1) {
+			return List.of();
+		}
+		// the worst of the best hits so far on top
+		PriorityQueue<RankedSong> best = new PriorityQueue<>(Comparator.<RankedSong>naturalOrder().reversed());
+		songs.forEach(song -> {
+			Set<String> matched = new HashSet<>();
+			int occurrences = 0;
+			for (List<String> text : List.of(tokenize(song.getTitle()), tokenize(song.getArtist()))) {
+				for (String term : text) {
+					if (terms.contains(term)) {
+						matched.add(term);
+						occurrences++;
+					}
+				}
+			}
+			if (occurrences > 0) {
+				best.add(new RankedSong(song, matched.size(), occurrences));
+				if (best.size() > limit) {
+					best.poll();
+				}
+			}
+		});
+		List<Song> ranked = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			ranked.add(best.poll().song);
+		}
+		Collections.reverse(ranked);
+		return ranked;
+	}
+
+	/**
+	 * indexes a song, the song must not be indexed already
+	 *
+	 * @param song Song
+	 */
+	public void add(Song song) {
+		Map<String, Integer> frequencies = termFrequencies(song);
+		int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+		long stamp = lock.writeLock();
+		try {
+			frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings()).add(song.getId(), frequency));
+			documentLengths.put(song.getId(), length);
+			totalLength += length;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * removes a song from the index, the song has to be the indexed one (same title and artist)
+	 *
+	 * @param song Song
+	 */
+	public void remove(Song song) {
+		Map<String, Integer> frequencies = termFrequencies(song);
+
+		long stamp = lock.writeLock();
+		try {
+			for (String term : frequencies.keySet()) {
+				Postings termPostings = postings.get(term);
+				if (termPostings != null && termPostings.remove(song.getId()) && termPostings.size == 0) {
+					postings.remove(term);
+				}
+			}
+			totalLength -= documentLengths.remove(song.getId());
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * removes all songs from the index
+	 */
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			postings.clear();
+			documentLengths.clear();
+			totalLength = 0;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * searches for songs containing at least one of the query terms
+	 *
+	 * @param query search text
+	 * @param limit maximum number of results
+	 *
+	 * @return song ids, best match first
+	 */
+	public int[] search(String query, int limit) {
+		return searchScored(query, limit).getIds();
+	}
+
+	/**
+	 * like search, but with the scores, so the hits of several indexes can be merged
+	 * <p>
+	 * scores are computed with the statistics of this index only
+	 *
+	 * @param query search text
+	 * @param limit maximum number of results
+	 *
+	 * @return Hits, best match first
+	 */
+	public Hits searchScored(String query, int limit) {
+		List<String> terms = tokenize(query);
+		if (terms.isEmpty() || limit < 1) {
+			return Hits.NONE;
+		}
+
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				Hits hits = score(terms, limit);
+				if (lock.validate(stamp)) {
+					return hits;
+				}
+			} catch (RuntimeException e) {
+				// a write changed the postings under the search, e.g. a posting list shrank
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return score(terms, limit);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * scores the postings of the terms, may see a write in progress when called without the read lock
+	 */
+	private Hits score(List<String> terms, int limit) {
+		int documents = documentLengths.size();
+		if (documents == 0) {
+			return Hits.NONE;
+		}
+		double averageLength = (double) totalLength / documents;
+
+		// accumulate scores per song in primitive arrays, slotOf maps song id -> index in ids/scores
+		IntIntHashMap slotOf = new IntIntHashMap(64, -1);
+		int[] ids = new int[64];
+		double[] scores = new double[64];
+		int hits = 0;
+
+		for (String term : new LinkedHashSet<>(terms)) {
+			Postings termPostings = postings.get(term);
+			if (termPostings == null) {
+				continue;
+			}
+			double idf = Math.log(1 + (documents - termPostings.size + 0.5) / (termPostings.size + 0.5));
+			for (int i = 0; i < termPostings.size; i++) {
+				int id = termPostings.ids[i];
+				int frequency = termPostings.frequencies[i];
+				double normalization = K1 * (1 - B + B * documentLengths.get(id) / averageLength);
+				double score = idf * frequency * (K1 + 1) / (frequency + normalization);
+
+				int slot = slotOf.get(id);
+				if (slot < 0) {
+					if (hits == ids.length) {
+						ids = Arrays.copyOf(ids, hits * 2);
+						scores = Arrays.copyOf(scores, hits * 2);
+					}
+					slot = hits++;
+					slotOf.put(id, slot);
+					ids[slot] = id;
+				}
+				scores[slot] += score;
+			}
+		}
+
+		return topK(ids, scores, hits, limit);
+	}
+
+	/**
+	 * selects the best k hits with a min heap, ties are broken by the smaller id
+	 */
+	private static Hits topK(int[] ids, double[] scores, int hits, int k) {
+		PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, hits) + 1, (a, b) -> compare(ids, scores, b, a));
+		for (int slot = 0; slot < hits; slot++) {
+			heap.add(slot);
+			if (heap.size() > k) {
+				heap.poll();
+			}
+		}
+		int[] resultIds = new int[heap.size()];
+		double[] resultScores = new double[heap.size()];
+		for (int i = resultIds.length - 1; i >= 0; i--) {
+			int slot = heap.poll();
+			resultIds[i] = ids[slot];
+			resultScores[i] = scores[slot];
+		}
+		return new Hits(resultIds, resultScores);
+	}
+
+	/**
+	 * orders slots descending by score, then ascending by id
+	 */
+	private static int compare(int[] ids, double[] scores, int a, int b) {
+		int byScore = Double.compare(scores[b], scores[a]);
+		return byScore != 0 ? byScore : Integer.compare(ids[a], ids[b]);
+	}
+
+	private static Map<String, Integer> termFrequencies(Song song) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		tokenize(song.getTitle()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+		tokenize(song.getArtist()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+		return frequencies;
+	}
+
+	/**
+	 * song ranked without an index, ordered best first
+	 */
+	private static final class RankedSong implements Comparable<RankedSong> {
+		private final Song song;
+		private final int matchedTerms;
+		private final int occurrences;
+
+		private RankedSong(Song song, int matchedTerms, int occurrences) {
+			this.song = song;
+			this.matchedTerms = matchedTerms;
+			this.occurrences = occurrences;
+		}
+
+		@Override
+		public int compareTo(RankedSong other) {
+			if (matchedTerms != other.matchedTerms) {
+				return Integer.compare(other.matchedTerms, matchedTerms);
+			}
+			if (occurrences != other.occurrences) {
+				return Integer.compare(other.occurrences, occurrences);
+			}
+			return Integer.compare(song.getId(), other.song.getId());
+		}
+	}
+
+	/**
+	 * result of a search, the score of ids[i] is scores[i]
+	 */
+	public static final class Hits {
+		private static final Hits NONE = new Hits(new int[0], new double[0]);
+
+		private final int[] ids;
+		private final double[] scores;
+
+		private Hits(int[] ids, double[] scores) {
+			this.ids = ids;
+			this.scores = scores;
+		}
+
+		public int[] getIds() {
+			return ids;
+		}
+
+		public double[] getScores() {
+			return scores;
+		}
+	}
+
+	/**
+	 * unsorted, growable posting list of one term
+	 * <p>
+	 * lists of common terms get an id -> position map once they are long, so removing a song costs O(1) per term
+	 * <p>
+	 * instead of a scan over all songs containing the term. short lists are scanned, a map would cost more memory
+	 */
+	private static final class Postings {
+		/**
+		 * size from which a list keeps positionOf
+		 */
+		private static final int INDEXED_SIZE = 64;
+
+		private int[] ids = new int[4];
+		private int[] frequencies = new int[4];
+		private int size;
+		private IntIntHashMap positionOf;
+
+		private void add(int id, int frequency) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			ids[size] = id;
+			frequencies[size] = frequency;
+			if (positionOf != null) {
+				positionOf.put(id, size);
+			} else if (size + 1 == INDEXED_SIZE) {
+				positionOf = new IntIntHashMap(INDEXED_SIZE * 2, -1);
+				for (int i = 0; i <= size; i++) {
+					positionOf.put(ids[i], i);
+				}
+			}
+			size++;
+		}
+
+		private boolean remove(int id) {
+			int position = positionOf != null ? positionOf.remove(id) : find(id);
+			if (position < 0) {
+				return false;
+			}
+			// move the last entry into the gap, order doesn't matter
+			size--;
+			if (position != size) {
+				ids[position] = ids[size];
+				frequencies[position] = frequencies[size];
+				if (positionOf != null) {
+					positionOf.put(ids[position], position);
+				}
+			}
+			return true;
+		}
+
+		private int find(int id) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+}
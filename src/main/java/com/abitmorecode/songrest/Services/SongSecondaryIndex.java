@@ -0,0 +1,128 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * secondary indexes over artist, label (hash) and release year (sorted)
+ * <p>
+ * writes have to be serialized by the caller, reads may run concurrently. songs get indexed before they are published
+ * <p>
+ * in a snapshot, so every candidate is verified against the snapshot the query runs on
+ */
+public class SongSecondaryIndex {
+
+	private final Map<String, Set<Integer>> byArtist = new ConcurrentHashMap<>();
+	private final Map<String, Set<Integer>> byLabel = new ConcurrentHashMap<>();
+	private final NavigableMap<Integer, Set<Integer>> byReleased = new ConcurrentSkipListMap<>();
+
+	/**
+	 * adds a song to all indexes
+	 *
+	 * @param song Song
+	 */
+	public void add(Song song) {
+		// songs without artist or label can't match a query for it, so they aren't indexed for it
+		if (song.getArtist() != null) {
+			byArtist.computeIfAbsent(SongQuery.normalize(song.getArtist()), k -> ConcurrentHashMap.newKeySet()).add(song.getId());
+		}
+		if (song.getLabel() != null) {
+			byLabel.computeIfAbsent(SongQuery.normalize(song.getLabel()), k -> ConcurrentHashMap.newKeySet()).add(song.getId());
+		}
+		byReleased.computeIfAbsent(song.getReleased(), k -> ConcurrentHashMap.newKeySet()).add(song.getId());
+	}
+
+	/**
+	 * removes a song from all indexes
+	 *
+	 * @param song Song
+	 */
+	public void remove(Song song) {
+		if (song.getArtist() != null) {
+			removeFrom(byArtist, SongQuery.normalize(song.getArtist()), song.getId());
+		}
+		if (song.getLabel() != null) {
+			removeFrom(byLabel, SongQuery.normalize(song.getLabel()), song.getId());
+		}
+		removeFrom(byReleased, song.getReleased(), song.getId());
+	}
+
+	/**
+	 * removes all songs from all indexes
+	 */
+	public void clear() {
+		byArtist.clear();
+		byLabel.clear();
+		byReleased.clear();
+	}
+
+	/**
+	 * finds all songs of a snapshot matching the query, in id order
+	 * <p>
+	 * only the smallest posting list gets iterated, every candidate is looked up in the snapshot in O(log n) and the
+	 * <p>
+	 * other filters are checked on the song in O(1), so a query costs O(k log n) for k candidates
+	 *
+	 * @param query    filter, must not be empty
+	 * @param snapshot snapshot to resolve the ids against
+	 *
+	 * @return List of matching songs
+	 */
+	public List<Song> find(SongQuery query, SongSnapshot snapshot) {
+		Collection<Integer> mostSelective = null;
+		if (query.getArtist() != null) {
+			mostSelective = byArtist.getOrDefault(SongQuery.normalize(query.getArtist()), Set.of());
+		}
+		if (query.getLabel() != null) {
+			Set<Integer> labelIds = byLabel.getOrDefault(SongQuery.normalize(query.getLabel()), Set.of());
+			if (mostSelective == null || labelIds.size() < mostSelective.size()) {
+				mostSelective = labelIds;
+			}
+		}
+		if (query.getReleasedFrom() != null || query.getReleasedTo() != null) {
+			int from = query.getReleasedFrom() == null ? Integer.MIN_VALUE : query.getReleasedFrom();
+			int to = query.getReleasedTo() == null ? Integer.MAX_VALUE : query.getReleasedTo();
+			if (from > to) {
+				return List.of();
+			}
+			Collection<Set<Integer>> years = byReleased.subMap(from, true, to, true).values();
+			// the size of the range is the sum over its (few) distinct years, the ids only get copied if it's the smallest list
+			int rangeSize = years.stream().mapToInt(Set::size).sum();
+			if (mostSelective == null || rangeSize < mostSelective.size()) {
+				List<Integer> rangeIds = new ArrayList<>(rangeSize);
+				years.forEach(rangeIds::addAll);
+				mostSelective = rangeIds;
+			}
+		}
+		if (mostSelective == null) {
+			throw new IllegalArgumentException("query without any filter: " + query);
+		}
+
+		List<Song> result = new ArrayList<>(mostSelective.size());
+		for (Integer id : mostSelective) {
+			Song song = snapshot.find(id);
+			if (song != null && query.matches(song)) {
+				result.add(song);
+			}
+		}
+		result.sort(Comparator.comparingInt(Song::getId));
+		return result;
+	}
+
+	private static <K> void removeFrom(Map<K, Set<Integer>> index, K key, int id) {
+		index.computeIfPresent(key, (k, ids) -> {
+			ids.remove(id);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+}
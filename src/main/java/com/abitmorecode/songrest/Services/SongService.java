@@ -2,51 +2,299 @@ package com.abitmorecode.songrest.Services;
 
 import com.abitmorecode.songrest.Controller.SongController;
 import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.Services.Journal.SongJournal;
 import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
 import com.abitmorecode.songrest.SongControllerException.SameSongAlreadyExistException;
 import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
 import com.abitmorecode.songrest.SongControllerException.SongIdAlreadyExistException;
-import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Song Controller (Service)
  */
 
 @Service
+@ConditionalOnProperty(name = "songrest.store", havingValue = "memory", matchIfMissing = true)
 public class SongService implements SongsManager {
 
+	/**
+	 * catalog loaded on startup
+	 */
+	public static final String DEFAULT_CATALOG_PATH = "exercises/1/songs.json";
+
+	/**
+	 * changes kept by the change log, if it isn't configured
+	 */
+	public static final int DEFAULT_CHANGE_LOG_CAPACITY = 10_000;
+
+	/**
+	 * chunks the catalog file is split into per parsing thread, so a slow chunk doesn't keep the others waiting
+	 */
+	private static final int CHUNKS_PER_LOAD_THREAD = 4;
+
+	/**
+	 * progress is reported once per chunk
+	 */
+	private static final int MIN_CHUNKS = 32;
+
+	/**
+	 * chunks parsed ahead of the thread putting the songs into the catalog per parsing thread, bounds the parsed and
+	 * <p>
+	 * not yet inserted songs
+	 */
+	private static final int CHUNKS_IN_FLIGHT_PER_LOAD_THREAD = 2;
+
 	private static final Logger log = LoggerFactory.getLogger(SongController.class);
 
-	private static final List<Song> songs = new ArrayList<>();
+	/**
+	 * current immutable state of the catalog, replaced atomically on every write
+	 * <p>
+	 * readers never lock, they just take the latest published snapshot
+	 */
+	private volatile SongSnapshot songs = SongSnapshot.empty();
 
-	private static final Gson gson = new Gson();
+	/**
+	 * artist, label and release year indexes, written under writeLock
+	 */
+	private final SongSecondaryIndex index = new SongSecondaryIndex();
+
+	/**
+	 * full text index over title and artist, written under writeLock
+	 */
+	private final SongSearchIndex searchIndex = new SongSearchIndex();
+
+	/**
+	 * pairs the indexes with the snapshot of the same version for queries, see IndexSeqLock
+	 */
+	private final IndexSeqLock indexLock = new IndexSeqLock();
+
+	/**
+	 * keeps track of used and free ids, guarded by writeLock
+	 */
+	private final FreeIdAllocator usedIds = new FreeIdAllocator();
+
+	/**
+	 * serializes all writes, so id checks, id assignment and publishing a snapshot happen atomically
+	 */
+	private final Object writeLock = new Object();
 
 	/**
-	 * default constructor
+	 * counters, gauges and timers of the catalog
+	 */
+	private final SongMetrics metrics;
+
+	/**
+	 * write-ahead journal of all changes, null if the catalog only lives in memory
+	 */
+	private final SongJournal journal;
+
+	/**
+	 * versions for conditional requests, changed after publishing a write
+	 */
+	private final SongVersions versions = new SongVersions();
+	private final SongRemovalListeners removalListeners = new SongRemovalListeners();
+
+	/**
+	 * changes since startup for delta sync and the change feed, appended under writeLock
+	 */
+	private final SongChangeLog changes;
+
+	/**
+	 * json catalog the service was started with
+	 */
+	private final Path catalogPath;
+
+	/**
+	 * fingerprints of the catalog file loaded last, reload applies the changes of the file against them. only kept
+	 * <p>
+	 * from takeCatalogAsLoaded until releaseLoadedCatalog, while a watcher runs, null otherwise, reload counts the file
+	 * <p>
+	 * as empty then. replaced under writeLock
+	 */
+	private volatile SongCatalogFingerprints loadedCatalog;
+
+	/**
+	 * threads parsing the catalog file
+	 */
+	private final int loadThreads;
+
+	/**
+	 * progress of the latest load of the catalog file
+	 */
+	private final SongCatalogLoad catalogLoad = new SongCatalogLoad();
+
+	/**
+	 * default constructor, registers the meters at the global registry
 	 */
 	public SongService() {
-		String filepath = "exercises/1/songs.json";
+		this(Metrics.globalRegistry);
+	}
+
+	/**
+	 * constructor without journal
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 */
+	public SongService(MeterRegistry meterRegistry) {
+		this(meterRegistry, (SongJournal) null);
+	}
+
+	/**
+	 * constructor, uses the journal if songrest.journal.enabled is set
+	 *
+	 * @param meterRegistry     registry for the catalog meters
+	 * @param journal           provider of the optional journal
+	 * @param changeLogCapacity number of changes kept for delta sync
+	 * @param catalogPath       json catalog loaded on startup, if the journal is empty
+	 * @param asyncLoad         load the catalog in the background instead of in the constructor
+	 * @param loadThreads       threads parsing the catalog, 0 for one per processor
+	 */
+	@Autowired
+	public SongService(MeterRegistry meterRegistry, ObjectProvider<SongJournal> journal,
+					   @Value("${songrest.changes.capacity:10000}") int changeLogCapacity,
+					   @Value("${songrest.catalog.path:" + DEFAULT_CATALOG_PATH + "}") Path catalogPath,
+					   @Value("${songrest.catalog.async-load:false}") boolean asyncLoad,
+					   @Value("${songrest.catalog.load-threads:0}") int loadThreads) {
+		this(meterRegistry, journal.getIfAvailable(), new SongChangeLog(changeLogCapacity), catalogPath, asyncLoad, loadThreads);
+	}
+
+	/**
+	 * constructor, recovers the catalog from the journal or loads the default catalog, if the journal is empty
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param journal       journal to recover from and append to, may be null
+	 */
+	public SongService(MeterRegistry meterRegistry, SongJournal journal) {
+		this(meterRegistry, journal, new SongChangeLog(DEFAULT_CHANGE_LOG_CAPACITY));
+	}
+
+	/**
+	 * constructor, recovers the catalog from the journal or loads the default catalog, if the journal is empty
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param journal       journal to recover from and append to, may be null
+	 * @param changes       log for the changes after startup
+	 */
+	public SongService(MeterRegistry meterRegistry, SongJournal journal, SongChangeLog changes) {
+		this(meterRegistry, journal, changes, Path.of(DEFAULT_CATALOG_PATH));
+	}
+
+	/**
+	 * constructor, recovers the catalog from the journal or loads the catalog file, if the journal is empty
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param journal       journal to recover from and append to, may be null
+	 * @param changes       log for the changes after startup
+	 * @param catalogPath   json catalog, see reload for updates of the file
+	 */
+	public SongService(MeterRegistry meterRegistry, SongJournal journal, SongChangeLog changes, Path catalogPath) {
+		this(meterRegistry, journal, changes, catalogPath, false, 0);
+	}
+
+	/**
+	 * constructor, recovers the catalog from the journal or loads the catalog file, if the journal is empty
+	 * <p>
+	 * with asyncLoad the file is loaded by a background thread, the service can be used right away but isn't ready
+	 * <p>
+	 * until getCatalogLoad says so, the web layer answers with 503 meanwhile. recovering the journal is always
+	 * <p>
+	 * done in the constructor
+	 *
+	 * @param meterRegistry registry for the catalog meters
+	 * @param journal       journal to recover from and append to, may be null
+	 * @param changes       log for the changes after startup
+	 * @param catalogPath   json catalog, see reload for updates of the file
+	 * @param asyncLoad     load the catalog in the background instead of in the constructor
+	 * @param loadThreads   threads parsing the catalog, 0 for one per processor
+	 */
+	public SongService(MeterRegistry meterRegistry, SongJournal journal, SongChangeLog changes, Path catalogPath,
+					   boolean asyncLoad, int loadThreads) {
+		this.changes = changes;
+		this.catalogPath = catalogPath;
+		this.loadThreads = loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
+		metrics = new SongMetrics(meterRegistry);
+		metrics.bindCatalogSize(this, s -> s.songs.size());
+		this.journal = journal;
+
+		if (journal != null && recover()) {
+			return;
+		}
+		if (asyncLoad) {
+			catalogLoad.loadingInBackground();
+			Thread loader = new Thread(this::loadInBackground, "song-catalog-loader");
+			loader.setDaemon(true);
+			loader.start();
+			return;
+		}
 		try {
-			init(filepath);
+			init(catalogPath.toString());
 		} catch (IOException e) {
 			log.error(Arrays.toString(e.getStackTrace()));
 		}
 	}
 
+	/**
+	 * loads the catalog file, a file that can't be loaded leaves the songs loaded so far, like on a synchronous load
+	 */
+	private void loadInBackground() {
+		try {
+			init(catalogPath.toString());
+		} catch (IOException | RuntimeException e) {
+			log.error("catalog " + catalogPath + " can't be loaded, starting with " + songs.size() + " songs: " + e);
+			catalogLoad.failed(e);
+		}
+	}
+
+	/**
+	 * restores the catalog from the journal
+	 *
+	 * @return boolean, if the journal had any data
+	 */
+	private boolean recover() {
+		SongJournal.Recovery recovery;
+		try {
+			recovery = journal.recover();
+		} catch (IOException e) {
+			throw new UncheckedIOException("journal can't be recovered", e);
+		}
+		if (recovery.isEmpty()) {
+			return false;
+		}
+		synchronized (writeLock) {
+			indexLock.beginWrite();
+			try {
+				recovery.getSongs().forEach(this::insert);
+			} finally {
+				indexLock.endWrite();
+			}
+			versions.changedAll();
+		}
+		metrics.catalogLoaded(recovery.getDurationNanos());
+		return true;
+	}
+
 	/**
 	 * init a json via a file (filepath)
 	 * <p>
@@ -59,49 +307,365 @@ public class SongService implements SongsManager {
 	 * @throws IOException thrown, if file doesn't exist or file can't be read
 	 */
 	public void init(String filepath) throws IOException {
-		// load in string
-		Stream<String> linesStream = Files.lines(Path.of(filepath));
-		AtomicReference<String> allLines = new AtomicReference<>("");
-		Arrays.stream(linesStream.toArray()).forEach((line) -> allLines.updateAndGet(v -> v + line));
-
-		// remove all the spaces
-		String lines = allLines.get().replaceAll("\\s+(?=([^\"]*\"[^\"]*\")*[^\"]*$)", "");
-
-		// format Json into Array of Songs
-		Song[] loadedIn;
-		// init empty array, if no object/s was/were found / loaded in
-		if ((loadedIn = gson.fromJson(lines, Song[].class)) == null) {
+		Path path = Path.of(filepath);
+		catalogLoad.started(Files.size(path));
+		// with one thread there is nothing to overlap, it parses the chunks itself
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService parsers = loadThreads == 1 ? null : Executors.newFixedThreadPool(loadThreads, r -> {
+			Thread thread = new Thread(r, "song-catalog-parser-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		SongJsonLoader.Result result;
+		try {
+			// chunks are parsed in parallel, this thread puts the songs into the index in file order meanwhile
+			result = SongJsonLoader.loadParallel(path, parsers, Math.max(MIN_CHUNKS, loadThreads * CHUNKS_PER_LOAD_THREAD),
+					loadThreads * CHUNKS_IN_FLIGHT_PER_LOAD_THREAD, this::putSong, catalogLoad::bytesLoaded);
+		} finally {
+			if (parsers != null) {
+				parsers.shutdownNow();
+			}
+		}
+		synchronized (writeLock) {
+			versions.changedAll();
+		}
+		// one snapshot instead of a journal record per loaded song
+		checkpoint();
+		catalogLoad.finished();
+		if (result.getLoaded() == 0 && result.getSkipped() == 0) {
 			log.warn("no jsons found to load in from file: " + filepath + ", no songs where found");
-			loadedIn = new Song[]{};
 		}
+		SongJsonLoader.catalogLoaded(result, metrics, log);
+	}
+
+	/**
+	 * @return json catalog the service was started with
+	 */
+	public Path getCatalogPath() {
+		return catalogPath;
+	}
+
+	@Override
+	public SongCatalogLoad getCatalogLoad() {
+		return catalogLoad;
+	}
+
+	/**
+	 * applies the changes of a json catalog file since it was loaded last to the catalog
+	 * <p>
+	 * the file is parsed once and compared with the file loaded last outside of the write lock, a change is only
+	 * <p>
+	 * applied if the catalog still has the song like the loaded file had it, songs added, changed or deleted through
+	 * <p>
+	 * the API are kept. only the changed songs are written to the indexes and the journal. readers never wait, they
+	 * <p>
+	 * see the whole change at once, when the new snapshot is published. if the catalog was written meanwhile, the diff
+	 * <p>
+	 * is computed again under the lock
+	 *
+	 * @param filepath json catalog
+	 *
+	 * @return applied SongCatalogDiff
+	 *
+	 * @throws IOException thrown, if file doesn't exist or file can't be read
+	 */
+	public SongCatalogDiff reload(Path filepath) throws IOException {
+		try {
+			// the background load would put the rest of the old file over the reloaded catalog
+			catalogLoad.await(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while the catalog was loading");
+		}
+		List<Song> parsed = new ArrayList<>();
+		SongJsonLoader.Result result = SongJsonLoader.load(filepath, parsed::add);
+		List<Song> catalog = SongCatalogDiff.distinctById(parsed);
+		SongCatalogFingerprints fingerprints = SongCatalogFingerprints.of(catalog);
+		SongCatalogFingerprints loaded = loadedCatalog;
+		SongSnapshot before = songs;
+		SongCatalogDiff diff = SongCatalogDiff.between(before, loaded != null ? loaded : SongCatalogFingerprints.empty(), catalog);
+
+		SongJournal.Records records = null;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			if (songs != before || loadedCatalog != loaded) {
+				loaded = loadedCatalog;
+				diff = SongCatalogDiff.between(songs, loaded != null ? loaded : SongCatalogFingerprints.empty(), catalog);
+			}
+			if (loadedCatalog != null) {
+				loadedCatalog = fingerprints;
+			}
+			SongSnapshot next = songs;
+			indexLock.beginWrite();
+			try {
+				for (Song song : diff.getRemoved()) {
+					next = next.without(song.getId());
+					index.remove(song);
+					searchIndex.remove(song);
+					usedIds.markFree(song.getId());
+				}
+				for (Song song : diff.getChanged()) {
+					Song old = next.find(song.getId());
+					index.remove(old);
+					searchIndex.remove(old);
+					index.add(song);
+					searchIndex.add(song);
+					next = next.with(song);
+				}
+				for (Song song : diff.getAdded()) {
+					index.add(song);
+					searchIndex.add(song);
+					next = next.with(song);
+					usedIds.markUsed(song.getId());
+				}
+				songs = next;
+			} finally {
+				indexLock.endWrite();
+			}
+
+			for (Song song : diff.getRemoved()) {
+				removalListeners.songRemoved(song.getId());
+				versions.removed(song.getId());
+				changes.deleted(song.getId());
+			}
+			for (Song song : diff.getChanged()) {
+				versions.changed(song.getId());
+				changes.changed(song);
+			}
+			for (Song song : diff.getAdded()) {
+				versions.changed(song.getId());
+				changes.added(song);
+			}
+			if (journal != null) {
+				records = journal.records();
+				for (Song song : diff.getRemoved()) {
+					records.delete(song.getId());
+				}
+				for (Song song : diff.getChanged()) {
+					records.add(song);
+				}
+				for (Song song : diff.getAdded()) {
+					records.add(song);
+				}
+				journal.sequence(records);
+			}
+		}
+		awaitJournal(records);
 
-		// remove any Song with null in parameters
-		List<Song> nullList = Arrays.stream(loadedIn).filter(Song::anyNull).collect(Collectors.toList());
-		List<Song> clonedList = Arrays.stream(loadedIn).collect(Collectors.toList());
-		nullList.forEach(s -> log.warn(s.toString() + " was not added due to at least one 'null' parameter"));
-		clonedList.removeAll(nullList);
+		log.info("catalog " + filepath + " reloaded, " + diff + ", " + result.getLoaded() + " songs parsed in " + result.getDurationNanos() / 1_000_000 + " ms");
+		return diff;
+	}
 
-		// set the cleaned List as the officially running Song List
-		songs.addAll(clonedList.stream().sorted(Comparator.comparingInt(Song::getId)).collect(Collectors.toList()));
-		log.info(clonedList.size() + " Songs initialized");
+	/**
+	 * takes the catalog file as it is now as the one loaded last and keeps its fingerprints, so a reload only applies
+	 * <p>
+	 * changes of the file made later. the watcher calls it when it starts, a file that can't be read counts as empty,
+	 * <p>
+	 * its songs are added by the next reload unless the catalog has them
+	 */
+	public void takeCatalogAsLoaded() {
+		if (loadedCatalog != null) {
+			return;
+		}
+		List<Song> parsed = new ArrayList<>();
+		try {
+			SongJsonLoader.load(catalogPath, parsed::add);
+		} catch (IOException | RuntimeException e) {
+			log.warn("catalog " + catalogPath + " can't be read, reloads add its songs: " + e);
+			parsed.clear();
+		}
+		SongCatalogFingerprints catalog = SongCatalogFingerprints.of(SongCatalogDiff.distinctById(parsed));
+		synchronized (writeLock) {
+			if (loadedCatalog == null) {
+				loadedCatalog = catalog;
+			}
+		}
+	}
+
+	/**
+	 * drops the fingerprints of the catalog file loaded last, the watcher calls it when it stops
+	 */
+	public void releaseLoadedCatalog() {
+		synchronized (writeLock) {
+			loadedCatalog = null;
+		}
+	}
+
+	/**
+	 * puts a song into the index, replacing any song with the same id
+	 *
+	 * @param song Song
+	 */
+	private void putSong(Song song) {
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			Song replaced = songs.find(song.getId());
+			if (replaced != null) {
+				log.warn("song id: " + song.getId() + " is used more than once, keeping " + song.getTitle());
+			}
+			indexLock.beginWrite();
+			try {
+				if (replaced != null) {
+					index.remove(replaced);
+					searchIndex.remove(replaced);
+				}
+				insert(song);
+			} finally {
+				indexLock.endWrite();
+			}
+		}
+		catalogLoad.songLoaded();
+	}
+
+	/**
+	 * publishes a song with an unused id and indexes it, has to be called while holding the write lock, between
+	 * <p>
+	 * indexLock.beginWrite and endWrite
+	 *
+	 * @param song Song
+	 */
+	private void insert(Song song) {
+		index.add(song);
+		searchIndex.add(song);
+		songs = songs.with(song);
+		usedIds.markUsed(song.getId());
+	}
+
+	/**
+	 * writes a snapshot of the current catalog into the journal, so older journal records can be dropped
+	 * <p>
+	 * writers are only blocked while the journal switches to a new segment, the snapshot itself is written
+	 * <p>
+	 * from the immutable catalog state outside of the write lock. does nothing without journal
+	 */
+	public void checkpoint() {
+		if (journal == null) {
+			return;
+		}
+		SongSnapshot snapshot;
+		long seq;
+		synchronized (writeLock) {
+			seq = journal.rotate();
+			snapshot = songs;
+		}
+		try {
+			journal.writeSnapshot(snapshot.asList(), seq);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * writes the journal records of a change after the write lock was released and waits for them to be durable,
+	 * <p>
+	 * starts a compaction if the journal got too big or lost records, the snapshot contains the lost change then
+	 *
+	 * @param records journal records numbered under the write lock, null without journal
+	 */
+	private void awaitJournal(SongJournal.Records records) {
+		if (records == null) {
+			return;
+		}
+		try {
+			journal.write(records);
+			journal.awaitDurable(records.getLastSeq());
+		} finally {
+			if (journal.needsCompaction()) {
+				journal.compactInBackground(this::checkpoint);
+			}
+		}
 	}
 
 	@Override
 	public Song getSpecificSong(int id) throws SongDoesntExistException {
-		if (idAlreadyExist(id)) {
-			synchronized (songs) {
-				//noinspection OptionalGetWithoutIsPresent
-				return songs.stream().filter(s -> s.getId() == id).findFirst().get();
-			}
+		Song song = songs.find(id);
+		if (song != null) {
+			return song;
 		}
+		metrics.songNotFound();
 		throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
 	}
 
 	@Override
 	public List<Song> getAllSongs() {
+		return songs.asList();
+	}
+
+	@Override
+	public List<Song> getSongsAfter(long afterId, int limit) {
+		return songs.after(afterId, limit);
+	}
+
+	@Override
+	public List<Song> findSongs(SongQuery query) {
+		if (query.isEmpty()) {
+			return getAllSongs();
+		}
+		// without a write in between, so a song of the snapshot can't be missing from the index
+		return indexLock.read(() -> index.find(query, songs), () -> {
+			synchronized (writeLock) {
+				return index.find(query, songs);
+			}
+		});
+	}
+
+	@Override
+	public List<Song> searchSongs(String query, int limit) {
+		return indexLock.read(() -> search(query, limit), () -> {
+			synchronized (writeLock) {
+				return search(query, limit);
+			}
+		});
+	}
+
+	private List<Song> search(String query, int limit) {
+		SongSnapshot snapshot = songs;
+		List<Song> result = new ArrayList<>();
+		for (int id : searchIndex.search(query, limit)) {
+			Song song = snapshot.find(id);
+			if (song != null) {
+				result.add(song);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * getter for the current snapshot of the catalog
+	 *
+	 * @return latest published snapshot
+	 */
+	public SongSnapshot getSnapshot() {
 		return songs;
 	}
 
+	/**
+	 * reads use the published snapshot and search the index optimistically, only a query that kept racing with
+	 * <p>
+	 * writers waits for the write lock, which is never held while the journal writes or syncs
+	 */
+	@Override
+	public boolean readsWithoutBlocking() {
+		return true;
+	}
+
+	@Override
+	public void addRemovalListener(SongRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public SongVersions getVersions() {
+		return versions;
+	}
+
+	@Override
+	public SongChangeLog getChangeLog() {
+		return changes;
+	}
+
 	/**
 	 * adds a Song Object
 	 *
@@ -111,39 +675,176 @@ public class SongService implements SongsManager {
 	 */
 	@Override
 	public void addSong(Song song) throws NoIdAvailableException {
-		if (idAlreadyExist(song.getId())) {
-			int newId = getFirstUnusedId();
-			song.setId(newId);
-			log.warn("tried to add song with id: " + song.getId() + " wich is already in use, gonna use " + newId + " instead");
+		SongJournal.Records records = null;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			if (idAlreadyExist(song.getId())) {
+				int oldId = song.getId();
+				int newId = getFirstUnusedId();
+				song.setId(newId);
+				metrics.idReassigned();
+				log.warn("tried to add song with id: " + oldId + " wich is already in use, gonna use " + newId + " instead");
+			}
+			indexLock.beginWrite();
+			try {
+				insert(song);
+			} finally {
+				indexLock.endWrite();
+			}
+			versions.changed(song.getId());
+			changes.added(song);
+			if (journal != null) {
+				records = journal.records().add(song);
+				journal.sequence(records);
+			}
 		}
+		awaitJournal(records);
+
+		log.info(song.getTitle() + " was added");
+	}
+
+	/**
+	 * adds Song Objects as one atomic write, readers see either none or all of them
+	 * <p>
+	 * colliding ids (also within songs) are replaced by the first unused ids. if there are not enough unused ids,
+	 * <p>
+	 * nothing is added and the ids of the songs stay unchanged
+	 *
+	 * @param songs Songs without null values
+	 *
+	 * @throws NoIdAvailableException if there is no unused positive integer id
+	 */
+	@Override
+	public void addSongs(List<Song> songs) throws NoIdAvailableException {
+		SongJournal.Records records = null;
+		int reassigned = 0;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			int[] requestedIds = new int[songs.size()];
+			for (int i = 0; i < songs.size(); i++) {
+				Song song = songs.get(i);
+				requestedIds[i] = song.getId();
+				try {
+					if (usedIds.isUsed(song.getId())) {
+						song.setId(getFirstUnusedId());
+						reassigned++;
+					}
+				} catch (NoIdAvailableException e) {
+					releaseIds(songs, requestedIds, i);
+					throw e;
+				}
+				// reserved, so the next colliding song of the batch gets another id
+				usedIds.markUsed(song.getId());
+			}
+
+			if (journal != null) {
+				try {
+					// one record, recovery sees all songs of the batch or none, encoded first as it may be too big
+					records = journal.records().addAll(songs);
+				} catch (RuntimeException e) {
+					releaseIds(songs, requestedIds, songs.size());
+					throw e;
+				}
+			}
 
-		synchronized (songs) {
-			songs.add(song);
+			SongSnapshot next = this.songs;
+			indexLock.beginWrite();
+			try {
+				for (Song song : songs) {
+					index.add(song);
+					searchIndex.add(song);
+					next = next.with(song);
+				}
+				// publishing the snapshot makes the songs visible at once
+				this.songs = next;
+			} finally {
+				indexLock.endWrite();
+			}
+			for (Song song : songs) {
+				versions.changed(song.getId());
+				changes.added(song);
+			}
+			if (records != null) {
+				journal.sequence(records);
+			}
 		}
+		awaitJournal(records);
 
-		log.info(song.getTitle() + " was added");
+		metrics.idsReassigned(reassigned);
+		log.info(songs.size() + " songs were added, " + reassigned + " got a new id");
 	}
 
+	/**
+	 * undoes the id reservations of the first count songs of a failed addSongs, they get their requested ids back
+	 */
+	private void releaseIds(List<Song> songs, int[] requestedIds, int count) {
+		for (int i = 0; i < count; i++) {
+			usedIds.markFree(songs.get(i).getId());
+			songs.get(i).setId(requestedIds[i]);
+		}
+	}
 
 	@Override
 	public void deleteSong(int id) throws SongDoesntExistException {
-		if (idAlreadyExist(id)) {
-			//noinspection OptionalGetWithoutIsPresent
-			Song song = songs.stream().filter(s -> s.getId() == id).findFirst().get();
-			synchronized (songs) {
-				songs.remove(song);
-			}
-			log.info(song.getTitle() + " was removed");
-		}else {
+		Song song;
+		SongJournal.Records records = null;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			song = songs.find(id);
+			if (song != null) {
+				indexLock.beginWrite();
+				try {
+					index.remove(song);
+					searchIndex.remove(song);
+					songs = songs.without(id);
+				} finally {
+					indexLock.endWrite();
+				}
+				removalListeners.songRemoved(id);
+				usedIds.markFree(id);
+				versions.removed(id);
+				changes.deleted(id);
+				if (journal != null) {
+					records = journal.records().delete(id);
+					journal.sequence(records);
+				}
+			}
+		}
+		if (song == null) {
+			metrics.songNotFound();
 			throw new SongDoesntExistException("Song with id: " + id + " doesn't exist");
 		}
+		awaitJournal(records);
+		log.info(song.getTitle() + " was removed");
 	}
 
 	@Override
 	public void reset() {
-		synchronized (songs) {
-			songs.removeAll(new ArrayList<>(songs));
+		SongJournal.Records records = null;
+		long waitStart = System.nanoTime();
+		synchronized (writeLock) {
+			metrics.writeLockAcquired(waitStart);
+			indexLock.beginWrite();
+			try {
+				index.clear();
+				searchIndex.clear();
+				songs = songs.cleared();
+			} finally {
+				indexLock.endWrite();
+			}
+			removalListeners.allSongsRemoved();
+			usedIds.clear();
+			versions.changedAll();
+			changes.reset();
+			if (journal != null) {
+				records = journal.records().reset();
+				journal.sequence(records);
+			}
 		}
+		awaitJournal(records);
 		log.info("song list got cleared");
 	}
 
@@ -153,12 +854,8 @@ public class SongService implements SongsManager {
 	 * @return int id
 	 */
 	private int getLastId() {
-		if (songs.isEmpty()) {
-			return 0;
-		}
-		synchronized (songs) {
-			//noinspection OptionalGetWithoutIsPresent
-			return songs.stream().parallel().max((s1, s2) -> Math.max(s1.getId(), s2.getId())).get().getId();
+		synchronized (writeLock) {
+			return usedIds.lastUsedId();
 		}
 	}
 
@@ -168,28 +865,13 @@ public class SongService implements SongsManager {
 	 * 	<li>is bigger or equal to 0</li>
 	 * 	<li>there exists no song with an id equal to the returned integer</li>
 	 * </ul>
+	 * has to be called while holding the write lock
+	 *
 	 * @return first unused song id
 	 * @throws NoIdAvailableException if there is no positive Integer not already used as song id
 	 */
 	private int getFirstUnusedId() throws NoIdAvailableException {
-		int id = -1;
-		boolean isAvailable = false;
-
-		while(!isAvailable){
-			isAvailable = true;
-			id++;
-
-			for(Song song: songs){
-				if(song.getId() == id){
-					isAvailable = false;
-					break;
-				}
-			}
-
-			if(id == Integer.MAX_VALUE)throw new NoIdAvailableException("No unused song id available");
-		}
-
-		return id;
+		return usedIds.firstUnusedId();
 	}
 
 	/**
@@ -200,9 +882,7 @@ public class SongService implements SongsManager {
 	 * @return boolean, exists or not?
 	 */
 	private boolean idAlreadyExist(int id) {
-		synchronized (songs) {
-			return songs.stream().parallel().anyMatch(s -> s.getId() == id);
-		}
+		return songs.contains(id);
 	}
 
 	/**
@@ -213,8 +893,6 @@ public class SongService implements SongsManager {
 	 * @return boolean, already exist or not
 	 */
 	private boolean songAlreadyExist(Song song) {
-		synchronized (songs) {
-			return songs.stream().parallel().anyMatch(song::equals);
-		}
+		return song.equals(songs.find(song.getId()));
 	}
 }
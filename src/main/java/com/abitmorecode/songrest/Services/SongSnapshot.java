@@ -0,0 +1,298 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * immutable, versioned state of the song catalog
+ * <p>
+ * songs are kept in a persistent treap ordered by id: every write copies only the O(log n) nodes on its path and
+ * <p>
+ * returns a new snapshot, while readers holding an older snapshot keep seeing exactly that version
+ */
+public final class SongSnapshot {
+
+	private static final SongSnapshot EMPTY = new SongSnapshot(null, 0);
+
+	private final Node root;
+	private final long version;
+
+	private SongSnapshot(Node root, long version) {
+		this.root = root;
+		this.version = version;
+	}
+
+	/**
+	 * @return snapshot without any songs and version 0
+	 */
+	public static SongSnapshot empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @return version of this snapshot, every write increases it by one
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return number of songs
+	 */
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * @return boolean, no songs or not
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * getter for a song by id
+	 *
+	 * @param id id of Song
+	 *
+	 * @return Song or null, if there is no song with this id
+	 */
+	public Song find(int id) {
+		Node node = root;
+		while (node != null) {
+			if (id < node.id) {
+				node = node.left;
+			} else if (id > node.id) {
+				node = node.right;
+			} else {
+				return node.song;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param id id of Song
+	 *
+	 * @return boolean, exists or not
+	 */
+	public boolean contains(int id) {
+		return find(id) != null;
+	}
+
+	/**
+	 * creates a new snapshot containing the song, a song with the same id gets replaced
+	 * <p>
+	 * the snapshot keeps an immutable copy, so later changes of the given song don't reach it
+	 *
+	 * @param song Song to add
+	 *
+	 * @return new snapshot
+	 */
+	public SongSnapshot with(Song song) {
+		int id = song.getId();
+		Node[] lowerAndRest = split(root, id);
+		Node[] sameAndHigher = split(lowerAndRest[1], id + 1L);
+		Node node = new Node(song.toImmutable(), null, null);
+		return new SongSnapshot(merge(merge(lowerAndRest[0], node), sameAndHigher[1]), version + 1);
+	}
+
+	/**
+	 * creates a new snapshot without the song with the given id
+	 *
+	 * @param id id of Song to remove
+	 *
+	 * @return new snapshot, or this snapshot, if there is no song with this id
+	 */
+	public SongSnapshot without(int id) {
+		if (!contains(id)) {
+			return this;
+		}
+		Node[] lowerAndRest = split(root, id);
+		Node[] sameAndHigher = split(lowerAndRest[1], id + 1L);
+		return new SongSnapshot(merge(lowerAndRest[0], sameAndHigher[1]), version + 1);
+	}
+
+	/**
+	 * creates a new, empty snapshot with a higher version
+	 *
+	 * @return new snapshot
+	 */
+	public SongSnapshot cleared() {
+		return new SongSnapshot(null, version + 1);
+	}
+
+	/**
+	 * returns up to limit songs with an id bigger than afterId, in id order
+	 * <p>
+	 * costs O(log n + limit)
+	 *
+	 * @param afterId exclusive lower bound of the ids
+	 * @param limit   maximum number of songs
+	 *
+	 * @return List of songs
+	 */
+	public List<Song> after(long afterId, int limit) {
+		List<Song> page = new ArrayList<>(Math.min(limit, size()));
+		Iterator<Song> iterator = new InOrderIterator(root, afterId);
+		while (page.size() < limit && iterator.hasNext()) {
+			page.add(iterator.next());
+		}
+		return page;
+	}
+
+	/**
+	 * immutable List view of all songs in id order
+	 * <p>
+	 * size is O(1), iteration is O(n), positional access is O(log n)
+	 *
+	 * @return List of all songs
+	 */
+	public List<Song> asList() {
+		return new SnapshotList(this);
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * splits a tree into songs with id < key and songs with id >= key, without modifying it
+	 */
+	private static Node[] split(Node node, long key) {
+		if (node == null) {
+			return new Node[]{null, null};
+		}
+		if (node.id < key) {
+			Node[] parts = split(node.right, key);
+			return new Node[]{new Node(node.song, node.left, parts[0]), parts[1]};
+		}
+		Node[] parts = split(node.left, key);
+		return new Node[]{parts[0], new Node(node.song, parts[1], node.right)};
+	}
+
+	/**
+	 * merges two trees, where all ids of lower are smaller than all ids of higher, without modifying them
+	 */
+	private static Node merge(Node lower, Node higher) {
+		if (lower == null) {
+			return higher;
+		}
+		if (higher == null) {
+			return lower;
+		}
+		if (lower.priority > higher.priority) {
+			return new Node(lower.song, lower.left, merge(lower.right, higher));
+		}
+		return new Node(higher.song, merge(lower, higher.left), higher.right);
+	}
+
+	private static final class Node {
+		private final Song song;
+		private final int id;
+		private final int priority;
+		private final Node left;
+		private final Node right;
+		private final int size;
+
+		private Node(Song song, Node left, Node right) {
+			this.song = song;
+			this.id = song.getId();
+			this.priority = priorityOf(id);
+			this.left = left;
+			this.right = right;
+			this.size = 1 + size(left) + size(right);
+		}
+
+		/**
+		 * pseudo random but deterministic priority, so equal catalogs always have the same shape
+		 */
+		private static int priorityOf(int id) {
+			int h = id * 0x9E3779B9;
+			h ^= h >>> 16;
+			h *= 0x85EBCA6B;
+			h ^= h >>> 13;
+			return h;
+		}
+	}
+
+	/**
+	 * in order iterator starting behind a given id
+	 */
+	private static final class InOrderIterator implements Iterator<Song> {
+		private final Deque<Node> stack = new ArrayDeque<>();
+
+		private InOrderIterator(Node root, long afterId) {
+			Node node = root;
+			while (node != null) {
+				if (node.id > afterId) {
+					stack.push(node);
+					node = node.left;
+				} else {
+					node = node.right;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public Song next() {
+			if (stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			Node node = stack.pop();
+			for (Node next = node.right; next != null; next = next.left) {
+				stack.push(next);
+			}
+			return node.song;
+		}
+	}
+
+	private static final class SnapshotList extends AbstractList<Song> {
+		private final SongSnapshot snapshot;
+
+		private SnapshotList(SongSnapshot snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public Song get(int index) {
+			if (index < 0 || index >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			Node node = snapshot.root;
+			while (true) {
+				int leftSize = SongSnapshot.size(node.left);
+				if (index < leftSize) {
+					node = node.left;
+				} else if (index > leftSize) {
+					index -= leftSize + 1;
+					node = node.right;
+				} else {
+					return node.song;
+				}
+			}
+		}
+
+		@Override
+		public int size() {
+			return snapshot.size();
+		}
+
+		@Override
+		public Iterator<Song> iterator() {
+			return new InOrderIterator(snapshot.root, Long.MIN_VALUE);
+		}
+	}
+}
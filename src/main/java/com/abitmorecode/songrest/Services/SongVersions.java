@@ -0,0 +1,123 @@
+package com.abitmorecode.songrest.Services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * version counter of a catalog and of its single songs, the base for ETag and Last-Modified headers
+ * <p>
+ * every change gets the next version of the catalog, a song keeps the version of its last change. songs that were
+ * <p>
+ * not written since the last load or reset share one base version, so only written songs take memory.
+ * <p>
+ * stores call the change methods after publishing the change, readers take the version before reading the data.
+ * <p>
+ * that way a version may be older than the data it is sent with, but never newer. reads don't lock.
+ * <p>
+ * changes of the same song have to be serialized by the store and changedAll must not run concurrently to other
+ * <p>
+ * changes, the catalog version itself is counted up without a lock, so stores with several write locks don't meet here
+ */
+public class SongVersions {
+
+	/**
+	 * part of every tag, so versions of an earlier run of the service don't match
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final Map<Integer, Version> written;
+	private final AtomicReference<Version> catalog = new AtomicReference<>(new Version(epoch, 1, System.currentTimeMillis()));
+	private volatile Version base = catalog.get();
+
+	/**
+	 * SongVersions constructor, all songs start with the same version
+	 */
+	public SongVersions() {
+		this(new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * @param written empty concurrent map for the versions of written songs
+	 */
+	SongVersions(Map<Integer, Version> written) {
+		this.written = written;
+	}
+
+	/**
+	 * @return current version of the whole catalog
+	 */
+	public Version catalog() {
+		return catalog.get();
+	}
+
+	/**
+	 * @param id id of Song
+	 *
+	 * @return version of the last change of the song with the id
+	 */
+	public Version song(int id) {
+		return written.getOrDefault(id, base);
+	}
+
+	/**
+	 * a song was added or replaced
+	 *
+	 * @param id id of Song
+	 */
+	public void changed(int id) {
+		written.put(id, next());
+	}
+
+	/**
+	 * a song was deleted, its id keeps the new version, so old tags of the id don't match anymore
+	 *
+	 * @param id id of Song
+	 */
+	public void removed(int id) {
+		written.put(id, next());
+	}
+
+	/**
+	 * all songs may have changed, e.g. after loading a catalog or a reset
+	 */
+	public void changedAll() {
+		// the new base first, a reader between the two steps must not get the old base for a written song
+		base = next();
+		written.clear();
+	}
+
+	private Version next() {
+		long now = System.currentTimeMillis();
+		return catalog.updateAndGet(current -> new Version(epoch, current.number + 1, now));
+	}
+
+	/**
+	 * one version, immutable
+	 */
+	public static final class Version {
+		private final String epoch;
+		private final long number;
+		private final long lastModified;
+
+		private Version(String epoch, long number, long lastModified) {
+			this.epoch = epoch;
+			this.number = number;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * @return strong ETag of this version, without quotes
+		 */
+		public String getTag() {
+			return epoch + "-" + number;
+		}
+
+		/**
+		 * @return time of the change in milliseconds since the epoch
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+	}
+}
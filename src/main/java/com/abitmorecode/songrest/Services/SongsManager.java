@@ -1,12 +1,16 @@
 package com.abitmorecode.songrest.Services;
 
 import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
 import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
 import com.abitmorecode.songrest.SongControllerException.SameSongAlreadyExistException;
 import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
 import com.abitmorecode.songrest.SongControllerException.SongIdAlreadyExistException;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface SongsManager {
 
@@ -23,20 +27,146 @@ public interface SongsManager {
 
 	/**
 	 * getter for all Songs
+	 * <p>
+	 * the returned List is an immutable, consistent view, later writes don't change it
 	 *
 	 * @return List of all songs
 	 */
 	List<Song> getAllSongs();
 
+	/**
+	 * all Songs in id order as a lazy stream over a consistent view, for exports of the whole catalog
+	 * <p>
+	 * stores locking every read stream page by page instead, the stream sees writes to ids it didn't pass yet then.
+	 * <p>
+	 * the stream has to be closed, it may hold resources like a database cursor
+	 *
+	 * @return Stream of all songs
+	 */
+	default Stream<Song> streamAllSongs() {
+		return getAllSongs().stream();
+	}
+
+	/**
+	 * getter for one page of Songs in id order
+	 *
+	 * @param afterId only Songs with a bigger id are returned
+	 * @param limit   maximum number of Songs
+	 *
+	 * @return List of at most limit Songs
+	 */
+	default List<Song> getSongsAfter(long afterId, int limit) {
+		return getAllSongs().stream()
+				.filter(s -> s.getId() > afterId)
+				.sorted(Comparator.comparingInt(Song::getId))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * getter for all Songs matching a query, in id order
+	 *
+	 * @param query filter
+	 *
+	 * @return List of matching Songs
+	 */
+	default List<Song> findSongs(SongQuery query) {
+		return getAllSongs().stream()
+				.filter(query::matches)
+				.sorted(Comparator.comparingInt(Song::getId))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * full text search over title and artist, best match first
+	 * <p>
+	 * stores with a search index rank with BM25, the default streams the catalog and ranks by the query terms a song
+	 * <p>
+	 * contains, see SongSearchIndex.rank
+	 *
+	 * @param query search text
+	 * @param limit maximum number of Songs
+	 *
+	 * @return List of matching Songs
+	 */
+	default List<Song> searchSongs(String query, int limit) {
+		try (Stream<Song> songs = streamAllSongs()) {
+			return SongSearchIndex.rank(songs, query, limit);
+		}
+	}
+
+	/**
+	 * tells if reads only look at published, immutable state and never wait for a lock, a file or a database
+	 * <p>
+	 * such reads may run on an event loop thread, writes are always expected to block
+	 *
+	 * @return boolean, false unless the store overrides it
+	 */
+	default boolean readsWithoutBlocking() {
+		return false;
+	}
+
+	/**
+	 * versions of the catalog and its songs for ETag and Last-Modified headers
+	 * <p>
+	 * null if the store can't see all changes, e.g. because other services write into the same database
+	 *
+	 * @return SongVersions, may be null
+	 */
+	default SongVersions getVersions() {
+		return null;
+	}
+
+	/**
+	 * log of the latest changes, for clients that keep a copy of the catalog up to date
+	 * <p>
+	 * null if the store doesn't keep one
+	 *
+	 * @return SongChangeLog, may be null
+	 */
+	default SongChangeLog getChangeLog() {
+		return null;
+	}
+
+	/**
+	 * state of loading the catalog on startup, for the readiness probe and the requests during warm-up
+	 * <p>
+	 * null if the store is ready as soon as it is constructed
+	 *
+	 * @return SongCatalogLoad, may be null
+	 */
+	default SongCatalogLoad getCatalogLoad() {
+		return null;
+	}
+
 	/**
 	 * adds a Song Object
+	 * <p>
+	 * a song with an id in use gets the first unused id set, so songs handed out by a store (ImmutableSong) can't be
+	 * <p>
+	 * added again, add a copy of them
 	 *
-	 * @param song Song
+	 * @param song Song, gets the id it was added with
 	 *
 	 * @throws NoIdAvailableException thrown, if there is no unused positive integer id available
 	 */
 	void addSong(Song song) throws NoIdAvailableException;
 
+	/**
+	 * adds several Song Objects, songs with an already used id get a new one like in addSong
+	 * <p>
+	 * implementations may apply the songs as one atomic write, the default adds them one by one
+	 *
+	 * @param songs Songs without null values
+	 *
+	 * @throws NoIdAvailableException thrown, if there is no unused positive integer id available
+	 */
+	default void addSongs(List<Song> songs) throws NoIdAvailableException {
+		for (Song song : songs) {
+			addSong(song);
+		}
+	}
+
 	/**
 	 * deletes a Song over id
 	 *
@@ -50,4 +180,13 @@ public interface SongsManager {
 	 * reset method for deleting all requests-able Songs
 	 */
 	void reset();
+
+	/**
+	 * registers a listener for every song this store removes, e.g. to drop it from the song lists before its id
+	 * <p>
+	 * gets reused
+	 *
+	 * @param listener SongRemovalListener
+	 */
+	void addRemovalListener(SongRemovalListener listener);
 }
@@ -1,6 +1,7 @@
 package com.abitmorecode.songrest.SongControllerException;
 
 import org.springframework.boot.web.servlet.error.ErrorController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import javax.servlet.http.HttpServletRequest;
 
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SongErrorController implements ErrorController {
 	@RequestMapping("/error")
 	@ResponseBody
@@ -0,0 +1,15 @@
+package com.abitmorecode.songrest.SongControllerException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value=HttpStatus.NOT_FOUND, reason="no such song list")
+public class SongListDoesntExistException extends Exception {
+	public SongListDoesntExistException() {
+		super();
+	}
+
+	public SongListDoesntExistException(String message) {
+		super(message);
+	}
+}
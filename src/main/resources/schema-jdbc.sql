@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS song
+(
+    id       INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title    VARCHAR(1024) NOT NULL,
+    artist   VARCHAR(1024) NOT NULL,
+    label    VARCHAR(1024) NOT NULL,
+    released INTEGER       NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS song_released ON song (released);
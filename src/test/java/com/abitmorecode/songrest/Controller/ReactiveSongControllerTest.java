@@ -0,0 +1,84 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.ReactiveSongsManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveSongControllerTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ReactiveSongsManager reactiveSongsManager;
+
+	@Test
+	void onlyWritesOfTheMemoryStoreAreOffloadedTest() {
+		String caller = Thread.currentThread().getName();
+		assertEquals(caller, reactiveSongsManager.getSpecificSong(1).map(song -> Thread.currentThread().getName()).block());
+
+		Song song = new Song(1, "Offloaded", "Somebody", "Label", 2021);
+		String writer = reactiveSongsManager.addSong(song).map(added -> Thread.currentThread().getName()).block();
+		assertTrue(writer.startsWith("boundedElastic"), writer);
+		reactiveSongsManager.deleteSong(song.getId()).block();
+	}
+
+	@Test
+	void getSongTest() {
+		webTestClient.get().uri("/ABitMoreCode/songs/1").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.id").isEqualTo(1);
+		webTestClient.get().uri("/ABitMoreCode/songs/123456").exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void exportSongsTest() {
+		webTestClient.get().uri("/ABitMoreCode/songs").exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody().jsonPath("$.length()").isEqualTo(10);
+
+		String body = webTestClient.get().uri("/ABitMoreCode/songs?artist=baha men").accept(SongExport.NDJSON).exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+		String[] lines = body.split("\n");
+		assertEquals(1, lines.length);
+		assertTrue(lines[0].contains("Who Let the Dogs Out?"));
+	}
+
+	@Test
+	void getSongsPagedTest() {
+		webTestClient.get().uri("/ABitMoreCode/songs?limit=3").exchange()
+				.expectStatus().isOk()
+				.expectHeader().value(HttpHeaders.LINK, link -> assertTrue(link.contains("after=" + SongCursor.encode(3))))
+				.expectBody().jsonPath("$.length()").isEqualTo(3).jsonPath("$[0].id").isEqualTo(1);
+		webTestClient.get().uri("/ABitMoreCode/songs?limit=0").exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void postAndDeleteSongTest() {
+		String location = webTestClient.post().uri("/ABitMoreCode/songs")
+				.bodyValue(new Song(1, "Reactive", "Somebody", "Label", 2021)).exchange()
+				.expectStatus().isCreated()
+				.returnResult(Void.class).getResponseHeaders().getFirst(HttpHeaders.LOCATION);
+		String path = location.substring(location.indexOf("/ABitMoreCode"));
+		webTestClient.get().uri(path).exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.title").isEqualTo("Reactive");
+		webTestClient.delete().uri(path).exchange().expectStatus().isNoContent();
+		webTestClient.delete().uri(path).exchange().expectStatus().isBadRequest();
+	}
+}
@@ -0,0 +1,73 @@
+package com.abitmorecode.songrest.Controller;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.SongsManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "songrest.changes.heartbeat-ms=200")
+class SongChangeControllerTest {
+
+	/**
+	 * async timeout of the container, streams have to outlive it
+	 */
+	private static final long CONTAINER_TIMEOUT_MILLIS = 500;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private SongsManager songService;
+
+	@TestConfiguration
+	static class ShortAsyncTimeout {
+		@Bean
+		WebServerFactoryCustomizer<TomcatServletWebServerFactory> shortAsyncTimeout() {
+			return factory -> factory.addConnectorCustomizers(connector -> connector.setAsyncTimeout(CONTAINER_TIMEOUT_MILLIS));
+		}
+	}
+
+	@Test
+	void streamOutlivesTheContainerTimeoutTest() throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/ABitMoreCode/songs/changes/stream").openConnection();
+		connection.setReadTimeout(5000);
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+			assertEquals(200, connection.getResponseCode());
+			int heartbeats = 0;
+			long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(3 * CONTAINER_TIMEOUT_MILLIS);
+			while (System.nanoTime() < end) {
+				String line = in.readLine();
+				assertNotNull(line, "the stream ended");
+				if (line.equals(":")) {
+					heartbeats++;
+				}
+			}
+			assertTrue(heartbeats >= 2, heartbeats + " heartbeats");
+
+			songService.addSong(new Song(1000, "After the timeout", "Somebody", "Label", 2021));
+			String line;
+			do {
+				line = in.readLine();
+				assertNotNull(line, "the stream ended");
+			} while (!line.startsWith("data:"));
+			assertTrue(line.contains("After the timeout"), line);
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
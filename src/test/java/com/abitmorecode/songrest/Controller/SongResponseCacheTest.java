@@ -0,0 +1,66 @@
+package com.abitmorecode.songrest.Controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongResponseCacheTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private SongResponseCache cache;
+
+	@BeforeEach
+	void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		// 16 stripes of 64KB, entries up to about 16KB
+		cache = new SongResponseCache(meterRegistry, DataSize.ofMegabytes(1));
+	}
+
+	@Test
+	void entriesAreOnlyValidForTheirTagTest() {
+		byte[] body = "{\"id\":1}".getBytes();
+		cache.put("song:1", "a-1", body, new HttpHeaders());
+
+		assertSame(body, cache.get("song:1", "a-1").getBody());
+		assertNull(cache.get("song:1", "a-2"));
+		assertNull(cache.get("song:2", "a-1"));
+		assertEquals(1, meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count());
+		assertEquals(2, meterRegistry.get("songrest.response.cache.gets").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvictedTest() {
+		for (int i = 0; i < 1000; i++) {
+			cache.put("page:" + i, "a-1", new byte[10_000], new HttpHeaders());
+			// keeps page:0 recently used
+			assertNotNull(cache.get("page:0", "a-1"));
+		}
+		assertTrue(meterRegistry.get("songrest.response.cache.size").gauge().value() <= DataSize.ofMegabytes(1).toBytes());
+		assertTrue(meterRegistry.get("songrest.response.cache.evictions").counter().count() > 0);
+		assertNull(cache.get("page:1", "a-1"));
+
+		cache.put("export", "a-1", new byte[100_000], new HttpHeaders());
+		assertNull(cache.get("export", "a-1"));
+	}
+
+	@Test
+	void gzipVariantIsCachedTest() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		byte[] body = "[{\"id\":1},{\"id\":2},{\"id\":3}]".getBytes();
+		SongResponseCache.CachedResponse gzipped = cache.gzipped("page:1", cache.put("page:1", "a-1", body, headers));
+
+		assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+			assertArrayEquals(body, in.readAllBytes());
+		}
+		assertSame(gzipped, cache.gzipped("page:1", cache.get("page:1", "a-1")));
+	}
+}
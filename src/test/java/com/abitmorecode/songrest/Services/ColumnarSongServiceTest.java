@@ -0,0 +1,47 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarSongServiceTest extends SongsManagerContractTest<ColumnarSongService> {
+
+	@Override
+	protected ColumnarSongService createSongsManager() {
+		return new ColumnarSongService(new SimpleMeterRegistry());
+	}
+
+	@Test
+	void titlesSurviveCompactionTest() throws NoIdAvailableException, SongDoesntExistException {
+		songService.reset();
+		for (int id = 0; id < 1000; id++) {
+			songService.addSong(new Song(id, "Title " + id, "Artist " + id % 7, "Label", 2000 + id % 20));
+		}
+		for (int id = 0; id < 1000; id += 3) {
+			songService.deleteSong(id);
+		}
+		assertEquals("Title 998", songService.getSpecificSong(998).getTitle());
+		assertEquals(666, songService.getAllSongs().size());
+		assertEquals("Title 1", songService.getAllSongs().get(0).getTitle());
+	}
+
+	@Test
+	void writesGetBetweenThePagesOfAStreamTest() {
+		Iterator<Song> songs = SongPages.stream(songService, 4).iterator();
+		songs.next();
+		// the read lock isn't held while the page is consumed, so this doesn't deadlock
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> songService.addSong(new Song(1000, "Late", "Artist", "Label", 2000)));
+		List<Integer> ids = new ArrayList<>();
+		songs.forEachRemaining(song -> ids.add(song.getId()));
+		assertEquals(1000, ids.get(ids.size() - 1));
+	}
+}
@@ -0,0 +1,151 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcSongServiceTest {
+
+	private final String path = "src/test/java/com/abitmorecode/songrest/test_json/";
+
+	private HikariDataSource dataSource;
+	private JdbcSongService songService;
+
+	@BeforeEach
+	void setup() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		songService = new JdbcSongService(dataSource, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		dataSource.close();
+	}
+
+	@Test
+	void defaultCatalogIsLoadedTest() {
+		assertEquals(10, songService.getAllSongs().size());
+		assertEquals(1, songService.getAllSongs().get(0).getId());
+	}
+
+	@Test
+	void basicInitializeTest() throws IOException, SongDoesntExistException {
+		songService.reset();
+		songService.init(path + "correct_songs.json");
+		assertEquals(new Song(1, "Das Test", "N bisschen Test", "TestTestTest", 2015), songService.getSpecificSong(1));
+		assertEquals(1, songService.getAllSongs().size());
+	}
+
+	@Test
+	void multipleBatchesTest() throws IOException {
+		// the default catalog is loaded twice, so every song is replaced once
+		songService.init(SongService.DEFAULT_CATALOG_PATH);
+		assertEquals(10, songService.getAllSongs().size());
+	}
+
+	@Test
+	void addSongWithCollisionGetsGeneratedIdTest() throws NoIdAvailableException, SongDoesntExistException {
+		Song song = new Song(1, "Noch n Test", "N bisschen Test", "TestTestTest", 2016);
+		songService.addSong(song);
+		assertEquals(11, song.getId());
+		assertEquals(song, songService.getSpecificSong(11));
+
+		// an explicit id in the way of the generated ids
+		songService.addSong(new Song(12, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		Song collision = new Song(1, "Der Test", "N bisschen Test", "TestTestTest", 2017);
+		songService.addSong(collision);
+		assertTrue(collision.getId() > 12);
+	}
+
+	@Test
+	void lowIdGenerationDoesntExhaustTheRetriesTest() throws NoIdAvailableException {
+		songService.reset();
+		for (int id = 1; id <= 40; id++) {
+			songService.addSong(new Song(id, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		}
+		// e.g. left behind by rows inserted past the service, more collisions than generated id attempts
+		new JdbcTemplate(dataSource).execute("ALTER TABLE song ALTER COLUMN id RESTART WITH 1");
+
+		Song collision = new Song(1, "Der Test", "N bisschen Test", "TestTestTest", 2017);
+		songService.addSong(collision);
+		assertEquals(41, collision.getId());
+
+		songService.reset();
+		Song first = new Song(5, "Das Test", "N bisschen Test", "TestTestTest", 2015);
+		songService.addSong(first);
+		Song second = new Song(5, "Der Test", "N bisschen Test", "TestTestTest", 2017);
+		songService.addSong(second);
+		assertNotEquals(5, second.getId());
+		assertTrue(second.getId() <= 6);
+	}
+
+	@Test
+	void concurrentCollisionsGetDistinctIdsTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> ids = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				ids.add(executor.submit(() -> {
+					Song collision = new Song(1, "Der Test", "N bisschen Test", "TestTestTest", 2017);
+					songService.addSong(collision);
+					return collision.getId();
+				}));
+			}
+			Set<Integer> distinct = new HashSet<>();
+			for (Future<Integer> id : ids) {
+				distinct.add(id.get());
+			}
+			assertEquals(40, distinct.size());
+			assertEquals(50, songService.getAllSongs().size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void deleteSongTest() throws SongDoesntExistException {
+		songService.deleteSong(5);
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(5));
+		assertThrows(SongDoesntExistException.class, () -> songService.deleteSong(5));
+	}
+
+	@Test
+	void pagesAndQueriesTest() {
+		assertEquals(3, songService.getSongsAfter(7, 5).size());
+		assertEquals(8, songService.getSongsAfter(7, 5).get(0).getId());
+		assertEquals(1, songService.findSongs(new SongQuery("baha men", null, null, null)).size());
+		assertEquals(2, songService.findSongs(new SongQuery(null, null, 1976, 1976)).size());
+	}
+
+	@Test
+	void streamAllSongsReleasesTheConnectionTest() {
+		for (int i = 0; i < dataSource.getMaximumPoolSize() + 1; i++) {
+			try (Stream<Song> songs = songService.streamAllSongs()) {
+				assertEquals(songService.getAllSongs(), songs.collect(Collectors.toList()));
+			}
+		}
+		assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+	}
+}
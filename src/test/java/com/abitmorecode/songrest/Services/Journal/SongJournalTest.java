@@ -0,0 +1,203 @@
+package com.abitmorecode.songrest.Services.Journal;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.SongService;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<SongJournal> journals = new ArrayList<>();
+
+	@AfterEach
+	void closeJournals() {
+		journals.forEach(SongJournal::close);
+	}
+
+	@Test
+	void changesSurviveRestartTest() throws NoIdAvailableException, SongDoesntExistException {
+		SongService songService = start(FsyncPolicy.ALWAYS);
+		int loaded = songService.getAllSongs().size();
+		songService.addSong(new Song(1000, "Journaled", "Someone", "Label", 2021));
+		songService.deleteSong(1);
+
+		SongService restarted = restart(FsyncPolicy.ALWAYS);
+		assertEquals(loaded, restarted.getAllSongs().size());
+		assertEquals("Journaled", restarted.getSpecificSong(1000).getTitle());
+		assertThrows(SongDoesntExistException.class, () -> restarted.getSpecificSong(1));
+	}
+
+	@Test
+	void resetSurvivesRestartTest() throws NoIdAvailableException {
+		SongService songService = start(FsyncPolicy.OS);
+		songService.reset();
+		songService.addSong(new Song(5, "Only one", "Someone", "Label", 2021));
+
+		SongService restarted = restart(FsyncPolicy.OS);
+		assertEquals(List.of(new Song(5, "Only one", "Someone", "Label", 2021)), restarted.getAllSongs());
+	}
+
+	@Test
+	void checkpointReplacesOlderFilesTest() throws NoIdAvailableException, IOException {
+		SongService songService = start(FsyncPolicy.BATCHED);
+		songService.addSong(new Song(1000, "Before", "Someone", "Label", 2021));
+		songService.checkpoint();
+		songService.addSong(new Song(1001, "After", "Someone", "Label", 2021));
+
+		try (Stream<Path> files = Files.list(directory)) {
+			List<String> names = files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+			assertEquals(1, names.stream().filter(name -> name.startsWith("snapshot-")).count());
+		}
+
+		SongService restarted = restart(FsyncPolicy.BATCHED);
+		assertEquals(songService.getAllSongs(), restarted.getAllSongs());
+	}
+
+	@Test
+	void tornTailIsCutOffTest() throws NoIdAvailableException, IOException {
+		SongService songService = start(FsyncPolicy.ALWAYS);
+		songService.addSong(new Song(1000, "Complete", "Someone", "Label", 2021));
+		songService.addSong(new Song(1001, "Torn", "Someone", "Label", 2021));
+		List<Song> expected = songService.getAllSongs().stream()
+				.filter(song -> song.getId() != 1001)
+				.collect(Collectors.toList());
+
+		// simulate a crash in the middle of writing the last record
+		Path segment = newestSegment();
+		try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			file.truncate(file.size() - 3);
+		}
+
+		SongService restarted = restart(FsyncPolicy.ALWAYS);
+		assertEquals(expected, restarted.getAllSongs());
+
+		// the journal stays usable behind the cut
+		restarted.addSong(new Song(1002, "Later", "Someone", "Label", 2021));
+		assertEquals(expected.size() + 1, restart(FsyncPolicy.ALWAYS).getAllSongs().size());
+	}
+
+	@Test
+	void batchesAreRecoveredWholeTest() throws NoIdAvailableException, IOException {
+		SongService songService = start(FsyncPolicy.ALWAYS);
+		songService.addSongs(List.of(new Song(1000, "First", "Someone", "Label", 2021), new Song(1001, "Second", "Someone", "Label", 2021)));
+		List<Song> expected = songService.getAllSongs();
+		songService.addSongs(List.of(new Song(1002, "Torn", "Someone", "Label", 2021), new Song(1003, "Torn", "Someone", "Label", 2021)));
+
+		SongService restarted = restart(FsyncPolicy.ALWAYS);
+		assertEquals(expected.size() + 2, restarted.getAllSongs().size());
+
+		// a crash while writing a batch loses all of its songs
+		Path segment = newestSegment();
+		try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			file.truncate(file.size() - 3);
+		}
+		assertEquals(expected, restart(FsyncPolicy.ALWAYS).getAllSongs());
+	}
+
+	@Test
+	void failedBatchFreesItsIdsTest() throws NoIdAvailableException {
+		SongService songService = start(FsyncPolicy.OS);
+		int loaded = songService.getAllSongs().size();
+		List<Song> batch = List.of(new Song(1, "Collides", "Someone", "Label", 2021), new Song(1001, "x".repeat(1 << 24), "Someone", "Label", 2021));
+
+		assertThrows(IllegalArgumentException.class, () -> songService.addSongs(batch));
+		assertEquals(1, batch.get(0).getId());
+		assertEquals(loaded, songService.getAllSongs().size());
+
+		Song later = new Song(1001, "Later", "Someone", "Label", 2021);
+		songService.addSong(later);
+		assertEquals(1001, later.getId());
+		assertEquals(loaded + 1, restart(FsyncPolicy.OS).getAllSongs().size());
+	}
+
+	@Test
+	void recordsAreWrittenInSequenceOrderTest() throws IOException, InterruptedException {
+		SongJournal journal = new SongJournal(directory, FsyncPolicy.OS, 5, Long.MAX_VALUE);
+		journals.add(journal);
+		journal.recover();
+		SongJournal.Records first = journal.records().add(new Song(1000, "First", "Someone", "Label", 2021));
+		SongJournal.Records second = journal.records().add(new Song(1000, "Second", "Someone", "Label", 2021));
+		journal.sequence(first);
+		journal.sequence(second);
+
+		// the writer of the second record got there first, it waits for the first one
+		Thread writer = new Thread(() -> journal.write(second));
+		writer.start();
+		writer.join(100);
+		assertTrue(writer.isAlive());
+		journal.write(first);
+		writer.join();
+
+		assertEquals(List.of(new Song(1000, "Second", "Someone", "Label", 2021)), restart(FsyncPolicy.OS).getAllSongs());
+	}
+
+	@Test
+	void concurrentWritersAreRecoveredTest() throws InterruptedException {
+		SongService songService = start(FsyncPolicy.ALWAYS);
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int first = 1000 + t * 50;
+			writers.add(new Thread(() -> {
+				for (int id = first; id < first + 50; id++) {
+					try {
+						songService.addSong(new Song(id, "Concurrent", "Someone", "Label", 2021));
+						songService.deleteSong(id - 1);
+					} catch (NoIdAvailableException | SongDoesntExistException ignored) {
+						// the song before belongs to another writer
+					}
+				}
+			}));
+		}
+		writers.forEach(Thread::start);
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertEquals(songService.getAllSongs(), restart(FsyncPolicy.ALWAYS).getAllSongs());
+	}
+
+	private SongService start(FsyncPolicy fsyncPolicy) {
+		SongJournal journal = new SongJournal(directory, fsyncPolicy, 5, Long.MAX_VALUE);
+		journals.add(journal);
+		return new SongService(new SimpleMeterRegistry(), journal);
+	}
+
+	private SongService restart(FsyncPolicy fsyncPolicy) {
+		journals.forEach(SongJournal::close);
+		journals.clear();
+		return start(fsyncPolicy);
+	}
+
+	private Path newestSegment() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+					.filter(path -> path.toFile().length() > 0)
+					.max((a, b) -> Long.compare(sequence(a), sequence(b)))
+					.orElseThrow();
+		}
+	}
+
+	private static long sequence(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+	}
+}
@@ -0,0 +1,71 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSongServiceTest {
+
+	@TempDir
+	Path directory;
+
+	private SongService expected;
+	private MappedSongService songService;
+
+	@BeforeEach
+	void setup() throws IOException {
+		Path catalog = directory.resolve("songs.bin");
+		assertEquals(10, SongCatalogConverter.convert(Path.of(SongService.DEFAULT_CATALOG_PATH), catalog));
+		expected = new SongService(new SimpleMeterRegistry());
+		songService = new MappedSongService(catalog, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void readsLikeTheJsonCatalogTest() throws SongDoesntExistException {
+		assertEquals(expected.getAllSongs(), songService.getAllSongs());
+		assertEquals(expected.getSpecificSong(7), songService.getSpecificSong(7));
+		assertEquals(expected.getSongsAfter(3, 4), songService.getSongsAfter(3, 4));
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(11));
+
+		Song song = expected.getSpecificSong(2);
+		SongQuery query = new SongQuery(song.getArtist().toUpperCase(), null, null, song.getReleased());
+		assertEquals(expected.findSongs(query), songService.findSongs(query));
+	}
+
+	@Test
+	void writesGoToTheOverlayTest() throws NoIdAvailableException, SongDoesntExistException {
+		songService.deleteSong(3);
+		songService.addSong(new Song(20, "Added", "Someone", "Label", 2021));
+		Song collision = new Song(5, "Collision", "Someone", "Label", 2021);
+		songService.addSong(collision);
+
+		assertEquals(0, collision.getId());
+		assertEquals("Collision", songService.getSpecificSong(0).getTitle());
+		assertEquals(11, songService.getAllSongs().size());
+		assertEquals(List.of(20), songService.getSongsAfter(10, 5).stream().map(Song::getId).collect(Collectors.toList()));
+		assertEquals(1, songService.findSongs(new SongQuery("someone", "label", 2021, 2021)).stream().filter(s -> s.getId() == 20).count());
+
+		songService.reset();
+		assertTrue(songService.getAllSongs().isEmpty());
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(1));
+	}
+
+	@Test
+	void rejectsInvalidFilesTest() throws IOException {
+		Path invalid = Files.writeString(directory.resolve("invalid.bin"), "[{\"id\": 1}]");
+		assertThrows(IOException.class, () -> MappedSongCatalog.open(invalid));
+	}
+}
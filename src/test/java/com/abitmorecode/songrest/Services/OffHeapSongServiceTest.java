@@ -0,0 +1,85 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapSongServiceTest extends SongsManagerContractTest<OffHeapSongService> {
+
+	@Override
+	protected OffHeapSongService createSongsManager() {
+		return new OffHeapSongService(new SimpleMeterRegistry(), DataSize.ofKilobytes(4));
+	}
+
+	@Test
+	void slabThatEmptiedWhileCurrentIsReusedFromTheStartTest() {
+		// two records fill a slab, the third needs the next one
+		OffHeapSongStore store = new OffHeapSongStore(100, 16);
+		store.put(new Song(1, "Title 1", "Artist", "Label", 2000));
+		store.put(new Song(2, "Title 2", "Artist", "Label", 2000));
+		assertTrue(store.remove(1));
+		assertTrue(store.remove(2));
+
+		store.put(new Song(3, "Title 3", "Artist", "Label", 2000));
+		store.put(new Song(4, "Title 4", "Artist", "Label", 2000));
+		store.put(new Song(5, "Title 5", "Artist", "Label", 2000));
+		assertEquals("Title 3", store.find(3).getTitle());
+		assertEquals("Title 5", store.find(5).getTitle());
+		assertEquals(2, store.slabCount());
+	}
+
+	@Test
+	void slabsGetCompactedAndReusedTest() throws NoIdAvailableException, SongDoesntExistException {
+		OffHeapSongStore store = new OffHeapSongStore(4096, 16);
+		for (int id = 0; id < 1000; id++) {
+			store.put(new Song(id, "Title " + id, "Artist " + id % 7, "Label", 2000 + id % 20));
+		}
+		int slabs = store.slabCount();
+		for (int id = 0; id < 1000; id++) {
+			if (id % 3 != 0) {
+				assertTrue(store.remove(id));
+			}
+		}
+		// the freed slabs take the next songs, without reuse this would need about 6 new slabs
+		for (int id = 1000; id < 1600; id++) {
+			store.put(new Song(id, "Title " + id, "Artist", "Label", 2000));
+		}
+		assertTrue(store.slabCount() <= slabs + 1);
+		assertEquals(934, store.size());
+		assertEquals(new Song(999, "Title 999", "Artist 5", "Label", 2019), store.find(999));
+		assertEquals("Title 1599", store.find(1599).getTitle());
+		assertNull(store.find(998));
+
+		songService.reset();
+		for (int id = 0; id < 300; id++) {
+			songService.addSong(new Song(id, "Title " + id, "Artist", "Label", 2000));
+		}
+		for (int id = 0; id < 300; id += 2) {
+			songService.deleteSong(id);
+		}
+		assertEquals(150, songService.getAllSongs().size());
+		assertEquals("Title 1", songService.getAllSongs().get(0).getTitle());
+		assertEquals("Title 299", songService.getSpecificSong(299).getTitle());
+	}
+
+	@Test
+	void writesGetBetweenThePagesOfAStreamTest() {
+		Iterator<Song> songs = SongPages.stream(songService, 4).iterator();
+		songs.next();
+		// the read lock isn't held while the page is consumed, so this doesn't deadlock
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> songService.addSong(new Song(1000, "Late", "Artist", "Label", 2000)));
+		List<Integer> ids = new ArrayList<>();
+		songs.forEachRemaining(song -> ids.add(song.getId()));
+		assertEquals(1000, ids.get(ids.size() - 1));
+	}
+}
@@ -0,0 +1,163 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedSongServiceTest extends SongsManagerContractTest<PartitionedSongService> {
+
+	@Override
+	protected PartitionedSongService createSongsManager() {
+		return new PartitionedSongService(new SimpleMeterRegistry(), 6);
+	}
+
+	@Test
+	void searchesLikeTheMemoryStoreTest() {
+		assertEquals(8, songService.getShardCount());
+		// scores use the statistics of each shard, so only the hits are the same
+		assertEquals(Set.copyOf(expected.searchSongs("love", 100)), Set.copyOf(songService.searchSongs("love", 100)));
+	}
+
+	@Test
+	void idsAreReusedAfterResetTest() throws NoIdAvailableException {
+		songService.reset();
+		songService.addSong(new Song(7, "After Reset", "Somebody", "Label", 2021));
+		songService.addSong(new Song(7, "Colliding", "Somebody", "Label", 2021));
+		assertEquals(List.of(0, 7), songService.getAllSongs().stream().map(Song::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	void freeIdsOfAllShardsAreReusedInOrderTest() throws Exception {
+		songService.reset();
+		for (int id = 0; id < 20; id++) {
+			songService.addSong(new Song(id, "Title", "Artist", "Label", 2021));
+		}
+		// consecutive ids are in different shards
+		songService.deleteSong(13);
+		songService.deleteSong(5);
+		songService.deleteSong(6);
+		List<Integer> reused = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Song collision = new Song(0, "Colliding", "Artist", "Label", 2021);
+			songService.addSong(collision);
+			reused.add(collision.getId());
+		}
+		assertEquals(List.of(5, 6, 13, 20), reused);
+	}
+
+	@Test
+	void concurrentCollidingWritesGetDistinctIdsTest() throws Exception {
+		songService.reset();
+		int threads = 8;
+		int songsPerThread = 500;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			writers.add(executor.submit(() -> {
+				for (int i = 0; i < songsPerThread; i++) {
+					// every writer starts at id 1, so nearly every add has to take the first unused id
+					Song song = new Song(1 + i, "Title", "Artist", "Label", 2021);
+					songService.addSong(song);
+					if (i % 10 == 9) {
+						// frees an id for the next colliding writes
+						songService.deleteSong(song.getId());
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> writer : writers) {
+			writer.get();
+		}
+		executor.shutdown();
+
+		List<Song> songs = songService.getAllSongs();
+		assertEquals(threads * songsPerThread * 9 / 10, songs.size());
+		assertEquals(songs.size(), songs.stream().map(Song::getId).distinct().count());
+		for (Song song : songs) {
+			assertEquals(song, songService.getSpecificSong(song.getId()));
+		}
+
+		// no id was left marked used without a song, the next collision gets the smallest id without one
+		Set<Integer> ids = songs.stream().map(Song::getId).collect(Collectors.toSet());
+		int smallestFree = 0;
+		while (ids.contains(smallestFree)) {
+			smallestFree++;
+		}
+		Song collision = new Song(1, "Title", "Artist", "Label", 2021);
+		songService.addSong(collision);
+		assertEquals(smallestFree, collision.getId());
+	}
+
+	/**
+	 * one writer adds and deletes songs of different shards and remembers every committed state, the views over all
+	 * <p>
+	 * shards read meanwhile have to match one of them, never the shards of different versions
+	 */
+	@Test
+	void viewsOverAllShardsOnlySeeCommittedVersionsTest() throws Exception {
+		songService.reset();
+		Set<String> committedStates = ConcurrentHashMap.newKeySet();
+		committedStates.add("");
+		Set<String> observedStates = ConcurrentHashMap.newKeySet();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+
+		List<Future<?>> readers = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			readers.add(executor.submit(() -> {
+				while (writing.get()) {
+					observedStates.add(idsOf(songService.getAllSongs()));
+					observedStates.add(idsOf(songService.findSongs(new SongQuery("Artist", null, null, null))));
+				}
+				return null;
+			}));
+		}
+		Future<?> writer = executor.submit(() -> {
+			TreeSet<Integer> model = new TreeSet<>();
+			for (int i = 0; i < 2_000; i++) {
+				if (model.isEmpty() || ThreadLocalRandom.current().nextInt(3) > 0) {
+					Song song = new Song(ThreadLocalRandom.current().nextInt(200), "Title", "Artist", "Label", 2021);
+					songService.addSong(song);
+					model.add(song.getId());
+				} else {
+					songService.deleteSong(model.pollFirst());
+				}
+				committedStates.add(model.stream().map(String::valueOf).collect(Collectors.joining(",")));
+			}
+			writing.set(false);
+			return null;
+		});
+
+		writer.get(60, TimeUnit.SECONDS);
+		for (Future<?> reader : readers) {
+			reader.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		for (String observed : observedStates) {
+			assertTrue(committedStates.contains(observed), "torn read: " + observed);
+		}
+	}
+
+	private static String idsOf(List<Song> songs) {
+		return songs.stream().map(song -> String.valueOf(song.getId())).collect(Collectors.joining(","));
+	}
+}
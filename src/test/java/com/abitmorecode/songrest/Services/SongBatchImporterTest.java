@@ -0,0 +1,76 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.BatchImportResult;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongBatchImporterTest {
+
+	private SongService songService;
+
+	@BeforeEach
+	void setup() {
+		songService = new SongService(new SimpleMeterRegistry());
+		songService.reset();
+	}
+
+	@Test
+	void importNdjsonTest() throws IOException, SongDoesntExistException {
+		String ndjson = "{\"id\": 1, \"title\": \"One\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2001}\n"
+				+ "{\"id\": 2, \"title\": \"Missing label\", \"artist\": \"A\", \"released\": 2002}\n"
+				+ "\n"
+				+ "{\"id\": 3, \"title\": \"Broken\"\n"
+				+ "{\"id\": 1, \"title\": \"Same id\", \"artist\": \"B\", \"label\": \"L\", \"released\": 2003}\n"
+				+ "{\"id\": 4, \"title\": \"Four\", \"artist\": \"B\", \"label\": \"L\", \"released\": 2004}\n";
+
+		BatchImportResult result = new SongBatchImporter(songService, 2, 10).importNdjson(new StringReader(ndjson));
+
+		assertEquals(5, result.getReceived());
+		assertEquals(3, result.getAdded());
+		assertEquals(2, result.getRejected());
+		assertEquals(1, result.getReassigned());
+		assertNull(result.getError());
+		assertEquals("rejected", result.getRecords().get(0).getStatus());
+		assertEquals(1, result.getRecords().get(0).getRecord());
+
+		BatchImportResult.RecordResult reassigned = result.getRecords().get(2);
+		assertEquals(3, reassigned.getRecord());
+		assertEquals(1, reassigned.getRequestedId());
+		assertEquals("Same id", songService.getSpecificSong(reassigned.getId()).getTitle());
+		assertEquals(3, songService.getAllSongs().size());
+	}
+
+	@Test
+	void importJsonArrayTest() throws IOException {
+		String json = "[{\"id\": 1, \"title\": \"One\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2001},"
+				+ "{\"id\": 1, \"title\": \"Same id\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2001},"
+				+ "{\"id\": 2, \"title\": \"Two\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2002}]";
+
+		BatchImportResult result = new SongBatchImporter(songService, 2, 0).importJsonArray(new StringReader(json));
+
+		assertEquals(3, result.getAdded());
+		assertEquals(1, result.getReassigned());
+		assertTrue(result.isTruncated());
+		assertTrue(result.getRecords().isEmpty());
+	}
+
+	@Test
+	void malformedJsonArrayStopsTheImportTest() throws IOException {
+		String json = "[{\"id\": 1, \"title\": \"One\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2001},"
+				+ "{\"id\": 2, \"title\": \"One\", \"artist\": \"A\", \"label\": \"L\", \"released\": 2001},"
+				+ "{\"id\": \"not a number\"}]";
+
+		BatchImportResult result = new SongBatchImporter(songService, 1, 10).importJsonArray(new StringReader(json));
+
+		assertNotNull(result.getError());
+		assertEquals(2, result.getAdded());
+		assertEquals(2, songService.getAllSongs().size());
+	}
+}
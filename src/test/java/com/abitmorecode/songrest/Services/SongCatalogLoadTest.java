@@ -0,0 +1,183 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.google.gson.JsonSyntaxException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongCatalogLoadTest {
+
+	private static final int SONGS = 20_000;
+
+	@TempDir
+	Path directory;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void parallelLoadKeepsFileOrderTest() throws IOException {
+		Path catalog = writeCatalog("");
+		assertTrue(Files.size(catalog) > SongJsonLoader.PARALLEL_MIN_BYTES);
+
+		List<Song> sequential = new ArrayList<>();
+		SongJsonLoader.Result expected = SongJsonLoader.load(catalog, sequential::add);
+		List<Song> parallel = new ArrayList<>();
+		List<Long> progress = new ArrayList<>();
+		SongJsonLoader.Result result = SongJsonLoader.loadParallel(catalog, executor, 16, 8, parallel::add, progress::add);
+
+		assertEquals(sequential, parallel);
+		assertEquals(expected.getLoaded(), result.getLoaded());
+		assertEquals(expected.getSkipped(), result.getSkipped());
+		assertTrue(progress.size() > 2);
+		assertEquals(Files.size(catalog), progress.get(progress.size() - 1));
+
+		List<Song> inline = new ArrayList<>();
+		SongJsonLoader.loadParallel(catalog, null, 16, 8, inline::add, bytes -> {
+		});
+		assertEquals(sequential, inline);
+	}
+
+	@Test
+	void parallelLoadParsesAtMostTheWindowAheadTest() throws IOException {
+		Path catalog = writeCatalog("");
+		AtomicInteger submitted = new AtomicInteger();
+		ExecutorService counting = new AbstractExecutorService() {
+			@Override
+			public void execute(Runnable command) {
+				submitted.incrementAndGet();
+				executor.execute(command);
+			}
+
+			@Override
+			public void shutdown() {
+			}
+
+			@Override
+			public List<Runnable> shutdownNow() {
+				return List.of();
+			}
+
+			@Override
+			public boolean isShutdown() {
+				return false;
+			}
+
+			@Override
+			public boolean isTerminated() {
+				return false;
+			}
+
+			@Override
+			public boolean awaitTermination(long timeout, TimeUnit unit) {
+				return true;
+			}
+		};
+		AtomicInteger consumed = new AtomicInteger();
+		List<Integer> ahead = new ArrayList<>();
+
+		SongJsonLoader.loadParallel(catalog, counting, 32, 3, song -> {
+		}, bytes -> ahead.add(submitted.get() - consumed.incrementAndGet()));
+
+		assertTrue(submitted.get() > 3);
+		// every chunk is reported once, the size of the file at the end
+		assertEquals(submitted.get() + 1, ahead.size());
+		assertTrue(ahead.stream().allMatch(chunks -> chunks < 3), ahead.toString());
+	}
+
+	@Test
+	void failureBeforeTheStartTakesNoTimeTest() {
+		SongCatalogLoad load = new SongCatalogLoad();
+		load.loadingInBackground();
+		assertEquals(0, load.getElapsedMillis());
+
+		load.failed(new IOException("missing"));
+		assertTrue(load.isReady());
+		assertEquals(0, load.getElapsedMillis());
+	}
+
+	@Test
+	void parallelLoadConsumesSongsBeforeAnErrorTest() throws IOException {
+		Path catalog = writeCatalog(", {\"id\": \"one\", \"title\": \"Broken\"}");
+
+		List<Song> sequential = new ArrayList<>();
+		assertThrows(JsonSyntaxException.class, () -> SongJsonLoader.load(catalog, sequential::add));
+		List<Song> parallel = new ArrayList<>();
+		assertThrows(JsonSyntaxException.class, () -> SongJsonLoader.loadParallel(catalog, executor, 16, 8, parallel::add, bytes -> {
+		}));
+
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	void asyncLoadBecomesReadyTest() throws Exception {
+		Path catalog = writeCatalog("");
+		SongService songService = new SongService(new SimpleMeterRegistry(), null, new SongChangeLog(100), catalog, true, 4);
+		SongCatalogLoad load = songService.getCatalogLoad();
+
+		assertTrue(load.await(30, TimeUnit.SECONDS));
+		assertEquals(SONGS, songService.getAllSongs().size());
+		assertEquals(SONGS + 1, load.getLoadedSongs());
+		assertEquals(1, load.getProgress());
+		assertNull(load.getError());
+		assertEquals("Title, {9999} \"quoted\"", songService.getSpecificSong(9999).getTitle());
+		assertEquals("Replaced", songService.getSpecificSong(1).getTitle());
+	}
+
+	@Test
+	void retryAfterFollowsProgressTest() {
+		SongCatalogLoad load = new SongCatalogLoad();
+		assertTrue(load.isReady());
+
+		load.loadingInBackground();
+		load.started(1000);
+		assertFalse(load.isReady());
+		assertEquals(-1, load.getRemainingMillis());
+		assertEquals(30, load.getRetryAfterSeconds(30));
+
+		load.bytesLoaded(1000);
+		assertEquals(1, load.getRetryAfterSeconds(30));
+
+		load.failed(new IOException("broken"));
+		assertTrue(load.isReady());
+		assertEquals(0, load.getRemainingMillis());
+		assertEquals("java.io.IOException: broken", load.getError());
+	}
+
+	/**
+	 * songs with brackets, commas and escaped quotes in their strings, a replacement of song 1 at the end
+	 */
+	private Path writeCatalog(String tail) throws IOException {
+		StringBuilder json = new StringBuilder("[\n");
+		for (int id = 1; id <= SONGS; id++) {
+			json.append("  {\"id\": ").append(id)
+					.append(", \"title\": \"Title, {").append(id).append("} \\\"quoted\\\"\"")
+					.append(", \"artist\": \"Artist [").append(id % 100).append("]\"")
+					.append(", \"label\": \"Label\", \"released\": ").append(1950 + id % 70).append("},\n");
+		}
+		json.append("  {\"id\": 1, \"title\": \"Replaced\", \"artist\": \"Artist\", \"label\": \"Label\", \"released\": 2000}");
+		json.append(tail).append("\n]\n");
+		Path catalog = directory.resolve("songs.json");
+		Files.writeString(catalog, json);
+		return catalog;
+	}
+}
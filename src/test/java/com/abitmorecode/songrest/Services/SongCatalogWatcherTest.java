@@ -0,0 +1,161 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongChange;
+import com.abitmorecode.songrest.Models.SongList;
+import com.abitmorecode.songrest.Models.SongQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongCatalogWatcherTest {
+
+	private static final String FIRST = song(1, "First", 1990);
+	private static final String SECOND = song(2, "Second", 1991);
+	private static final String THIRD = song(3, "Third", 1992);
+
+	@TempDir
+	Path directory;
+
+	private Path catalog;
+	private SongChangeLog changeLog;
+	private SongService songService;
+
+	@BeforeEach
+	void setup() throws IOException {
+		catalog = directory.resolve("songs.json");
+		write(FIRST, SECOND, THIRD);
+		changeLog = new SongChangeLog(100);
+		songService = new SongService(new SimpleMeterRegistry(), null, changeLog, catalog);
+		// like a running watcher, otherwise reloads count the loaded file as empty
+		songService.takeCatalogAsLoaded();
+	}
+
+	@Test
+	void reloadAppliesOnlyTheDifferenceTest() throws Exception {
+		String firstTag = songService.getVersions().song(1).getTag();
+		write(FIRST, song(2, "Second Changed", 1991), song(4, "Fourth", 1993), song(4, "Fourth Again", 1993));
+
+		SongCatalogDiff diff = songService.reload(catalog);
+
+		assertEquals(List.of(4), ids(diff.getAdded()));
+		assertEquals(List.of(2), ids(diff.getChanged()));
+		assertEquals(List.of(3), ids(diff.getRemoved()));
+		assertEquals(List.of(1, 2, 4), ids(songService.getAllSongs()));
+		assertEquals("Fourth Again", songService.getSpecificSong(4).getTitle());
+		assertEquals(firstTag, songService.getVersions().song(1).getTag());
+		assertEquals(List.of(2), ids(songService.searchSongs("changed", 10)));
+		assertTrue(songService.searchSongs("third", 10).isEmpty());
+		assertEquals(List.of(4), ids(songService.findSongs(new SongQuery(null, null, 1992, 1993))));
+		assertEquals(List.of(SongChange.Type.DELETED, SongChange.Type.CHANGED, SongChange.Type.ADDED),
+				changeLog.since(null, 0, 10).getChanges().stream().map(SongChange::getType).collect(Collectors.toList()));
+
+		assertTrue(songService.reload(catalog).isEmpty());
+	}
+
+	@Test
+	void watcherReloadsTheChangedFileTest() throws Exception {
+		SongListService songLists = new SongListService(songService);
+		SongList songList = new SongList(null, "list", List.of(songService.getSpecificSong(1), songService.getSpecificSong(3)));
+		songLists.addSongList(songList);
+		SongCatalogWatcher watcher = new SongCatalogWatcher(songService, 50);
+		watcher.start();
+		try {
+			Files.writeString(catalog, "[" + FIRST + ", {\"id\": 2, \"tit");
+			Thread.sleep(500);
+			assertEquals(List.of(1, 2, 3), ids(songService.getAllSongs()));
+
+			write(FIRST, SECOND);
+			for (int i = 0; i < 100 && songService.getAllSongs().size() == 3; i++) {
+				Thread.sleep(50);
+			}
+			assertEquals(List.of(1, 2), ids(songService.getAllSongs()));
+			assertEquals(List.of(1), ids(songLists.getSongList(songList.getId()).getSongs()));
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	@Test
+	void songsWrittenThroughTheApiSurviveAReloadTest() throws Exception {
+		Song posted = new Song(10, "Posted", "Artist", "Label", 2000);
+		songService.addSong(posted);
+		songService.addSongs(List.of(new Song(11, "Batch", "Artist", "Label", 2000)));
+		songService.deleteSong(1);
+		// POST /songs with an id the file introduces later
+		songService.addSong(new Song(4, "Posted Too", "Artist", "Label", 2000));
+
+		write(FIRST, SECOND, song(3, "Third Changed", 1992), song(4, "Fourth", 1993));
+		SongCatalogDiff diff = songService.reload(catalog);
+
+		assertTrue(diff.getAdded().isEmpty());
+		assertEquals(List.of(3), ids(diff.getChanged()));
+		assertTrue(diff.getRemoved().isEmpty());
+		assertEquals(List.of(2, 3, 4, 10, 11), ids(songService.getAllSongs()));
+		assertEquals(posted, songService.getSpecificSong(10));
+		assertEquals("Posted Too", songService.getSpecificSong(4).getTitle());
+
+		// removing a song from the file removes it from the catalog, unless it was written through the API
+		write(FIRST, song(3, "Third Changed", 1992));
+		diff = songService.reload(catalog);
+		assertEquals(List.of(2), ids(diff.getRemoved()));
+		assertEquals(List.of(3, 4, 10, 11), ids(songService.getAllSongs()));
+	}
+
+	@Test
+	void watcherKeepsPostedSongsTest() throws Exception {
+		SongCatalogWatcher watcher = new SongCatalogWatcher(songService, 50);
+		watcher.start();
+		try {
+			Song posted = new Song(0, "Posted", "Artist", "Label", 2000);
+			songService.addSong(posted);
+
+			write(FIRST, SECOND, song(3, "Third Changed", 1992));
+			for (int i = 0; i < 100 && !songService.getSpecificSong(3).getTitle().equals("Third Changed"); i++) {
+				Thread.sleep(50);
+			}
+			assertEquals("Third Changed", songService.getSpecificSong(3).getTitle());
+			assertEquals(posted, songService.getSpecificSong(posted.getId()));
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	@Test
+	void stoppedWatcherReleasesTheLoadedCatalogTest() throws Exception {
+		SongCatalogWatcher watcher = new SongCatalogWatcher(songService, 50);
+		watcher.start();
+		watcher.stop();
+
+		// the loaded file counts as empty, so its songs count as written through the API
+		write(FIRST, song(2, "Second Changed", 1991), song(4, "Fourth", 1993));
+		SongCatalogDiff diff = songService.reload(catalog);
+
+		assertEquals(List.of(4), ids(diff.getAdded()));
+		assertTrue(diff.getChanged().isEmpty());
+		assertTrue(diff.getRemoved().isEmpty());
+		assertEquals(List.of(1, 2, 3, 4), ids(songService.getAllSongs()));
+		assertEquals("Second", songService.getSpecificSong(2).getTitle());
+	}
+
+	private void write(String... songs) throws IOException {
+		Files.writeString(catalog, "[" + String.join(",\n", songs) + "]");
+	}
+
+	private static String song(int id, String title, int released) {
+		return "{\"id\": " + id + ", \"title\": \"" + title + "\", \"artist\": \"Artist\", \"label\": \"Label\", \"released\": " + released + "}";
+	}
+
+	private static List<Integer> ids(List<Song> songs) {
+		return songs.stream().map(Song::getId).collect(Collectors.toList());
+	}
+}
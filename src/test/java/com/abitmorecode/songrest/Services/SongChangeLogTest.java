@@ -0,0 +1,67 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongChange;
+import com.abitmorecode.songrest.Models.SongChanges;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongChangeLogTest {
+
+	@Test
+	void writesAreLoggedInOrderTest() throws Exception {
+		SongChangeLog changeLog = new SongChangeLog(100);
+		SongService songService = new SongService(new SimpleMeterRegistry(), null, changeLog);
+		long start = changeLog.latest();
+
+		songService.addSong(new Song(5000, "Title", "Artist", "Label", 2021));
+		songService.addSongs(List.of(new Song(5001, "Title", "Artist", "Label", 2021), new Song(5002, "Title", "Artist", "Label", 2021)));
+		songService.deleteSong(5001);
+		songService.reset();
+
+		SongChanges changes = changeLog.since(null, start, 100);
+		assertFalse(changes.isResync());
+		assertEquals(start + 5, changes.getNext());
+		assertEquals(List.of(SongChange.Type.ADDED, SongChange.Type.ADDED, SongChange.Type.ADDED, SongChange.Type.DELETED, SongChange.Type.RESET),
+				changes.getChanges().stream().map(SongChange::getType).collect(Collectors.toList()));
+		assertEquals(5002, changes.getChanges().get(2).getSong().getId());
+		assertEquals(5001, changes.getChanges().get(3).getId());
+
+		SongChanges page = changeLog.since(null, start + 1, 2);
+		assertEquals(start + 3, page.getNext());
+		assertEquals(List.of(start + 2, start + 3), page.getChanges().stream().map(SongChange::getSequence).collect(Collectors.toList()));
+	}
+
+	@Test
+	void evictedChangesRequireResyncTest() {
+		SongChangeLog changeLog = new SongChangeLog(3);
+		for (int id = 1; id <= 5; id++) {
+			changeLog.deleted(id);
+		}
+
+		assertTrue(changeLog.since(null, 1, 10).isResync());
+		assertEquals(List.of(3, 4, 5), changeLog.since(null, 2, 10).getChanges().stream().map(SongChange::getId).collect(Collectors.toList()));
+		assertTrue(changeLog.since(null, 6, 10).isResync());
+		assertTrue(changeLog.since("another run", 4, 10).isResync());
+		assertEquals(5, changeLog.since("another run", 4, 10).getNext());
+	}
+
+	@Test
+	void subscribersGetEveryChangeOnceTest() {
+		SongChangeLog changeLog = new SongChangeLog(10);
+		changeLog.deleted(1);
+		changeLog.deleted(2);
+		List<Long> received = new ArrayList<>();
+
+		SongChanges missed = changeLog.subscribe(null, 1, change -> received.add(change.getSequence()));
+		changeLog.deleted(3);
+		assertEquals(List.of(2L), missed.getChanges().stream().map(SongChange::getSequence).collect(Collectors.toList()));
+		assertEquals(List.of(3L), received);
+	}
+}
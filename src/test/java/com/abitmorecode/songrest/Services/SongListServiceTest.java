@@ -0,0 +1,136 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongList;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import com.abitmorecode.songrest.SongControllerException.SongListDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongListServiceTest {
+
+	private SongService songService;
+	private SongListService songListService;
+
+	@BeforeEach
+	void setup() {
+		songService = new SongService(new SimpleMeterRegistry());
+		songListService = new SongListService(songService);
+	}
+
+	@Test
+	void listsAreReadFromTheSongStoreTest() throws Exception {
+		SongList songList = list("favourites", 5, 4, 5);
+		songListService.addSongList(songList);
+
+		SongList read = songListService.getSongList(songList.getId());
+		assertEquals("favourites", read.getName());
+		assertEquals(List.of(songService.getSpecificSong(5), songService.getSpecificSong(4), songService.getSpecificSong(5)), read.getSongs());
+
+		assertThrows(SongDoesntExistException.class, () -> songListService.addSongList(list("broken", 1, 12345)));
+		assertEquals(1, songListService.getAllSongLists().size());
+	}
+
+	@Test
+	void deletedSongsAreRemovedFromAllListsTest() throws Exception {
+		SongList first = list("first", 1, 2, 2, 3);
+		SongList second = list("second", 2, 4);
+		SongList third = list("third", 5);
+		songListService.addSongList(first);
+		songListService.addSongList(second);
+		songListService.addSongList(third);
+
+		songService.deleteSong(2);
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(2));
+		assertEquals(List.of(1, 3), ids(songListService.getSongList(first.getId())));
+		assertEquals(List.of(4), ids(songListService.getSongList(second.getId())));
+		assertEquals(List.of(5), ids(songListService.getSongList(third.getId())));
+
+		songListService.deleteSongList(first.getId());
+		assertThrows(SongListDoesntExistException.class, () -> songListService.getSongList(first.getId()));
+		assertThrows(SongListDoesntExistException.class, () -> songListService.deleteSongList(first.getId()));
+		// the reverse index forgot the deleted list, deleting its songs leaves the other lists alone
+		songService.deleteSong(1);
+		songService.deleteSong(4);
+		assertEquals(List.of(), ids(songListService.getSongList(second.getId())));
+		assertEquals(List.of(5), ids(songListService.getSongList(third.getId())));
+	}
+
+	@Test
+	void reusedIdsDontJoinOldListsTest() throws Exception {
+		SongList songList = list("old", 2, 3);
+		songListService.addSongList(songList);
+
+		// the freed ids are handed out again
+		songService.deleteSong(2);
+		songService.addSong(new Song(2, "Unrelated", "Somebody", "Label", 2021));
+		assertEquals(List.of(3), ids(songListService.getSongList(songList.getId())));
+
+		songService.reset();
+		songService.addSong(new Song(3, "Unrelated", "Somebody", "Label", 2021));
+		assertEquals(List.of(), ids(songListService.getSongList(songList.getId())));
+		assertEquals(1, songListService.getAllSongLists().size());
+	}
+
+	@Test
+	void removalsOfOtherSongsDontRepeatTheCheckTest() throws Exception {
+		List<Integer> checked = new ArrayList<>();
+		SongService store = new SongService(new SimpleMeterRegistry()) {
+			@Override
+			public Song getSpecificSong(int id) throws SongDoesntExistException {
+				checked.add(id);
+				if (checked.size() == 1) {
+					deleteSong(9);
+				}
+				return super.getSpecificSong(id);
+			}
+		};
+		SongListService lists = new SongListService(store);
+		lists.addSongList(new SongList(null, "one", List.of(new Song(5, "t", "a", "l", 2000))));
+		assertEquals(List.of(5), checked);
+	}
+
+	@Test
+	void checksOfRemovedMembersAreRepeatedBoundedTest() throws Exception {
+		List<Integer> checked = new ArrayList<>();
+		SongService store = new SongService(new SimpleMeterRegistry()) {
+			@Override
+			public Song getSpecificSong(int id) throws SongDoesntExistException {
+				checked.add(id);
+				Song song = super.getSpecificSong(id);
+				// another writer removes the member and adds it again during every check
+				deleteSong(id);
+				try {
+					addSong(new Song(id, song.getTitle(), song.getArtist(), song.getLabel(), song.getReleased()));
+				} catch (NoIdAvailableException e) {
+					throw new IllegalStateException(e);
+				}
+				return song;
+			}
+		};
+		SongListService lists = new SongListService(store);
+		assertThrows(SongDoesntExistException.class, () -> lists.addSongList(new SongList(null, "churn", List.of(new Song(5, "t", "a", "l", 2000)))));
+		assertEquals(List.of(5, 5, 5, 5), checked);
+		assertTrue(lists.getAllSongLists().isEmpty());
+	}
+
+	private SongList list(String name, int... songIds) throws SongDoesntExistException {
+		List<Song> songs = new ArrayList<>();
+		for (int songId : songIds) {
+			songs.add(songId == 12345 ? new Song(songId, "t", "a", "l", 2000) : songService.getSpecificSong(songId));
+		}
+		return new SongList(null, name, songs);
+	}
+
+	private static List<Integer> ids(SongList songList) {
+		return songList.getSongs().stream().map(Song::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,83 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongSearchIndexTest {
+
+	private SongSearchIndex searchIndex;
+
+	@BeforeEach
+	void setup() {
+		searchIndex = new SongSearchIndex();
+		searchIndex.add(new Song(1, "Déjà Vu", "Beyoncé", "Columbia", 2006));
+		searchIndex.add(new Song(2, "Deja Vu Deja Vu", "Somebody", "Columbia", 2010));
+		searchIndex.add(new Song(3, "Crazy in Love", "Beyoncé", "Columbia", 2003));
+	}
+
+	@Test
+	void tokenizeFoldsCaseAndAccentsTest() {
+		assertEquals(List.of("deja", "vu", "beyonce"), SongSearchIndex.tokenize("Déjà-VU, BEYONCÉ!"));
+	}
+
+	@Test
+	void searchRanksByRelevanceTest() {
+		assertArrayEquals(new int[]{2, 1}, searchIndex.search("deja vu", 10));
+		assertArrayEquals(new int[]{1, 3}, searchIndex.search("beyonce", 10));
+		assertArrayEquals(new int[]{2}, searchIndex.search("deja", 1));
+		assertArrayEquals(new int[0], searchIndex.search("nothing", 10));
+	}
+
+	@Test
+	void searchFollowsRemovalsTest() {
+		searchIndex.remove(new Song(2, "Deja Vu Deja Vu", "Somebody", "Columbia", 2010));
+		assertArrayEquals(new int[]{1}, searchIndex.search("deja", 10));
+
+		searchIndex.clear();
+		assertArrayEquals(new int[0], searchIndex.search("beyonce", 10));
+	}
+
+	@Test
+	void removalsFromLongPostingListsTest() {
+		for (int id = 10; id < 210; id++) {
+			searchIndex.add(new Song(id, "Common " + id, "Artist", "Label", 2000));
+		}
+		for (int id = 10; id < 210; id += 2) {
+			searchIndex.remove(new Song(id, "Common " + id, "Artist", "Label", 2000));
+		}
+		searchIndex.remove(new Song(209, "Common 209", "Artist", "Label", 2000));
+
+		int[] hits = searchIndex.search("common", 1000);
+		assertEquals(99, hits.length);
+		for (int id : hits) {
+			assertTrue(id % 2 == 1 && id != 209, "removed song found: " + id);
+		}
+		assertArrayEquals(new int[]{11}, searchIndex.search("11", 10));
+		assertArrayEquals(new int[0], searchIndex.search("12", 10));
+	}
+
+	@Test
+	void rankWithoutIndexPutsTheBestMatchFirstTest() {
+		Stream<Song> songs = Stream.of(
+				new Song(1, "Vu", "Somebody", "Columbia", 2006),
+				new Song(2, "Deja Vu", "Beyoncé", "Columbia", 2006),
+				new Song(3, "Crazy in Love", "Beyoncé", "Columbia", 2003),
+				new Song(4, "Deja Vu Deja Vu", "Somebody", "Columbia", 2010));
+		assertEquals(List.of(4, 2, 1), ids(SongSearchIndex.rank(songs, "déjà vu", 10)));
+		assertEquals(List.of(2, 3), ids(SongSearchIndex.rank(Stream.of(new Song(3, "Crazy in Love", "Beyoncé", "Columbia", 2003),
+				new Song(2, "Deja Vu", "Beyoncé", "Columbia", 2006)), "beyonce", 10)));
+		assertEquals(List.of(4), ids(SongSearchIndex.rank(Stream.of(new Song(1, "Vu", "Somebody", "Columbia", 2006),
+				new Song(4, "Deja Vu Deja Vu", "Somebody", "Columbia", 2010)), "deja vu", 1)));
+	}
+
+	private static List<Integer> ids(List<Song> songs) {
+		return songs.stream().map(Song::getId).collect(Collectors.toList());
+	}
+}
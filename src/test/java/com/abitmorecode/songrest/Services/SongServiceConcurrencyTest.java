@@ -0,0 +1,166 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongServiceConcurrencyTest {
+
+	private static final int READERS = 4;
+	private static final int WRITES = 2_000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * one writer adds and deletes songs and remembers every committed state, while readers serialize the whole
+	 * <p>
+	 * catalog like GET /songs does, every serialized response has to match one of the committed states
+	 */
+	@Test
+	void readersOnlySeeCommittedVersionsTest() throws Exception {
+		SongService songService = new SongService();
+		songService.reset();
+
+		Set<String> committedStates = ConcurrentHashMap.newKeySet();
+		committedStates.add("");
+		Set<String> observedStates = ConcurrentHashMap.newKeySet();
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+
+		List<Future<?>> readers = new ArrayList<>();
+		for (int i = 0; i < READERS; i++) {
+			readers.add(executor.submit(() -> {
+				start.await();
+				while (writing.get()) {
+					String json = objectMapper.writeValueAsString(songService.getAllSongs());
+					observedStates.add(idsOf(json));
+				}
+				return null;
+			}));
+		}
+
+		Future<?> writer = executor.submit(() -> {
+			TreeSet<Integer> model = new TreeSet<>();
+			start.await();
+			for (int i = 0; i < WRITES; i++) {
+				if (model.isEmpty() || ThreadLocalRandom.current().nextInt(3) > 0) {
+					Song song = new Song(ThreadLocalRandom.current().nextInt(500), "title " + i, "artist", "label", 2000);
+					songService.addSong(song);
+					model.add(song.getId());
+				} else {
+					int id = model.pollFirst();
+					songService.deleteSong(id);
+				}
+				committedStates.add(model.stream().map(String::valueOf).collect(Collectors.joining(",")));
+			}
+			writing.set(false);
+			return null;
+		});
+
+		start.countDown();
+		writer.get(60, TimeUnit.SECONDS);
+		for (Future<?> reader : readers) {
+			reader.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertFalse(observedStates.isEmpty());
+		for (String observed : observedStates) {
+			assertTrue(committedStates.contains(observed), "torn read: " + observed);
+		}
+	}
+
+	/**
+	 * a writer replaces the whole catalog by a batch again and again, filters and searches running meanwhile have to
+	 * <p>
+	 * see either none or all songs of the batch, never an index of one version combined with a snapshot of another
+	 */
+	@Test
+	void queriesSeeWholeBatchesTest() throws Exception {
+		SongService songService = new SongService();
+		songService.reset();
+		int batchSize = 10;
+		Set<Integer> observedSizes = ConcurrentHashMap.newKeySet();
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+		List<Future<?>> readers = new ArrayList<>();
+		for (int i = 0; i < READERS; i++) {
+			readers.add(executor.submit(() -> {
+				while (writing.get()) {
+					observedSizes.add(songService.findSongs(new SongQuery("Batch Artist", null, null, null)).size());
+					observedSizes.add(songService.searchSongs("batch", 100).size());
+				}
+				return null;
+			}));
+		}
+		Future<?> writer = executor.submit(() -> {
+			for (int i = 0; i < WRITES; i++) {
+				List<Song> batch = new ArrayList<>();
+				for (int id = 1; id <= batchSize; id++) {
+					batch.add(new Song(id, "Batch " + i, "Batch Artist", "label", 2000));
+				}
+				songService.reset();
+				songService.addSongs(batch);
+			}
+			writing.set(false);
+			return null;
+		});
+
+		writer.get(60, TimeUnit.SECONDS);
+		for (Future<?> reader : readers) {
+			reader.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		observedSizes.removeAll(Set.of(0, batchSize));
+		assertTrue(observedSizes.isEmpty(), "partial results: " + observedSizes);
+	}
+
+	@Test
+	void oldSnapshotsStayUnchangedTest() throws Exception {
+		SongService songService = new SongService();
+		songService.reset();
+		songService.addSong(new Song(1, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+
+		SongSnapshot before = songService.getSnapshot();
+		List<Song> songsBefore = songService.getAllSongs();
+		songService.addSong(new Song(2, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		songService.deleteSong(1);
+
+		assertEquals(1, songsBefore.size());
+		assertEquals(1, songsBefore.get(0).getId());
+		assertNotNull(before.find(1));
+		assertNull(before.find(2));
+		assertTrue(songService.getSnapshot().getVersion() > before.getVersion());
+		assertThrows(UnsupportedOperationException.class, () -> songsBefore.add(new Song(3, "Das Test", "N bisschen Test", "TestTestTest", 2015)));
+	}
+
+	private String idsOf(String json) throws Exception {
+		List<String> ids = new ArrayList<>();
+		for (JsonNode song : objectMapper.readTree(json)) {
+			ids.add(song.get("id").asText());
+		}
+		return String.join(",", ids);
+	}
+}
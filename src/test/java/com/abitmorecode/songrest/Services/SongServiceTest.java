@@ -1,8 +1,10 @@
 package com.abitmorecode.songrest.Services;
 
 import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
 import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
 import com.abitmorecode.songrest.SongControllerException.SameSongAlreadyExistException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
 import com.abitmorecode.songrest.SongControllerException.SongIdAlreadyExistException;
 import com.google.gson.JsonParseException;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,6 +88,18 @@ class SongServiceTest {
 		assert songService.getAllSongs().isEmpty();
 	}
 
+	@Test
+	void fileIsEmptyTest() {
+		SongService songService = new SongService();
+		songService.reset();
+		try {
+			songService.init(path + "none.json");
+		} catch (IOException e) {
+			fail();
+		}
+		assert songService.getAllSongs().isEmpty();
+	}
+
 	@Test
 	void addASimpleSong() {
 		SongsManager songService = new SongService();
@@ -99,9 +113,73 @@ class SongServiceTest {
 	}
 
 	@Test
-	void addASongWithAutomaticIdAssigment() {
+	void addASongWithAutomaticIdAssigment() throws NoIdAvailableException, SongDoesntExistException {
+		SongsManager songService = new SongService();
+		songService.reset();
+		songService.addSong(new Song(0, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		songService.addSong(new Song(1, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		songService.addSong(new Song(3, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+
+		Song collision = new Song(1, "Noch n Test", "N bisschen Test", "TestTestTest", 2016);
+		songService.addSong(collision);
+		assertEquals(2, collision.getId());
+		assertEquals(collision, songService.getSpecificSong(2));
+
+		// 0 to 3 are in use now, so the next free id is behind them
+		Song secondCollision = new Song(0, "Noch n Test", "N bisschen Test", "TestTestTest", 2016);
+		songService.addSong(secondCollision);
+		assertEquals(4, secondCollision.getId());
+	}
+
+	@Test
+	void deletedIdGetsReusedTest() throws NoIdAvailableException, SongDoesntExistException {
+		SongsManager songService = new SongService();
+		songService.reset();
+		for (int i = 0; i < 5; i++) {
+			songService.addSong(new Song(i, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		}
+		songService.deleteSong(2);
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(2));
+		assertThrows(SongDoesntExistException.class, () -> songService.deleteSong(2));
+
+		Song song = new Song(4, "Noch n Test", "N bisschen Test", "TestTestTest", 2016);
+		songService.addSong(song);
+		assertEquals(2, song.getId());
+		assertEquals(5, songService.getAllSongs().size());
+	}
+
+	@Test
+	void findSongsStaysConsistentTest() throws NoIdAvailableException, SongDoesntExistException {
+		SongsManager songService = new SongService();
+		songService.reset();
+		songService.addSong(new Song(1, "Das Test", "N bisschen Test", "TestTestTest", 2015));
+		songService.addSong(new Song(2, "Noch n Test", "N bisschen Test", "Anderes Label", 2016));
+		songService.addSong(new Song(3, "Der Test", "Jemand anderes", "TestTestTest", 2017));
+
+		assertEquals(2, songService.findSongs(new SongQuery("n bisschen test", null, null, null)).size());
+		assertEquals(1, songService.findSongs(new SongQuery("N bisschen Test", "TestTestTest", null, null)).size());
+		assertEquals(2, songService.findSongs(new SongQuery(null, null, 2016, null)).size());
+
+		songService.deleteSong(1);
+		assertTrue(songService.findSongs(new SongQuery(null, "TestTestTest", 2010, 2015)).isEmpty());
+
+		songService.reset();
+		assertTrue(songService.findSongs(new SongQuery("N bisschen Test", null, null, null)).isEmpty());
+	}
+
+	@Test
+	void storedSongsCantBeChangedTest() throws NoIdAvailableException, SongDoesntExistException {
 		SongsManager songService = new SongService();
 		songService.reset();
+		Song song = new Song(1, "Das Test", "N bisschen Test", "TestTestTest", 2015);
+		songService.addSong(song);
+
+		song.setId(7);
+		song.setTitle("Changed");
+		Song stored = songService.getSpecificSong(1);
+		assertEquals("Das Test", stored.getTitle());
+		assertThrows(UnsupportedOperationException.class, () -> stored.setId(3));
+		assertEquals(1, songService.getAllSongs().get(0).getId());
 	}
 
 	@Test
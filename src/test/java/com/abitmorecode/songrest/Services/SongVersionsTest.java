@@ -0,0 +1,47 @@
+package com.abitmorecode.songrest.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongVersionsTest {
+
+	@Test
+	void songVersionDoesntGoBackDuringChangedAllTest() {
+		AtomicReference<SongVersions> versions = new AtomicReference<>();
+		AtomicReference<SongVersions.Version> duringClear = new AtomicReference<>();
+		// a reader that comes in right after changedAll cleared the written versions
+		versions.set(new SongVersions(new ConcurrentHashMap<>() {
+			@Override
+			public void clear() {
+				super.clear();
+				duringClear.set(versions.get().song(1));
+			}
+		}));
+		versions.get().changed(1);
+		SongVersions.Version written = versions.get().song(1);
+
+		versions.get().changedAll();
+		assertTrue(number(duringClear.get()) >= number(written));
+		assertTrue(number(versions.get().song(1)) > number(written));
+	}
+
+	@Test
+	void changedAllReplacesWrittenVersionsTest() {
+		SongVersions versions = new SongVersions();
+		versions.changed(1);
+		SongVersions.Version written = versions.song(1);
+		versions.changedAll();
+		assertTrue(number(versions.song(1)) > number(written));
+		assertEquals(versions.catalog().getTag(), versions.song(1).getTag());
+		assertEquals(versions.song(2).getTag(), versions.song(1).getTag());
+	}
+
+	private static long number(SongVersions.Version version) {
+		String tag = version.getTag();
+		return Long.parseLong(tag.substring(tag.indexOf('-') + 1));
+	}
+}
@@ -0,0 +1,95 @@
+package com.abitmorecode.songrest.Services;
+
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Models.SongQuery;
+import com.abitmorecode.songrest.SongControllerException.NoIdAvailableException;
+import com.abitmorecode.songrest.SongControllerException.SongDoesntExistException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * behaviour every SongsManager shares with the in-memory SongService, each store test extends it
+ *
+ * @param <T> type of the tested store
+ */
+abstract class SongsManagerContractTest<T extends SongsManager> {
+
+	protected SongService expected;
+	protected T songService;
+
+	/**
+	 * @return new store with the default catalog loaded
+	 */
+	protected abstract T createSongsManager();
+
+	@BeforeEach
+	void setupStores() {
+		expected = new SongService(new SimpleMeterRegistry());
+		songService = createSongsManager();
+	}
+
+	@Test
+	void readsLikeTheMemoryStoreTest() throws SongDoesntExistException {
+		assertEquals(expected.getAllSongs(), songService.getAllSongs());
+		assertEquals(expected.getSpecificSong(4), songService.getSpecificSong(4));
+		assertEquals(expected.getSongsAfter(2, 3), songService.getSongsAfter(2, 3));
+		assertEquals(expected.getSongsAfter(Integer.MAX_VALUE, 3), songService.getSongsAfter(Integer.MAX_VALUE, 3));
+
+		SongQuery query = new SongQuery("BAHA MEN", null, 1990, null);
+		assertEquals(expected.findSongs(query), songService.findSongs(query));
+	}
+
+	@Test
+	void writesLikeTheMemoryStoreTest() throws NoIdAvailableException, SongDoesntExistException {
+		for (SongsManager songsManager : new SongsManager[]{expected, songService}) {
+			songsManager.deleteSong(4);
+			songsManager.deleteSong(6);
+			songsManager.addSong(new Song(1, "Colliding", "Somebody", "Label", 2020));
+			songsManager.addSong(new Song(50, "Ünïcödé Title", "Somebody", "Label", 2021));
+			songsManager.deleteSong(2);
+		}
+		assertEquals(expected.getAllSongs(), songService.getAllSongs());
+		assertThrows(SongDoesntExistException.class, () -> songService.deleteSong(2));
+
+		songService.reset();
+		assertTrue(songService.getAllSongs().isEmpty());
+	}
+
+	@Test
+	void songsWithoutTextFieldsLikeTheMemoryStoreTest() throws NoIdAvailableException, SongDoesntExistException {
+		for (SongsManager songsManager : new SongsManager[]{expected, songService}) {
+			songsManager.addSong(new Song(50, null, null, null, 1990));
+			songsManager.addSong(new Song(51, "Only Title", null, "Label", 1990));
+		}
+		assertEquals(expected.getAllSongs(), songService.getAllSongs());
+		assertEquals(new Song(50, null, null, null, 1990), songService.getSpecificSong(50));
+
+		SongQuery query = new SongQuery(null, "label", 1990, null);
+		assertEquals(expected.findSongs(query), songService.findSongs(query));
+		assertEquals(List.of(51), songService.searchSongs("only", 10).stream().map(Song::getId).collect(Collectors.toList()));
+
+		songService.deleteSong(50);
+		songService.deleteSong(51);
+		assertThrows(SongDoesntExistException.class, () -> songService.getSpecificSong(50));
+	}
+
+	@Test
+	void streamsLikeTheMemoryStoreTest() throws NoIdAvailableException {
+		// more than one page of the stores streaming page by page
+		for (SongsManager songsManager : new SongsManager[]{expected, songService}) {
+			for (int id = 100; id < 100 + 2 * SongPages.PAGE_SIZE + 10; id++) {
+				songsManager.addSong(new Song(id, "Title " + id, "Artist", "Label", 2000));
+			}
+		}
+		try (Stream<Song> songs = songService.streamAllSongs()) {
+			assertEquals(expected.getAllSongs(), songs.collect(Collectors.toList()));
+		}
+	}
+}
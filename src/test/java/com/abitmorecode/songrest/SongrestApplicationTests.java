@@ -1,16 +1,59 @@
 package com.abitmorecode.songrest;
 
 import com.abitmorecode.songrest.Controller.SongController;
+import com.abitmorecode.songrest.Controller.SongCursor;
+import com.abitmorecode.songrest.Controller.SongFormat;
+import com.abitmorecode.songrest.Controller.SongMappers;
+import com.abitmorecode.songrest.Models.Song;
+import com.abitmorecode.songrest.Services.SongsManager;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class SongrestApplicationTests {
 
 	private static SongController songController;
 
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private SongsManager songsManager;
+
+	@Autowired
+	private SongMappers songMappers;
+
 	@BeforeAll
 	static void beforeAll() {
 		songController = new SongController();
@@ -21,12 +64,312 @@ class SongrestApplicationTests {
 	}
 
 	@Test
-	void getSong() {
+	void getSong() throws Exception {
+		mockMvc.perform(get("/ABitMoreCode/songs/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(1));
+	}
+
+	@Test
+	void getSongs() throws Exception {
+		export(get("/ABitMoreCode/songs"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(10));
+	}
+
+	@Test
+	void getSongsAsNdjson() throws Exception {
+		String body = export(get("/ABitMoreCode/songs").accept("application/x-ndjson"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
 
+		String[] lines = body.split("\n");
+		assertEquals(10, lines.length);
+		assertTrue(lines[0].startsWith("{\"id\":1,"));
 	}
 
 	@Test
-	void getSongs() {
+	void songsAreWrittenAsXmlIfAccepted() throws Exception {
+		mockMvc.perform(get("/ABitMoreCode/songs/1").accept(MediaType.APPLICATION_XML))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_XML))
+				.andExpect(xpath("/song/id").string("1"));
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3").accept(MediaType.APPLICATION_XML))
+				.andExpect(status().isOk())
+				.andExpect(xpath("/songs/item").nodeCount(3))
+				.andExpect(header().string(HttpHeaders.ETAG, endsWith("-xml\"")));
+		export(get("/ABitMoreCode/songs").header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/xml"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_XML))
+				.andExpect(xpath("/songs/item").nodeCount(10))
+				.andExpect(xpath("/songs/item[1]/title").string("MacArthur Park"));
+		// json stays the default
+		mockMvc.perform(get("/ABitMoreCode/songs/1").accept(MediaType.ALL))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.id").value(1));
+	}
+
+	@Test
+	void songsAreExchangedInBinaryFormats() throws Exception {
+		Song song = new Song(4000, "Binary", "Somebody", "Label", 2021);
+		mockMvc.perform(post("/ABitMoreCode/songs").contentType(SongFormat.CBOR.getMediaType()).content(songMappers.write(song, SongFormat.CBOR)))
+				.andExpect(status().isCreated());
+		byte[] smile = mockMvc.perform(get("/ABitMoreCode/songs/4000").accept(SongFormat.SMILE.getMediaType()))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(SongFormat.SMILE.getMediaType()))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(song, songMappers.get(SongFormat.SMILE).readValue(smile, Song.class));
+		songsManager.deleteSong(4000);
+
+		Song protobufSong = new Song(4001, "Protobuf", "Somebody", "Label", 2021);
+		mockMvc.perform(post("/ABitMoreCode/songs").contentType(SongFormat.PROTOBUF.getMediaType()).content(songMappers.write(protobufSong, SongFormat.PROTOBUF)))
+				.andExpect(status().isCreated());
+		assertEquals(protobufSong, songsManager.getSpecificSong(4001));
+		songsManager.deleteSong(4001);
+
+		// the streamed protobuf export and the cbor export decode to the same songs as the json export
+		List<Song> songs = songsManager.getAllSongs();
+		byte[] protobuf = export(get("/ABitMoreCode/songs").accept(SongFormat.PROTOBUF.getMediaType()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		Map<String, List<Song>> message = songMappers.get(SongFormat.PROTOBUF)
+				.readerFor(new TypeReference<Map<String, List<Song>>>() {})
+				.with(SongMappers.SONGS_SCHEMA)
+				.readValue(protobuf);
+		assertEquals(songs, message.get("songs"));
+		byte[] cbor = export(get("/ABitMoreCode/songs").accept(SongFormat.CBOR.getMediaType()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(songs, songMappers.get(SongFormat.CBOR).readValue(cbor, new TypeReference<List<Song>>() {}));
+	}
+
+	@Test
+	void getSongsPaged() throws Exception {
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(header().string(HttpHeaders.LINK, containsString("after=" + SongCursor.encode(3))));
+
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3").param("after", SongCursor.encode(9)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(10))
+				.andExpect(header().doesNotExist(HttpHeaders.LINK));
+	}
+
+	@Test
+	void getSongsFiltered() throws Exception {
+		export(get("/ABitMoreCode/songs").param("artist", "baha men"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].title").value("Who Let the Dogs Out?"));
+
+		export(get("/ABitMoreCode/songs").param("releasedFrom", "2000").param("releasedTo", "2005"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].released", everyItem(allOf(greaterThanOrEqualTo(2000), lessThanOrEqualTo(2005)))));
+
+		export(get("/ABitMoreCode/songs").param("artist", "Baha Men").param("label", "Universal Music"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void searchSongs() throws Exception {
+		mockMvc.perform(get("/ABitMoreCode/songs/search").param("q", "dogs"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].artist").value("Baha Men"));
+	}
+
+	@Test
+	void requestsAreMeasured() throws Exception {
+		double notFoundBefore = meterRegistry.counter("songrest.songs.not.found").count();
+		mockMvc.perform(get("/ABitMoreCode/songs/1")).andExpect(status().isOk());
+		mockMvc.perform(get("/ABitMoreCode/songs/123456")).andExpect(status().isBadRequest());
+
+		assertTrue(meterRegistry.get("songrest.controller.requests").tag("mapping", "getSong").timer().count() >= 2);
+		assertEquals(notFoundBefore + 1, meterRegistry.counter("songrest.songs.not.found").count());
+		assertEquals(10, meterRegistry.get("songrest.songs.catalog.size").gauge().value());
+	}
+
+	@Test
+	void getSongsWithInvalidCursor() throws Exception {
+		mockMvc.perform(get("/ABitMoreCode/songs").param("after", "not a cursor"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("invalid cursor: not a cursor"));
+		mockMvc.perform(get("/ABitMoreCode/songs").param("after", SongCursor.encode(3).substring(2)))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void postSongsBatchRejectsInvalidRecords() throws Exception {
+		mockMvc.perform(post("/ABitMoreCode/songs/batch")
+						.contentType("application/x-ndjson")
+						.content("{\"id\": 1, \"title\": \"No artist\"}\nnot json\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(2))
+				.andExpect(jsonPath("$.added").value(0))
+				.andExpect(jsonPath("$.rejected").value(2))
+				.andExpect(jsonPath("$.records[1].record").value(1));
+	}
+
+	@Test
+	void conditionalGetsAreAnsweredWith304WhileOtherSongsChange() throws Exception {
+		MvcResult first = mockMvc.perform(get("/ABitMoreCode/songs/4"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn();
+		String songTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		String catalogTag = export(get("/ABitMoreCode/songs"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/ABitMoreCode/songs").header(HttpHeaders.IF_NONE_MATCH, catalogTag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 200; i++) {
+				try {
+					songsManager.addSong(new Song(1000, "Elsewhere", "Somebody", "Label", 2021));
+					songsManager.deleteSong(1000);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		writer.start();
+		do {
+			mockMvc.perform(get("/ABitMoreCode/songs/4").header(HttpHeaders.IF_NONE_MATCH, songTag))
+					.andExpect(status().isNotModified())
+					.andExpect(content().string(""));
+		} while (writer.isAlive());
+		writer.join();
+
+		mockMvc.perform(get("/ABitMoreCode/songs/4").header(HttpHeaders.IF_MODIFIED_SINCE, first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+				.andExpect(status().isNotModified());
+		export(get("/ABitMoreCode/songs").header(HttpHeaders.IF_NONE_MATCH, catalogTag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(catalogTag)));
+	}
+
+	@Test
+	void responsesAreServedFromTheCache() throws Exception {
+		double hitsBefore = meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count();
+		String first = mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(content().string(first))
+				.andExpect(header().string(HttpHeaders.LINK, containsString("after=" + SongCursor.encode(3))));
+		byte[] gzipped = mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+				.andReturn().getResponse().getContentAsByteArray();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			assertEquals(first, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		assertTrue(meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count() >= hitsBefore + 2);
+
+		// the first export is streamed and compressed on the fly, the second one comes from the cache
+		for (int i = 0; i < 2; i++) {
+			gzipped = export(get("/ABitMoreCode/songs").param("artist", "Baha Men").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+					.andExpect(status().isOk())
+					.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+					.andReturn().getResponse().getContentAsByteArray();
+			try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+				assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("Who Let the Dogs Out?"));
+			}
+		}
+
+		// a write invalidates the page, but not the cached song 4
+		mockMvc.perform(get("/ABitMoreCode/songs/4")).andExpect(status().isOk());
+		songsManager.addSong(new Song(2000, "Invalidating", "Somebody", "Label", 2021));
+		songsManager.deleteSong(2000);
+		double hits = meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count();
+		mockMvc.perform(get("/ABitMoreCode/songs/4")).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(4));
+		assertEquals(hits + 1, meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count());
+		mockMvc.perform(get("/ABitMoreCode/songs").param("limit", "3")).andExpect(status().isOk()).andExpect(content().string(first));
+		assertEquals(hits + 1, meterRegistry.get("songrest.response.cache.gets").tag("result", "hit").counter().count());
+	}
+
+	@Test
+	void songListsLoseDeletedSongs() throws Exception {
+		songsManager.addSong(new Song(3000, "Soon Deleted", "Somebody", "Label", 2021));
+		String body = "{\"name\":\"SongList123\",\"songs\":["
+				+ "{\"id\":5,\"title\":\"We Built This City\",\"artist\":\"Starship\",\"label\":\"Grunt/RCA\",\"released\":1985},"
+				+ "{\"id\":3000,\"title\":\"Soon Deleted\",\"artist\":\"Somebody\",\"label\":\"Label\",\"released\":2021}]}";
+		String location = mockMvc.perform(post("/ABitMoreCode/songLists").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+		mockMvc.perform(get(location))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.name").value("SongList123"))
+				.andExpect(jsonPath("$.songs[*].id", contains(5, 3000)));
+		mockMvc.perform(get(location).accept(MediaType.APPLICATION_XML))
+				.andExpect(xpath("/songList/songs/item[2]/id").string("3000"));
+		mockMvc.perform(get("/ABitMoreCode/songLists").accept(MediaType.APPLICATION_XML))
+				.andExpect(xpath("/songLists/item/name").string("SongList123"));
+		mockMvc.perform(delete("/ABitMoreCode/songs/3000")).andExpect(status().isNoContent());
+		mockMvc.perform(get(location))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.songs[*].id", contains(5)));
+
+		mockMvc.perform(post("/ABitMoreCode/songLists").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+		mockMvc.perform(get(location)).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void songChangesArePolledAndStreamed() throws Exception {
+		String start = mockMvc.perform(get("/ABitMoreCode/songs/changes"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changes", empty()))
+				.andReturn().getResponse().getContentAsString();
+		long since = ((Number) JsonPath.read(start, "$.next")).longValue();
+		MvcResult stream = mockMvc.perform(get("/ABitMoreCode/songs/changes/stream").param("since", Long.toString(since)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		songsManager.addSong(new Song(3100, "Changed", "Somebody", "Label", 2021));
+		mockMvc.perform(delete("/ABitMoreCode/songs/3100")).andExpect(status().isNoContent());
+
+		mockMvc.perform(get("/ABitMoreCode/songs/changes").param("since", Long.toString(since)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resync").value(false))
+				.andExpect(jsonPath("$.next").value(since + 2))
+				.andExpect(jsonPath("$.changes[*].type", contains("ADDED", "DELETED")))
+				.andExpect(jsonPath("$.changes[0].song.title").value("Changed"))
+				.andExpect(jsonPath("$.changes[1].id").value(3100));
+		mockMvc.perform(get("/ABitMoreCode/songs/changes").param("since", "-1"))
+				.andExpect(jsonPath("$.resync").value(true))
+				.andExpect(jsonPath("$.changes", empty()));
+
+		String events = "";
+		for (int i = 0; i < 100 && !events.contains("id:" + (since + 2)); i++) {
+			Thread.sleep(50);
+			events = stream.getResponse().getContentAsString();
+		}
+		assertTrue(events.contains("id:" + (since + 1) + "\nevent:change\ndata:{\"sequence\":" + (since + 1) + ",\"type\":\"ADDED\""), events);
+		assertTrue(events.contains("id:" + (since + 2) + "\nevent:change\ndata:{\"sequence\":" + (since + 2) + ",\"type\":\"DELETED\""), events);
+	}
 
+	/**
+	 * performs a request answered by a streamed export
+	 */
+	private ResultActions export(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(result));
 	}
 }